@@ -0,0 +1,78 @@
+package co.infinum.retromock;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executor that coalesces tasks submitted before the delegate gets to run them into a single
+ * {@link Executor#execute(Runnable)} call. When many mocked calls complete at once, e.g. on the
+ * same timer tick, their callbacks are posted to the callback executor as one task that runs
+ * them all in submission order, instead of one task per call.
+ * <p>
+ * A drain runs only the tasks queued when it starts. Tasks submitted meanwhile are posted as the
+ * next batch, so a steady stream of completions can't hold the delegate, e.g. the Android main
+ * looper, in a single task.
+ */
+final class BatchingExecutor implements Executor, Runnable {
+
+    /**
+     * Executor tasks are eventually run on.
+     */
+  private final Executor delegate;
+
+    /**
+     * Tasks waiting for the next drain.
+     */
+  private final Queue<Runnable> queue = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Number of tasks in the queue, as the size of a concurrent queue is not constant time.
+     */
+  private final AtomicInteger queued = new AtomicInteger();
+
+    /**
+     * Flag indicating whether a drain is submitted to the delegate and did not finish yet.
+     */
+  private final AtomicBoolean scheduled = new AtomicBoolean();
+
+  BatchingExecutor(final Executor delegate) {
+    this.delegate = delegate;
+  }
+
+  Executor delegate() {
+    return delegate;
+  }
+
+  @Override
+  public void execute(final Runnable command) {
+    Preconditions.checkNotNull(command, "Command is null.");
+    queue.add(command);
+    queued.incrementAndGet();
+    if (scheduled.compareAndSet(false, true)) {
+      delegate.execute(this);
+    }
+  }
+
+  /**
+   * Runs tasks queued before the drain started. Runs on the delegate executor.
+   */
+  @Override
+  public void run() {
+    try {
+      Runnable task;
+      for (int batch = queued.get(); batch > 0 && (task = queue.poll()) != null; batch--) {
+        queued.decrementAndGet();
+        task.run();
+      }
+    } finally {
+      scheduled.set(false);
+      // tasks added during the drain, or left behind by a task that threw
+      if (!queue.isEmpty() && scheduled.compareAndSet(false, true)) {
+        delegate.execute(this);
+      }
+    }
+  }
+}
@@ -0,0 +1,56 @@
+package co.infinum.retromock;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Input stream reading a byte buffer, e.g. a memory-mapped file, without copying it. Reads change
+ * only the position of the buffer passed in, so pass a {@link ByteBuffer#duplicate()} of a shared
+ * buffer.
+ */
+final class ByteBufferInputStream extends InputStream {
+
+  /**
+   * Mask converting a signed byte to an unsigned value.
+   */
+  private static final int BYTE_MASK = 0xff;
+
+  /**
+   * Buffer bytes are read from.
+   */
+  private final ByteBuffer buffer;
+
+  ByteBufferInputStream(final ByteBuffer buffer) {
+    this.buffer = buffer;
+  }
+
+  @Override
+  public int read() {
+    return buffer.hasRemaining() ? buffer.get() & BYTE_MASK : -1;
+  }
+
+  @Override
+  public int read(final byte[] bytes, final int offset, final int length) {
+    if (length == 0) {
+      return 0;
+    }
+    if (!buffer.hasRemaining()) {
+      return -1;
+    }
+    int count = Math.min(length, buffer.remaining());
+    buffer.get(bytes, offset, count);
+    return count;
+  }
+
+  @Override
+  public long skip(final long count) {
+    int skipped = (int) Math.max(0, Math.min(count, buffer.remaining()));
+    buffer.position(buffer.position() + skipped);
+    return skipped;
+  }
+
+  @Override
+  public int available() {
+    return buffer.remaining();
+  }
+}
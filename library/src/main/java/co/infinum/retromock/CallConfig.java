@@ -0,0 +1,99 @@
+package co.infinum.retromock;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+
+import javax.annotation.Nullable;
+
+/**
+ * Settings shared by all mocked calls of a {@link Retromock} instance. Created once when the
+ * instance is built.
+ */
+final class CallConfig {
+
+    /**
+     * Executor enqueued calls are delayed and run on.
+     */
+  private final ExecutorService backgroundExecutor;
+
+    /**
+     * Executor callbacks are invoked on, a {@link BatchingExecutor} if callbacks are batched.
+     */
+  private final Executor callbackExecutor;
+
+    /**
+     * Listener of mocked call events, {@code null} if calls are not observed.
+     */
+  @Nullable
+  private final CallListener listener;
+
+    /**
+     * Flag indicating whether response delay is measured from the moment a call is started.
+     */
+  private final boolean delayFromStart;
+
+    /**
+     * Scheduler enqueued calls are delayed on, {@code null} to delay them on the background executor.
+     */
+  @Nullable
+  private final ScheduledExecutorService delayScheduler;
+
+    /**
+     * Flag indicating whether responses of enqueued calls are converted on the callback executor.
+     */
+  private final boolean lazyConversion;
+
+    /**
+     * Flag indicating whether callbacks are posted to the callback executor in batches.
+     */
+  private final boolean batchCallbacks;
+
+  CallConfig(
+    final ExecutorService backgroundExecutor,
+    final Executor callbackExecutor,
+    @Nullable final CallListener listener,
+    final boolean delayFromStart,
+    @Nullable final ScheduledExecutorService delayScheduler,
+    final boolean lazyConversion,
+    final boolean batchCallbacks) {
+
+    this.backgroundExecutor = backgroundExecutor;
+    this.callbackExecutor = callbackExecutor;
+    this.listener = listener;
+    this.delayFromStart = delayFromStart;
+    this.delayScheduler = delayScheduler;
+    this.lazyConversion = lazyConversion;
+    this.batchCallbacks = batchCallbacks;
+  }
+
+  ExecutorService backgroundExecutor() {
+    return backgroundExecutor;
+  }
+
+  Executor callbackExecutor() {
+    return callbackExecutor;
+  }
+
+  @Nullable
+  CallListener listener() {
+    return listener;
+  }
+
+  boolean delayFromStart() {
+    return delayFromStart;
+  }
+
+  @Nullable
+  ScheduledExecutorService delayScheduler() {
+    return delayScheduler;
+  }
+
+  boolean lazyConversion() {
+    return lazyConversion;
+  }
+
+  boolean batchCallbacks() {
+    return batchCallbacks;
+  }
+}
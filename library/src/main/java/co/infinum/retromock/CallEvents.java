@@ -0,0 +1,63 @@
+package co.infinum.retromock;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reports events of calls to a single service method to a {@link CallListener}. Created only if
+ * a listener is set, so calls are not timed otherwise.
+ */
+final class CallEvents {
+
+    /**
+     * Listener events are reported to.
+     */
+  private final CallListener listener;
+
+    /**
+     * Service method calls are made to.
+     */
+  private final Method method;
+
+    /**
+     * Number of calls submitted to the background executor that did not start yet, shared by all
+     * service methods of a Retromock instance.
+     */
+  private final AtomicInteger queued;
+
+  CallEvents(final CallListener listener, final Method method, final AtomicInteger queued) {
+    this.listener = listener;
+    this.method = method;
+    this.queued = queued;
+  }
+
+  /**
+   * Reports a call submitted to the background executor.
+   *
+   * @return Start time in nanoseconds.
+   */
+  long started() {
+    listener.callStarted(method, queued.incrementAndGet());
+    return System.nanoTime();
+  }
+
+  void dequeued() {
+    queued.decrementAndGet();
+  }
+
+  void responseCreated(final long startNanos, final long bodyBytes) {
+    listener.responseCreated(method, System.nanoTime() - startNanos, bodyBytes);
+  }
+
+  void completed(final long startNanos, final long delayMillis) {
+    listener.callCompleted(method, delayMillis, System.nanoTime() - startNanos);
+  }
+
+  void failed(final Throwable error) {
+    listener.callFailed(method, error);
+  }
+
+  void canceled() {
+    listener.callCanceled(method);
+  }
+}
@@ -0,0 +1,65 @@
+package co.infinum.retromock;
+
+import java.lang.reflect.Method;
+
+/**
+ * Listener for events of mocked calls. Use it to measure how much work Retromock itself does,
+ * e.g. with {@link CallMetrics}. Calls delegated to Retrofit are not reported.
+ * <p>
+ * Methods are invoked synchronously on Retromock's threads, so implementations have to be thread
+ * safe and fast. Every call is reported by {@link #callStarted(Method, int)} and then by exactly
+ * one of {@link #callCompleted(Method, long, long)}, {@link #callFailed(Method, Throwable)} or
+ * {@link #callCanceled(Method)}.
+ */
+public interface CallListener {
+
+  /**
+   * Invoked on the calling thread when a mocked call is executed or enqueued.
+   *
+   * @param method     Service method.
+   * @param queueDepth Number of mocked calls submitted to the background executor that did not
+   *                   start yet, including this one.
+   */
+  default void callStarted(final Method method, final int queueDepth) {
+  }
+
+  /**
+   * Invoked on the background thread when a response is created and its body converted.
+   *
+   * @param method    Service method.
+   * @param nanos     Time spent creating the response and converting its body.
+   * @param bodyBytes Number of body bytes read by the converter. Bodies of error responses are
+   *                  not read, so their content length is reported instead, {@code -1} if unknown.
+   */
+  default void responseCreated(final Method method, final long nanos, final long bodyBytes) {
+  }
+
+  /**
+   * Invoked on the background thread when a mocked call successfully completes, before its
+   * callback is dispatched to the callback executor.
+   *
+   * @param method       Service method.
+   * @param delayMillis  Delay requested by the method {@link Behavior}.
+   * @param elapsedNanos Time elapsed since the call was started. Difference between this and the
+   *                     requested delay is the lag introduced by scheduling and response creation.
+   */
+  default void callCompleted(final Method method, final long delayMillis, final long elapsedNanos) {
+  }
+
+  /**
+   * Invoked on the background thread when a mocked call fails.
+   *
+   * @param method Service method.
+   * @param error  Failure reason.
+   */
+  default void callFailed(final Method method, final Throwable error) {
+  }
+
+  /**
+   * Invoked on the background thread when a mocked call is canceled.
+   *
+   * @param method Service method.
+   */
+  default void callCanceled(final Method method) {
+  }
+}
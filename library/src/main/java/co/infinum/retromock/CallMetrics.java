@@ -0,0 +1,358 @@
+package co.infinum.retromock;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongBinaryOperator;
+
+import javax.annotation.Nullable;
+
+/**
+ * {@link CallListener} that aggregates call counts and latency histograms per service method.
+ * Recording a value only increments {@link LongAdder} counters, so threads reporting calls
+ * concurrently do not contend with each other.
+ * <p>
+ * For example,
+ * <pre><code>
+ * CallMetrics metrics = new CallMetrics();
+ * Retromock retromock = new Retromock.Builder()
+ *    .retrofit(retrofit)
+ *    .callListener(metrics)
+ *    .build();
+ * ...
+ * long p99 = metrics.method(method).lag().percentile(0.99);
+ * </code></pre>
+ */
+public final class CallMetrics implements CallListener {
+
+  /**
+   * Metrics by service method.
+   */
+  private final ConcurrentHashMap<Method, MethodMetrics> methods = new ConcurrentHashMap<>();
+
+  /**
+   * Nanoseconds by which completion exceeded requested delay, across all service methods.
+   */
+  private final Histogram lag = new Histogram();
+
+  /**
+   * Returns metrics of a service method.
+   *
+   * @param method Service method.
+   * @return Metrics or {@code null} if the method was not called yet.
+   */
+  @Nullable
+  public MethodMetrics method(final Method method) {
+    return methods.get(method);
+  }
+
+  /**
+   * Returns metrics of all service methods called so far.
+   *
+   * @return Unmodifiable live view of metrics by service method.
+   */
+  public Map<Method, MethodMetrics> methods() {
+    return Collections.unmodifiableMap(methods);
+  }
+
+  /**
+   * Returns the distribution of nanoseconds by which mocked calls of all service methods
+   * completed later than their behavior requested. Large values mean the background executor
+   * is saturated, consider {@link Retromock.Builder#delayFromStart(boolean)}.
+   *
+   * @return Lag histogram.
+   */
+  public Histogram lag() {
+    return lag;
+  }
+
+  /**
+   * Removes metrics of all service methods.
+   */
+  public void clear() {
+    methods.clear();
+    lag.reset();
+  }
+
+  private MethodMetrics metrics(final Method method) {
+    MethodMetrics metrics = methods.get(method);
+    if (metrics == null) {
+      MethodMetrics created = new MethodMetrics();
+      metrics = methods.putIfAbsent(method, created);
+      if (metrics == null) {
+        metrics = created;
+      }
+    }
+    return metrics;
+  }
+
+  @Override
+  public void callStarted(final Method method, final int queueDepth) {
+    MethodMetrics metrics = metrics(method);
+    metrics.calls.increment();
+    metrics.queueDepth.record(queueDepth);
+  }
+
+  @Override
+  public void responseCreated(final Method method, final long nanos, final long bodyBytes) {
+    MethodMetrics metrics = metrics(method);
+    metrics.responseTime.record(nanos);
+    if (bodyBytes > 0) {
+      metrics.bodyBytes.add(bodyBytes);
+    }
+  }
+
+  @Override
+  public void callCompleted(final Method method, final long delayMillis, final long elapsedNanos) {
+    MethodMetrics metrics = metrics(method);
+    metrics.completed.increment();
+    metrics.delay.record(delayMillis);
+    long lagNanos = elapsedNanos - TimeUnit.MILLISECONDS.toNanos(delayMillis);
+    metrics.lag.record(lagNanos);
+    lag.record(lagNanos);
+  }
+
+  @Override
+  public void callFailed(final Method method, final Throwable error) {
+    metrics(method).failures.increment();
+  }
+
+  @Override
+  public void callCanceled(final Method method) {
+    metrics(method).cancellations.increment();
+  }
+
+  /**
+   * Metrics of a single service method.
+   */
+  public static final class MethodMetrics {
+
+    /**
+     * Number of started calls.
+     */
+    private final LongAdder calls = new LongAdder();
+
+    /**
+     * Number of successfully completed calls.
+     */
+    private final LongAdder completed = new LongAdder();
+
+    /**
+     * Number of failed calls.
+     */
+    private final LongAdder failures = new LongAdder();
+
+    /**
+     * Number of canceled calls.
+     */
+    private final LongAdder cancellations = new LongAdder();
+
+    /**
+     * Total number of body bytes.
+     */
+    private final LongAdder bodyBytes = new LongAdder();
+
+    /**
+     * Background executor queue depth observed when calls were started.
+     */
+    private final Histogram queueDepth = new Histogram();
+
+    /**
+     * Nanoseconds spent creating responses and converting their bodies.
+     */
+    private final Histogram responseTime = new Histogram();
+
+    /**
+     * Milliseconds of delay requested by behavior.
+     */
+    private final Histogram delay = new Histogram();
+
+    /**
+     * Nanoseconds by which completion exceeded requested delay.
+     */
+    private final Histogram lag = new Histogram();
+
+    MethodMetrics() {
+    }
+
+    /**
+     * @return Number of started calls.
+     */
+    public long calls() {
+      return calls.sum();
+    }
+
+    /**
+     * @return Number of successfully completed calls.
+     */
+    public long completed() {
+      return completed.sum();
+    }
+
+    /**
+     * @return Number of failed calls.
+     */
+    public long failures() {
+      return failures.sum();
+    }
+
+    /**
+     * @return Number of canceled calls.
+     */
+    public long cancellations() {
+      return cancellations.sum();
+    }
+
+    /**
+     * @return Total number of body bytes, see {@link CallListener#responseCreated}.
+     */
+    public long bodyBytes() {
+      return bodyBytes.sum();
+    }
+
+    /**
+     * @return Background executor queue depth observed when calls were started.
+     */
+    public Histogram queueDepth() {
+      return queueDepth;
+    }
+
+    /**
+     * @return Nanoseconds spent creating responses and converting their bodies.
+     */
+    public Histogram responseTime() {
+      return responseTime;
+    }
+
+    /**
+     * @return Milliseconds of delay requested by behavior.
+     */
+    public Histogram delay() {
+      return delay;
+    }
+
+    /**
+     * @return Nanoseconds by which call completion exceeded the requested delay.
+     */
+    public Histogram lag() {
+      return lag;
+    }
+  }
+
+  /**
+   * Histogram of non-negative values with power of two buckets. Percentiles are reported as the
+   * upper bound of the bucket they fall in, so they overestimate by less than a factor of two.
+   */
+  public static final class Histogram {
+
+    /**
+     * Number of buckets, one for zero and one per bit length of a positive long.
+     */
+    private static final int BUCKETS = Long.SIZE;
+
+    /**
+     * Bucket {@code i} counts values with bit length {@code i}.
+     */
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+
+    /**
+     * Sum of recorded values.
+     */
+    private final LongAdder sum = new LongAdder();
+
+    /**
+     * Largest recorded value.
+     */
+    private final LongAccumulator max = new LongAccumulator(new LongBinaryOperator() {
+      @Override
+      public long applyAsLong(final long left, final long right) {
+        return Math.max(left, right);
+      }
+    }, 0);
+
+    Histogram() {
+      for (int i = 0; i < BUCKETS; i++) {
+        buckets[i] = new LongAdder();
+      }
+    }
+
+    void record(final long value) {
+      long clamped = Math.max(0, value);
+      buckets[Long.SIZE - Long.numberOfLeadingZeros(clamped)].increment();
+      sum.add(clamped);
+      max.accumulate(clamped);
+    }
+
+    void reset() {
+      for (LongAdder bucket : buckets) {
+        bucket.reset();
+      }
+      sum.reset();
+      max.reset();
+    }
+
+    /**
+     * @return Number of recorded values.
+     */
+    public long count() {
+      long count = 0;
+      for (LongAdder bucket : buckets) {
+        count += bucket.sum();
+      }
+      return count;
+    }
+
+    /**
+     * @return Sum of recorded values.
+     */
+    public long sum() {
+      return sum.sum();
+    }
+
+    /**
+     * @return Largest recorded value, {@code 0} if none.
+     */
+    public long max() {
+      return max.get();
+    }
+
+    /**
+     * Returns an upper bound of the value below which given fraction of recorded values falls.
+     *
+     * @param fraction Fraction between 0 and 1, e.g. 0.99 for 99th percentile.
+     * @return Percentile upper bound, {@code 0} if no values are recorded.
+     */
+    public long percentile(final double fraction) {
+      if (fraction < 0 || fraction > 1) {
+        throw new IllegalArgumentException("Fraction has to be between 0 and 1.");
+      }
+      long[] counts = new long[BUCKETS];
+      long total = 0;
+      for (int i = 0; i < BUCKETS; i++) {
+        counts[i] = buckets[i].sum();
+        total += counts[i];
+      }
+      if (total == 0) {
+        return 0;
+      }
+
+      long rank = Math.max(1, (long) Math.ceil(fraction * total));
+      long seen = 0;
+      for (int i = 0; i < BUCKETS; i++) {
+        seen += counts[i];
+        if (seen >= rank) {
+          return Math.min(upperBound(i), max());
+        }
+      }
+      return max();
+    }
+
+    private static long upperBound(final int bucket) {
+      return bucket == 0 ? 0 : (1L << bucket) - 1;
+    }
+  }
+}
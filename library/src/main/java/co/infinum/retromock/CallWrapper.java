@@ -1,12 +1,6 @@
 package co.infinum.retromock;
 
-import java.lang.reflect.Type;
-
-interface CallWrapper {
+interface CallWrapper extends MethodWrapper {
 
   Object wrap(Object call, Object[] args);
-
-  Type getReturnType();
-
-  Type getActualType();
-}
\ No newline at end of file
+}
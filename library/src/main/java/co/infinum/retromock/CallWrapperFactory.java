@@ -7,21 +7,47 @@ import retrofit2.Response;
 import java.lang.reflect.Method;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
 
 final class CallWrapperFactory {
 
+    /**
+     * Name of the Kotlin cold stream type, compared by name as coroutines are an optional dependency.
+     */
+    private static final String FLOW = "kotlinx.coroutines.flow.Flow";
+
+    /**
+     * Package of RxJava 3 reactive types, compared by name as RxJava is an optional dependency.
+     */
+    private static final String RX_JAVA_PACKAGE = "io.reactivex.rxjava3.core.";
+
+    /**
+     * Names of RxJava 3 reactive types.
+     */
+    private static final Set<String> RX_JAVA_TYPES = new HashSet<>(Arrays.asList(
+        RX_JAVA_PACKAGE + "Single",
+        RX_JAVA_PACKAGE + "Maybe",
+        RX_JAVA_PACKAGE + "Observable",
+        RX_JAVA_PACKAGE + "Flowable",
+        RX_JAVA_PACKAGE + "Completable"
+    ));
+
     private CallWrapperFactory() {
     }
 
     /**
      * Checks if method is suspend kotlin fun and in that case wraps its return type into Retrofit's {@code Call}.
      * Also, method handles special case when return type is wrapped into Retrofit's {@code Response}.
+     * Methods returning a {@code Flow} get a {@link FlowWrapper}, methods returning RxJava 3 types a
+     * {@link RxJavaCallWrapper}, all other methods a {@link CallWrapper} that returns calls as they are.
      *
-     * @param method the method to create a call wrapper for
-     * @param <T> the type parameter for the call wrapper
-     * @return a call wrapper appropriate for the method
+     * @param method the method to create a wrapper for
+     * @param <T> the type parameter for the wrapper
+     * @return a wrapper appropriate for the method
      */
-    static <T> CallWrapper create(final Method method) {
+    static <T> MethodWrapper create(final Method method) {
         Type[] parameterTypes = method.getGenericParameterTypes();
         if (parameterTypes.length > 0) {
             Type lastParameterType = parameterTypes[parameterTypes.length - 1];
@@ -40,6 +66,38 @@ final class CallWrapperFactory {
                 return new SuspendCallWrapper<T>(returnType, actualType, continuationWantsResponse);
             }
         }
-        return new NoOpCallWrapper(method.getGenericReturnType());
+        if (returnsFlow(method)) {
+            Type actualType = Utils.getParameterUpperBound(0, (ParameterizedType) method.getGenericReturnType());
+            boolean wantsResponse = false;
+
+            if (Utils.getRawType(actualType) == Response.class && actualType instanceof ParameterizedType) {
+                // Unwrap the actual body type from Response<T>.
+                actualType = Utils.getParameterUpperBound(0, (ParameterizedType) actualType);
+                wantsResponse = true;
+            }
+
+            return new FlowWrapper<T>(
+                new Utils.ParameterizedTypeImpl(null, Call.class, actualType), actualType, wantsResponse);
+        }
+        return createRxJava(method);
+    }
+
+    private static <T> CallWrapper createRxJava(final Method method) {
+        Type returnType = method.getGenericReturnType();
+        if (RX_JAVA_TYPES.contains(method.getReturnType().getName())) {
+            return new RxJavaCallWrapper<T>(returnType, method.getReturnType());
+        }
+        return new NoOpCallWrapper(returnType);
+    }
+
+    /**
+     * Checks if method returns a Kotlin {@code Flow}.
+     *
+     * @param method the method to check
+     * @return {@code true} if the method returns a parameterized {@code Flow}
+     */
+    static boolean returnsFlow(final Method method) {
+        return FLOW.equals(method.getReturnType().getName())
+            && method.getGenericReturnType() instanceof ParameterizedType;
     }
 }
@@ -1,7 +1,10 @@
 package co.infinum.retromock;
 
 import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.annotation.Nullable;
@@ -138,35 +141,104 @@ final class Calls {
 
   static final class DeferredCall<T> implements Call<T> {
 
+    /**
+     * Number of times a thread checks whether another thread created the delegate before it parks.
+     */
+    private static final int SPINS = 100;
+
+    /**
+     * Handle used to claim creation of the delegate.
+     */
+    private static final VarHandle DELEGATE;
+
+    static {
+      try {
+        DELEGATE = MethodHandles.lookup().findVarHandle(DeferredCall.class, "delegate", Object.class);
+      } catch (ReflectiveOperationException e) {
+        throw new ExceptionInInitializerError(e);
+      }
+    }
+
     /**
      * The callable that provides the delegate call.
      */
     private final Callable<Call<T>> callable;
 
     /**
-     * The delegate call that is lazily initialized when first accessed.
+     * The delegate call that is lazily initialized when first accessed, a latch released once it is
+     * created while another thread creates it.
+     */
+    @Nullable
+    private volatile Object delegate;
+
+    /**
+     * Flag indicating whether this call has been canceled, tracked here so checking it never
+     * creates the delegate.
      */
-    private Call<T> delegate;
+    private volatile boolean canceled;
 
     DeferredCall(final Callable<Call<T>> callable) {
       this.callable = callable;
     }
 
-    private synchronized Call<T> getDelegate() {
-      Call<T> delegate = this.delegate;
-      if (delegate == null) {
-        try {
-          delegate = callable.call();
-        } catch (IOException e) {
-          delegate = failure(e);
-        } catch (Exception e) {
-          throw new IllegalStateException("Callable threw unrecoverable exception", e);
+    @SuppressWarnings("unchecked")
+    private Call<T> getDelegate() {
+      int spins = 0;
+      while (true) {
+        Object delegate = this.delegate;
+        if (delegate == null) {
+          CountDownLatch creating = new CountDownLatch(1);
+          if (DELEGATE.compareAndSet(this, null, creating)) {
+            return createDelegate(creating);
+          }
+        } else if (!(delegate instanceof CountDownLatch)) {
+          return (Call<T>) delegate;
+        } else if (spins < SPINS) {
+          // creating a response is usually short, so spin before parking
+          spins++;
+          Thread.onSpinWait();
+        } else {
+          // the callable is invoked only once, so wait for the thread that claimed it, which may
+          // run provider code, read fixtures or convert the body
+          awaitUninterruptibly((CountDownLatch) delegate);
         }
+      }
+    }
+
+    private Call<T> createDelegate(final CountDownLatch creating) {
+      Call<T> delegate = null;
+      try {
+        delegate = callable.call();
+      } catch (IOException e) {
+        delegate = failure(e);
+      } catch (Exception e) {
+        throw new IllegalStateException("Callable threw unrecoverable exception", e);
+      } finally {
+        // a failed callable is invoked again by the next caller
         this.delegate = delegate;
+        creating.countDown();
+      }
+      if (canceled) {
+        delegate.cancel();
       }
       return delegate;
     }
 
+    private static void awaitUninterruptibly(final CountDownLatch latch) {
+      boolean interrupted = false;
+      while (true) {
+        try {
+          latch.await();
+          break;
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
     @Override
     public Response<T> execute() throws IOException {
       return getDelegate().execute();
@@ -179,17 +251,23 @@ final class Calls {
 
     @Override
     public boolean isExecuted() {
-      return getDelegate().isExecuted();
+      Object delegate = this.delegate;
+      return delegate instanceof Call && ((Call<?>) delegate).isExecuted();
     }
 
     @Override
     public void cancel() {
-      getDelegate().cancel();
+      canceled = true;
+      // a delegate that is being created is canceled by its creator
+      Object delegate = this.delegate;
+      if (delegate instanceof Call) {
+        ((Call<?>) delegate).cancel();
+      }
     }
 
     @Override
     public boolean isCanceled() {
-      return getDelegate().isCanceled();
+      return canceled;
     }
 
     @SuppressWarnings("MethodDoesntCallSuperMethod")
@@ -200,12 +278,15 @@ final class Calls {
 
     @Override
     public Request request() {
-      return getDelegate().request();
+      // mocked calls share a constant request, so the delegate is not created just to return it
+      Object delegate = this.delegate;
+      return delegate instanceof Call ? ((Call<?>) delegate).request() : ResponseParams.REQUEST;
     }
 
     @Override
     public Timeout timeout() {
-      return getDelegate().timeout();
+      Object delegate = this.delegate;
+      return delegate instanceof Call ? ((Call<?>) delegate).timeout() : Timeout.NONE;
     }
   }
 }
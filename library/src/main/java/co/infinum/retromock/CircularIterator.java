@@ -2,6 +2,8 @@ package co.infinum.retromock;
 
 import java.util.concurrent.atomic.AtomicInteger;
 
+import javax.annotation.Nullable;
+
 final class CircularIterator<T> implements ResponseIterator<T> {
 
     /**
@@ -10,9 +12,10 @@ final class CircularIterator<T> implements ResponseIterator<T> {
   private final T[] responses;
 
     /**
-     * Index tracker for the current position in the responses array.
+     * Index of the next response. It is kept within bounds of the responses array, so it never
+     * overflows and the cycle is preserved however many responses are returned.
      */
-  private AtomicInteger index = new AtomicInteger();
+  private final AtomicInteger index = new AtomicInteger();
 
   CircularIterator(final T[] responses) {
     Preconditions.checkNotEmpty(responses, "Responses should contain at least one response.");
@@ -21,6 +24,30 @@ final class CircularIterator<T> implements ResponseIterator<T> {
 
   @Override
   public T next() {
-    return responses[index.getAndIncrement() % responses.length];
+    if (responses.length == 1) {
+      return responses[0];
+    }
+    while (true) {
+      int current = index.get();
+      int next = current + 1 == responses.length ? 0 : current + 1;
+      if (index.compareAndSet(current, next)) {
+        return responses[current];
+      }
+    }
+  }
+
+  @Override
+  public void reset() {
+    index.set(0);
+  }
+
+  @Override
+  public Object snapshot() {
+    return index.get();
+  }
+
+  @Override
+  public void restore(@Nullable final Object snapshot) {
+    index.set(snapshot instanceof Integer ? Math.floorMod((Integer) snapshot, responses.length) : 0);
   }
 }
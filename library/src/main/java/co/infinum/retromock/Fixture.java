@@ -0,0 +1,182 @@
+package co.infinum.retromock;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import okhttp3.Headers;
+
+/**
+ * A single recorded response as stored in the {@link FixtureStore} log. Body bytes are stored
+ * separately, addressed by their digest.
+ * <p>
+ * Log entry layout, big-endian:
+ * <pre>
+ * int entry length
+ * UTF key, short code, UTF message, short header count
+ * header count * (UTF name, UTF value)
+ * UTF body digest, long body length, long latency in ns
+ * </pre>
+ */
+final class Fixture {
+
+  /**
+   * Key the fixture is looked up by, see {@link FixtureKey}.
+   */
+  private final String key;
+
+  /**
+   * HTTP status code.
+   */
+  private final int code;
+
+  /**
+   * HTTP status message.
+   */
+  private final String message;
+
+  /**
+   * Response headers.
+   */
+  private final Headers headers;
+
+  /**
+   * Hex encoded digest of the body, empty if the response has no body.
+   */
+  private final String bodyDigest;
+
+  /**
+   * Length of the body in bytes.
+   */
+  private final long bodyLength;
+
+  /**
+   * Time elapsed from sending the request until the body was received.
+   */
+  private final long latencyNanos;
+
+  Fixture(
+    final String key,
+    final int code,
+    final String message,
+    final Headers headers,
+    final String bodyDigest,
+    final long bodyLength,
+    final long latencyNanos) {
+
+    this.key = key;
+    this.code = code;
+    this.message = message;
+    this.headers = headers;
+    this.bodyDigest = bodyDigest;
+    this.bodyLength = bodyLength;
+    this.latencyNanos = latencyNanos;
+  }
+
+  String key() {
+    return key;
+  }
+
+  int code() {
+    return code;
+  }
+
+  String message() {
+    return message;
+  }
+
+  Headers headers() {
+    return headers;
+  }
+
+  String bodyDigest() {
+    return bodyDigest;
+  }
+
+  long bodyLength() {
+    return bodyLength;
+  }
+
+  long latencyNanos() {
+    return latencyNanos;
+  }
+
+  /**
+   * Writes the fixture as a single frame: an int length followed by the entry. The entry is encoded
+   * before anything is written, so values that cannot be encoded, e.g. strings longer than 64 KB
+   * in modified UTF-8, fail without leaving a partial entry in the log.
+   *
+   * @param output Log output.
+   * @throws IOException if the fixture cannot be encoded or written.
+   */
+  void writeTo(final DataOutput output) throws IOException {
+    ByteArrayOutputStream frame = new ByteArrayOutputStream();
+    DataOutputStream entry = new DataOutputStream(frame);
+    entry.writeInt(0);
+    entry.writeUTF(key);
+    entry.writeShort(code);
+    entry.writeUTF(message);
+    entry.writeShort(headers.size());
+    for (int i = 0; i < headers.size(); i++) {
+      entry.writeUTF(headers.name(i));
+      entry.writeUTF(headers.value(i));
+    }
+    entry.writeUTF(bodyDigest);
+    entry.writeLong(bodyLength);
+    entry.writeLong(latencyNanos);
+
+    byte[] bytes = frame.toByteArray();
+    ByteBuffer.wrap(bytes).putInt(0, bytes.length - Integer.BYTES);
+    output.write(bytes);
+  }
+
+  /**
+   * Reads a frame written by {@link #writeTo(DataOutput)}. The input is positioned after the frame
+   * even if its entry cannot be parsed.
+   *
+   * @param input Log input positioned at the start of a frame.
+   * @return Fixture.
+   * @throws EOFException if the frame is truncated.
+   * @throws IOException if the entry cannot be parsed.
+   */
+  static Fixture readFrom(final DataInput input) throws IOException {
+    int length = input.readInt();
+    if (length < 0) {
+      throw new IOException("Invalid fixture frame length " + length + ".");
+    }
+    byte[] bytes = new byte[length];
+    input.readFully(bytes);
+    try {
+      return parse(new DataInputStream(new ByteArrayInputStream(bytes)));
+    } catch (EOFException | IllegalArgumentException e) {
+      // the frame is complete, so its entry is malformed rather than truncated
+      throw new IOException("Malformed fixture entry.", e);
+    }
+  }
+
+  private static Fixture parse(final DataInput input) throws IOException {
+    String key = input.readUTF();
+    int code = input.readUnsignedShort();
+    String message = input.readUTF();
+    int headerCount = input.readUnsignedShort();
+    Headers.Builder headers = new Headers.Builder();
+    for (int i = 0; i < headerCount; i++) {
+      headers.add(input.readUTF(), input.readUTF());
+    }
+    return new Fixture(
+      key,
+      code,
+      message,
+      headers.build(),
+      input.readUTF(),
+      input.readLong(),
+      input.readLong()
+    );
+  }
+}
@@ -0,0 +1,45 @@
+package co.infinum.retromock;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Creates bodies of replayed fixtures. Input is the body digest, body files are memory-mapped once
+ * and each body is streamed from its own view of the mapping, so replaying the same body again
+ * neither reads nor copies the file.
+ */
+final class FixtureBodyFactory implements BodyFactory {
+
+  /**
+   * Store bodies are read from.
+   */
+  private final FixtureStore store;
+
+  /**
+   * Mapped body files by digest.
+   */
+  private final Map<String, ByteBuffer> bodies = new ConcurrentHashMap<>();
+
+  FixtureBodyFactory(final FixtureStore store) {
+    this.store = store;
+  }
+
+  @Override
+  public InputStream create(@Nonnull final String input) throws IOException {
+    if (input.isEmpty()) {
+      return new ByteArrayInputStream(new byte[0]);
+    }
+    ByteBuffer body = bodies.get(input);
+    if (body == null) {
+      body = FixtureIndex.map(store.bodyFile(input));
+      bodies.put(input, body);
+    }
+    return new ByteBufferInputStream(body.duplicate());
+  }
+}
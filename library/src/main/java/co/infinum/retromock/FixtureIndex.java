@@ -0,0 +1,397 @@
+package co.infinum.retromock;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import javax.annotation.Nullable;
+
+/**
+ * Hash index of fixtures in a {@link FixtureStore} log. The index is built once by scanning the
+ * log and saved next to it as {@value #INDEX}, so later loads only memory-map both files.
+ * Lookups probe the mapped index directly, nothing is parsed up front.
+ * <p>
+ * Index layout, big-endian:
+ * <pre>
+ * int magic, int version, long log length, int capacity, int offset count
+ * capacity * (long key hash, int first offset, int offset count)   open addressing table
+ * offset count * long log offset                                   grouped by key
+ * int method count
+ * method count * (UTF method key, int sample count, sample count * long latency in ns)
+ * </pre>
+ * Latency samples of each service method are a uniform reservoir of at most {@value #MAX_SAMPLES}
+ * recorded latencies, sorted ascending.
+ * The index is rebuilt whenever the log length differs from the one it was built for.
+ */
+final class FixtureIndex {
+
+  /**
+   * Name of the index file.
+   */
+  static final String INDEX = "fixtures.idx";
+
+  /**
+   * Index file header, {@code RMIX} in ASCII.
+   */
+  private static final int MAGIC = 0x524d4958;
+
+  /**
+   * Version of the index format.
+   */
+  private static final int VERSION = 2;
+
+  /**
+   * Size of the index header in bytes.
+   */
+  private static final int HEADER_SIZE = Integer.BYTES * 2 + Long.BYTES + Integer.BYTES * 2;
+
+  /**
+   * Size of a table slot in bytes.
+   */
+  private static final int SLOT_SIZE = Long.BYTES + Integer.BYTES * 2;
+
+  /**
+   * Size of the log header in bytes.
+   */
+  private static final int LOG_HEADER_SIZE = Integer.BYTES * 2;
+
+  /**
+   * Maximum number of latency samples kept per service method.
+   */
+  static final int MAX_SAMPLES = 1024;
+
+  /**
+   * Memory-mapped index.
+   */
+  private final ByteBuffer index;
+
+  /**
+   * Memory-mapped log.
+   */
+  private final ByteBuffer log;
+
+  /**
+   * Number of table slots, a power of two.
+   */
+  private final int capacity;
+
+  /**
+   * Position of the first log offset in the index.
+   */
+  private final int offsetsStart;
+
+  /**
+   * Sorted latency samples in nanoseconds by method key.
+   */
+  private final Map<String, long[]> latencies;
+
+  private FixtureIndex(final ByteBuffer index, final ByteBuffer log) throws IOException {
+    this.index = index;
+    this.log = log;
+    this.capacity = index.getInt(Integer.BYTES * 2 + Long.BYTES);
+    this.offsetsStart = HEADER_SIZE + capacity * SLOT_SIZE;
+    this.latencies = readLatencies(index, offsetsStart + size() * Long.BYTES);
+  }
+
+  private static Map<String, long[]> readLatencies(final ByteBuffer index, final int start)
+    throws IOException {
+
+    ByteBuffer buffer = index.duplicate();
+    buffer.position(start);
+    DataInputStream input = new DataInputStream(new ByteBufferInputStream(buffer));
+    int methods = input.readInt();
+    Map<String, long[]> latencies = new HashMap<>(methods * 2);
+    for (int i = 0; i < methods; i++) {
+      String key = input.readUTF();
+      long[] samples = new long[input.readInt()];
+      for (int j = 0; j < samples.length; j++) {
+        samples[j] = input.readLong();
+      }
+      latencies.put(key, samples);
+    }
+    return latencies;
+  }
+
+  /**
+   * Loads the index of the store, building it first if it is missing or out of date.
+   *
+   * @param store Fixture store.
+   * @return Loaded index.
+   * @throws IOException if the store cannot be read or the index cannot be written.
+   */
+  static FixtureIndex load(final FixtureStore store) throws IOException {
+    File logFile = store.logFile();
+    if (!logFile.isFile()) {
+      throw new IOException("Fixture log " + logFile + " does not exist.");
+    }
+    File indexFile = new File(store.directory(), INDEX);
+
+    ByteBuffer log = map(logFile);
+    ByteBuffer index = indexFile.isFile() ? map(indexFile) : null;
+    if (index == null || !isValid(index, log.capacity())) {
+      build(log, indexFile);
+      index = map(indexFile);
+    }
+    return new FixtureIndex(index, log);
+  }
+
+  private static boolean isValid(final ByteBuffer index, final long logLength) {
+    return index.capacity() >= HEADER_SIZE
+      && index.getInt(0) == MAGIC
+      && index.getInt(Integer.BYTES) == VERSION
+      && index.getLong(Integer.BYTES * 2) == logLength;
+  }
+
+  static ByteBuffer map(final File file) throws IOException {
+    try (RandomAccessFile access = new RandomAccessFile(file, "r")) {
+      FileChannel channel = access.getChannel();
+      if (channel.size() > Integer.MAX_VALUE) {
+        throw new IOException(file + " is larger than 2 GB.");
+      }
+      // mapping stays valid after the channel is closed
+      return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+  }
+
+  private static void build(final ByteBuffer log, final File indexFile) throws IOException {
+    Map<String, List<Long>> offsets = new LinkedHashMap<>();
+    Map<String, Reservoir> latencies = new LinkedHashMap<>();
+    int count = 0;
+
+    ByteBuffer buffer = log.duplicate();
+    DataInputStream input = new DataInputStream(new ByteBufferInputStream(buffer));
+    if (buffer.remaining() < LOG_HEADER_SIZE
+      || input.readInt() != FixtureStore.MAGIC
+      || input.readInt() != FixtureStore.VERSION) {
+      throw new IOException("Unsupported fixture log format.");
+    }
+    while (buffer.hasRemaining()) {
+      int offset = buffer.position();
+      if (buffer.remaining() < Integer.BYTES) {
+        // last fixture was not completely written, e.g. recording was interrupted
+        break;
+      }
+      int length = buffer.getInt(offset);
+      if (length < 0 || length > buffer.remaining() - Integer.BYTES) {
+        // truncated like above, or a corrupted frame header later entries cannot be found after
+        break;
+      }
+      Fixture fixture;
+      try {
+        fixture = Fixture.readFrom(input);
+      } catch (IOException malformed) {
+        // frames keep entries after a malformed one readable
+        buffer.position(offset + Integer.BYTES + length);
+        continue;
+      }
+      String key = fixture.key();
+      String methodKey = methodKey(key);
+      Reservoir reservoir = latencies.get(methodKey);
+      if (reservoir == null) {
+        reservoir = new Reservoir(FixtureKey.hash(methodKey));
+        latencies.put(methodKey, reservoir);
+      }
+      reservoir.add(fixture.latencyNanos());
+      List<Long> keyOffsets = offsets.get(key);
+      if (keyOffsets == null) {
+        keyOffsets = new ArrayList<>();
+        offsets.put(key, keyOffsets);
+      }
+      keyOffsets.add((long) offset);
+      count++;
+    }
+
+    // keep load factor at most 0.5 so probe sequences stay short
+    int capacity = Integer.highestOneBit(Math.max(1, offsets.size()) * 2 - 1) * 2;
+    long[] hashes = new long[capacity];
+    int[] starts = new int[capacity];
+    int[] counts = new int[capacity];
+    long[] flat = new long[count];
+    int position = 0;
+    for (Map.Entry<String, List<Long>> entry : offsets.entrySet()) {
+      long hash = FixtureKey.hash(entry.getKey());
+      int slot = slot(hash, capacity);
+      while (counts[slot] != 0) {
+        slot = (slot + 1) & (capacity - 1);
+      }
+      hashes[slot] = hash;
+      starts[slot] = position;
+      counts[slot] = entry.getValue().size();
+      for (long offset : entry.getValue()) {
+        flat[position++] = offset;
+      }
+    }
+
+    File temp = File.createTempFile(INDEX, ".tmp", indexFile.getParentFile());
+    try {
+      try (DataOutputStream output = new DataOutputStream(
+        new BufferedOutputStream(new FileOutputStream(temp)))) {
+        output.writeInt(MAGIC);
+        output.writeInt(VERSION);
+        output.writeLong(log.capacity());
+        output.writeInt(capacity);
+        output.writeInt(count);
+        for (int i = 0; i < capacity; i++) {
+          output.writeLong(hashes[i]);
+          output.writeInt(starts[i]);
+          output.writeInt(counts[i]);
+        }
+        for (long offset : flat) {
+          output.writeLong(offset);
+        }
+        output.writeInt(latencies.size());
+        for (Map.Entry<String, Reservoir> entry : latencies.entrySet()) {
+          long[] samples = entry.getValue().samples();
+          output.writeUTF(entry.getKey());
+          output.writeInt(samples.length);
+          for (long sample : samples) {
+            output.writeLong(sample);
+          }
+        }
+      }
+      Files.move(temp.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(temp.toPath());
+    }
+  }
+
+  private static String methodKey(final String key) {
+    int arguments = key.indexOf('(');
+    return arguments < 0 ? key : key.substring(0, arguments);
+  }
+
+  private static int slot(final long hash, final int capacity) {
+    return (int) (hash ^ (hash >>> Integer.SIZE)) & (capacity - 1);
+  }
+
+  /**
+   * Finds log offsets of fixtures recorded for the key.
+   *
+   * @param key Fixture key.
+   * @return Offsets in recording order or {@code null} if there are none.
+   */
+  @Nullable
+  long[] offsets(final String key) {
+    long hash = FixtureKey.hash(key);
+    int slot = slot(hash, capacity);
+    for (int probes = 0; probes < capacity; probes++) {
+      int position = HEADER_SIZE + slot * SLOT_SIZE;
+      int count = index.getInt(position + Long.BYTES + Integer.BYTES);
+      if (count == 0) {
+        return null;
+      }
+      if (index.getLong(position) == hash) {
+        int start = index.getInt(position + Long.BYTES);
+        long[] offsets = new long[count];
+        for (int i = 0; i < count; i++) {
+          offsets[i] = index.getLong(offsetsStart + (start + i) * Long.BYTES);
+        }
+        // guard against hash collisions of different keys
+        if (read(offsets[0]).key().equals(key)) {
+          return offsets;
+        }
+      }
+      slot = (slot + 1) & (capacity - 1);
+    }
+    return null;
+  }
+
+  /**
+   * Finds latencies recorded for a service method.
+   *
+   * @param methodKey Method key, see {@link FixtureKey#methodKey(MethodArguments)}.
+   * @return Latency samples in nanoseconds sorted ascending or {@code null} if there are none.
+   */
+  @Nullable
+  long[] latencies(final String methodKey) {
+    return latencies.get(methodKey);
+  }
+
+  /**
+   * Reads a fixture from the log.
+   *
+   * @param offset Log offset returned by {@link #offsets(String)}.
+   * @return Fixture.
+   */
+  Fixture read(final long offset) {
+    ByteBuffer buffer = log.duplicate();
+    buffer.position((int) offset);
+    try {
+      return Fixture.readFrom(new DataInputStream(new ByteBufferInputStream(buffer)));
+    } catch (IOException e) {
+      throw new IllegalStateException("Corrupted fixture log at offset " + offset, e);
+    }
+  }
+
+  /**
+   * @return Number of fixtures in the index.
+   */
+  int size() {
+    return index.getInt(Integer.BYTES * 2 + Long.BYTES + Integer.BYTES);
+  }
+
+  /**
+   * Uniform sample of at most {@value #MAX_SAMPLES} latencies, seeded by the method key so the same
+   * log always produces the same index.
+   */
+  private static final class Reservoir {
+
+    /**
+     * Kept samples, only the first {@link #size} are valid.
+     */
+    private final long[] samples = new long[MAX_SAMPLES];
+
+    /**
+     * Random generator choosing replaced samples.
+     */
+    private final Random random;
+
+    /**
+     * Number of kept samples.
+     */
+    private int size;
+
+    /**
+     * Number of offered samples.
+     */
+    private long seen;
+
+    Reservoir(final long seed) {
+      this.random = new Random(seed);
+    }
+
+    void add(final long latencyNanos) {
+      seen++;
+      if (size < MAX_SAMPLES) {
+        samples[size++] = latencyNanos;
+      } else {
+        long replaced = (long) (random.nextDouble() * seen);
+        if (replaced < MAX_SAMPLES) {
+          samples[(int) replaced] = latencyNanos;
+        }
+      }
+    }
+
+    long[] samples() {
+      long[] sorted = Arrays.copyOf(samples, size);
+      Arrays.sort(sorted);
+      return sorted;
+    }
+  }
+}
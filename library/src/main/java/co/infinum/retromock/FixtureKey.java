@@ -0,0 +1,71 @@
+package co.infinum.retromock;
+
+import javax.annotation.Nullable;
+
+/**
+ * Builds keys recorded fixtures are looked up by. A key identifies a service method and values of
+ * its arguments annotated with {@code @Path}, {@code @Query}, {@code @Header} or {@code @Field},
+ * so the same call made while recording and while replaying maps to the same key.
+ */
+final class FixtureKey {
+
+  /**
+   * FNV-1a 64-bit offset basis.
+   */
+  private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+
+  /**
+   * FNV-1a 64-bit prime.
+   */
+  private static final long FNV_PRIME = 0x100000001b3L;
+
+  private FixtureKey() {
+  }
+
+  /**
+   * Creates a key of a service method call.
+   *
+   * @param arguments Service method arguments.
+   * @param args      Argument values, {@code null} values are treated as empty strings.
+   * @return Fixture key, e.g. {@code com.example.Api.getUser/1(path.id=2:42;)}.
+   */
+  static String of(final MethodArguments arguments, @Nullable final Object[] args) {
+    StringBuilder key = new StringBuilder(methodKey(arguments)).append('(');
+    for (int i = 0; i < arguments.size(); i++) {
+      String name = arguments.qualifiedName(i);
+      if (name == null) {
+        continue;
+      }
+      // length prefix keeps keys unambiguous whatever the values contain
+      String value = MethodArguments.stringValue(args == null ? null : args[i]);
+      key.append(name).append('=').append(value.length()).append(':').append(value).append(';');
+    }
+    return key.append(')').toString();
+  }
+
+  /**
+   * Creates a key prefix shared by all calls of a service method.
+   *
+   * @param arguments Service method arguments.
+   * @return Method key, e.g. {@code com.example.Api.getUser/1}.
+   */
+  static String methodKey(final MethodArguments arguments) {
+    return arguments.method().getDeclaringClass().getName() + "." + arguments.method().getName()
+      + "/" + arguments.size();
+  }
+
+  /**
+   * Hashes a key using 64-bit FNV-1a over its characters.
+   *
+   * @param key Fixture key.
+   * @return Key hash.
+   */
+  static long hash(final String key) {
+    long hash = FNV_OFFSET;
+    for (int i = 0; i < key.length(); i++) {
+      hash ^= key.charAt(i);
+      hash *= FNV_PRIME;
+    }
+    return hash;
+  }
+}
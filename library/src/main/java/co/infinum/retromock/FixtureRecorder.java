@@ -0,0 +1,92 @@
+package co.infinum.retromock;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import retrofit2.Invocation;
+
+/**
+ * OkHttp interceptor that records responses of Retrofit service method calls to a
+ * {@link FixtureStore}. Calls are matched to service methods using Retrofit's {@link Invocation}
+ * request tag, requests without it pass through without being recorded.
+ * <p>
+ * Retromock adds this interceptor by itself when {@link Retromock.Builder#recordTo(FixtureStore)}
+ * is used. Add it to your {@link okhttp3.OkHttpClient} directly only when services are created
+ * with a custom {@link DelegateFactory}.
+ */
+public final class FixtureRecorder implements Interceptor {
+
+  /**
+   * Store responses are recorded to.
+   */
+  private final FixtureStore store;
+
+  /**
+   * Resolved service method arguments by service method.
+   */
+  private final Map<Method, MethodArguments> arguments = new ConcurrentHashMap<>();
+
+  /**
+   * Creates an interceptor that records responses to the store.
+   *
+   * @param store Store to record responses to.
+   */
+  public FixtureRecorder(final FixtureStore store) {
+    Preconditions.checkNotNull(store, "Store is null.");
+    this.store = store;
+  }
+
+  /**
+   * @return Store responses are recorded to.
+   */
+  public FixtureStore store() {
+    return store;
+  }
+
+  @Override
+  public Response intercept(final Chain chain) throws IOException {
+    Request request = chain.request();
+    Invocation invocation = request.tag(Invocation.class);
+    if (invocation == null) {
+      return chain.proceed(request);
+    }
+
+    long startNanos = System.nanoTime();
+    Response response = chain.proceed(request);
+    ResponseBody body = response.body();
+    byte[] bytes = body != null ? body.bytes() : null;
+    long latencyNanos = System.nanoTime() - startNanos;
+
+    store.record(
+      FixtureKey.of(arguments(invocation.method()), invocation.arguments().toArray()),
+      response.code(),
+      response.message(),
+      response.headers(),
+      bytes,
+      latencyNanos
+    );
+
+    if (body == null) {
+      return response;
+    }
+    // the original body was consumed while recording
+    return response.newBuilder()
+      .body(ResponseBody.create(bytes, body.contentType()))
+      .build();
+  }
+
+  private MethodArguments arguments(final Method method) {
+    MethodArguments result = arguments.get(method);
+    if (result == null) {
+      result = new MethodArguments(method);
+      arguments.put(method, result);
+    }
+    return result;
+  }
+}
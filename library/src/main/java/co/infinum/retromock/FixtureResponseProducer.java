@@ -0,0 +1,163 @@
+package co.infinum.retromock;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nullable;
+
+/**
+ * Produces responses replayed from a {@link FixtureStore}. Fixtures are looked up by the key of
+ * the call, see {@link FixtureKey}. If a call was recorded more than once, recorded responses are
+ * returned in recording order and the last one is repeated afterwards.
+ */
+final class FixtureResponseProducer implements ParamsProducer {
+
+  /**
+   * Index of the store fixtures are replayed from.
+   */
+  private final FixtureIndex index;
+
+  /**
+   * Factory of fixture bodies.
+   */
+  private final FixtureBodyFactory bodyFactory;
+
+  /**
+   * Service method arguments used to build fixture keys.
+   */
+  private final MethodArguments arguments;
+
+  /**
+   * Producer used if there is no fixture for a call, {@code null} to fail instead.
+   */
+  @Nullable
+  private final ParamsProducer fallback;
+
+  /**
+   * Position of the next fixture by key, only for keys recorded more than once.
+   */
+  private final ConcurrentHashMap<String, AtomicInteger> positions = new ConcurrentHashMap<>();
+
+  /**
+   * Response parameters by log offset, fixtures are immutable so they are parsed only once.
+   */
+  private final Map<Long, ResponseParams> params;
+
+  FixtureResponseProducer(
+    final FixtureIndex index,
+    final FixtureBodyFactory bodyFactory,
+    final Method method,
+    @Nullable final ParamsProducer fallback) {
+
+    this(index, bodyFactory, new MethodArguments(method), fallback, new ConcurrentHashMap<Long, ResponseParams>());
+  }
+
+  private FixtureResponseProducer(
+    final FixtureIndex index,
+    final FixtureBodyFactory bodyFactory,
+    final MethodArguments arguments,
+    @Nullable final ParamsProducer fallback,
+    final Map<Long, ResponseParams> params) {
+
+    this.index = index;
+    this.bodyFactory = bodyFactory;
+    this.arguments = arguments;
+    this.fallback = fallback;
+    this.params = params;
+  }
+
+  @Override
+  public ResponseParams produce(final Object[] args) {
+    return produce(args, null);
+  }
+
+  @Override
+  public ResponseParams produce(final Object[] args, @Nullable final Object scope) {
+    String key = FixtureKey.of(arguments, args);
+    long[] offsets = index.offsets(key);
+    if (offsets == null) {
+      if (fallback != null) {
+        return fallback.produce(args, scope);
+      }
+      throw new IllegalStateException("There is no recorded response for " + key + ".");
+    }
+    long offset = offsets[offsets.length == 1 ? 0 : next(key, offsets.length)];
+
+    ResponseParams result = params.get(offset);
+    if (result == null) {
+      Fixture fixture = index.read(offset);
+      result = new ResponseParams.Builder()
+        .code(fixture.code())
+        .message(fixture.message())
+        .headers(fixture.headers())
+        .bodyFactory(new RetromockBodyFactory(bodyFactory, fixture.bodyDigest()))
+        .build();
+      params.put(offset, result);
+    }
+    return result;
+  }
+
+  private int next(final String key, final int count) {
+    AtomicInteger position = positions.get(key);
+    if (position == null) {
+      AtomicInteger created = new AtomicInteger();
+      position = positions.putIfAbsent(key, created);
+      if (position == null) {
+        position = created;
+      }
+    }
+    while (true) {
+      int current = position.get();
+      if (current >= count - 1) {
+        return count - 1;
+      }
+      if (position.compareAndSet(current, current + 1)) {
+        return current;
+      }
+    }
+  }
+
+  @Override
+  public ParamsProducer collection() {
+    return new FixtureResponseProducer(index, bodyFactory, arguments,
+      fallback != null ? fallback.collection() : null, params);
+  }
+
+  @Override
+  public void reset() {
+    positions.clear();
+    if (fallback != null) {
+      fallback.reset();
+    }
+  }
+
+  @Nullable
+  @Override
+  public Object snapshot() {
+    Map<String, Integer> state = new HashMap<>();
+    for (Map.Entry<String, AtomicInteger> entry : positions.entrySet()) {
+      state.put(entry.getKey(), entry.getValue().get());
+    }
+    return new Object[] {state, fallback != null ? fallback.snapshot() : null};
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public void restore(@Nullable final Object snapshot) {
+    if (!(snapshot instanceof Object[])) {
+      reset();
+      return;
+    }
+    Object[] state = (Object[]) snapshot;
+    positions.clear();
+    for (Map.Entry<String, Integer> entry : ((Map<String, Integer>) state[0]).entrySet()) {
+      positions.put(entry.getKey(), new AtomicInteger(entry.getValue()));
+    }
+    if (fallback != null) {
+      fallback.restore(state[1]);
+    }
+  }
+}
@@ -0,0 +1,220 @@
+package co.infinum.retromock;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import javax.annotation.Nullable;
+
+import okhttp3.Headers;
+
+/**
+ * Directory of responses recorded by {@link FixtureRecorder}.
+ * <p>
+ * Responses are appended to a single binary log, {@value #LOG}, so recording never rewrites
+ * existing data. Bodies are stored in {@value #BODIES} directory in files named by SHA-256
+ * digest of their content, so a body received many times is stored only once.
+ * <p>
+ * Instances are thread safe. Close the store when recording is done to flush the log.
+ */
+public final class FixtureStore implements Closeable {
+
+  /**
+   * Name of the log file responses are appended to.
+   */
+  static final String LOG = "fixtures.log";
+
+  /**
+   * Name of the directory bodies are stored in.
+   */
+  static final String BODIES = "bodies";
+
+  /**
+   * Log file header, {@code RMFX} in ASCII.
+   */
+  static final int MAGIC = 0x524d4658;
+
+  /**
+   * Version of the log format.
+   */
+  static final int VERSION = 2;
+
+  /**
+   * Size of the log header in bytes.
+   */
+  private static final int HEADER_SIZE = Integer.BYTES * 2;
+
+  /**
+   * Digits used to hex encode digests.
+   */
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+  /**
+   * Number of bits encoded by a single hex digit.
+   */
+  private static final int HEX_BITS = 4;
+
+  /**
+   * Mask of bits encoded by a single hex digit.
+   */
+  private static final int HEX_MASK = 0xf;
+
+  /**
+   * Directory the store is kept in.
+   */
+  private final File directory;
+
+  /**
+   * Log output, {@code null} until the first response is recorded.
+   */
+  @Nullable
+  private DataOutputStream log;
+
+  /**
+   * Creates a store kept in the directory. The directory is created when the first response is
+   * recorded.
+   *
+   * @param directory Store directory.
+   */
+  public FixtureStore(final File directory) {
+    Preconditions.checkNotNull(directory, "Directory is null.");
+    this.directory = directory;
+  }
+
+  /**
+   * @return Directory the store is kept in.
+   */
+  public File directory() {
+    return directory;
+  }
+
+  File logFile() {
+    return new File(directory, LOG);
+  }
+
+  File bodyFile(final String digest) {
+    return new File(new File(directory, BODIES), digest);
+  }
+
+  /**
+   * Appends a response to the log and stores its body.
+   *
+   * @param key          Fixture key, see {@link FixtureKey}.
+   * @param code         HTTP status code.
+   * @param message      HTTP status message.
+   * @param headers      Response headers.
+   * @param body         Body bytes, {@code null} if the response has no body.
+   * @param latencyNanos Time elapsed from sending the request until the body was received.
+   * @throws IOException if writing fails.
+   */
+  void record(
+    final String key,
+    final int code,
+    final String message,
+    final Headers headers,
+    @Nullable final byte[] body,
+    final long latencyNanos) throws IOException {
+
+    String digest = "";
+    long length = 0;
+    if (body != null && body.length > 0) {
+      digest = storeBody(body);
+      length = body.length;
+    }
+
+    Fixture fixture = new Fixture(key, code, message, headers, digest, length, latencyNanos);
+    synchronized (this) {
+      DataOutputStream log = openLog();
+      fixture.writeTo(log);
+      // keep the log readable even if the process is killed while recording
+      log.flush();
+    }
+  }
+
+  private DataOutputStream openLog() throws IOException {
+    if (log == null) {
+      if (!directory.isDirectory() && !directory.mkdirs()) {
+        throw new IOException("Cannot create fixture directory " + directory);
+      }
+      File file = logFile();
+      boolean empty = !file.exists() || file.length() == 0;
+      if (!empty) {
+        checkHeader(file);
+      }
+      log = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)));
+      if (empty) {
+        log.writeInt(MAGIC);
+        log.writeInt(VERSION);
+      }
+    }
+    return log;
+  }
+
+  private static void checkHeader(final File file) throws IOException {
+    // appending entries of another format would leave the whole log unreadable
+    try (DataInputStream input = new DataInputStream(new FileInputStream(file))) {
+      if (file.length() < HEADER_SIZE
+        || input.readInt() != MAGIC
+        || input.readInt() != VERSION) {
+        throw new IOException("Unsupported fixture log format in " + file);
+      }
+    }
+  }
+
+  private String storeBody(final byte[] body) throws IOException {
+    String digest = digest(body);
+    File target = bodyFile(digest);
+    if (target.exists()) {
+      return digest;
+    }
+
+    File bodies = target.getParentFile();
+    if (!bodies.isDirectory() && !bodies.mkdirs()) {
+      throw new IOException("Cannot create body directory " + bodies);
+    }
+    // written under a temporary name so a partially written body is never served
+    File temp = File.createTempFile(digest, ".tmp", bodies);
+    try {
+      Files.write(temp.toPath(), body);
+      Files.move(temp.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+    } catch (FileAlreadyExistsException ignored) {
+      // stored concurrently by another thread or process
+    } finally {
+      Files.deleteIfExists(temp.toPath());
+    }
+    return digest;
+  }
+
+  private static String digest(final byte[] body) {
+    byte[] hash;
+    try {
+      hash = MessageDigest.getInstance("SHA-256").digest(body);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not supported.", e);
+    }
+    char[] hex = new char[hash.length * 2];
+    for (int i = 0; i < hash.length; i++) {
+      hex[i * 2] = HEX[(hash[i] >> HEX_BITS) & HEX_MASK];
+      hex[i * 2 + 1] = HEX[hash[i] & HEX_MASK];
+    }
+    return new String(hex);
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    if (log != null) {
+      log.close();
+      log = null;
+    }
+  }
+}
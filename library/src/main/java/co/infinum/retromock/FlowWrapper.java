@@ -0,0 +1,59 @@
+package co.infinum.retromock;
+
+import retrofit2.Response;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
+import javax.annotation.Nullable;
+
+final class FlowWrapper<T> implements MethodWrapper {
+
+    /**
+     * The return type of a call producing a single emission.
+     */
+    private final Type returnType;
+
+    /**
+     * The actual type of the emitted body.
+     */
+    private final Type actualType;
+
+    /**
+     * Flag indicating whether the flow emits Response wrappers.
+     */
+    private final boolean wantsResponse;
+
+    FlowWrapper(final Type returnType, final Type actualType, final boolean wantsResponse) {
+        this.returnType = returnType;
+        this.actualType = actualType;
+        this.wantsResponse = wantsResponse;
+    }
+
+    @Override
+    public Type getReturnType() {
+        return returnType;
+    }
+
+    @Override
+    public Type getActualType() {
+        return actualType;
+    }
+
+    /**
+     * Creates a cold flow emitting mocked responses, each one after the delay of the behavior.
+     *
+     * @param responses Creates a mocked response source for each collection of the flow.
+     * @param emissions Number of responses emitted to each collector.
+     * @param behavior  Behavior each emission is delayed by.
+     * @param method    Mocked service method.
+     * @param events    Listener of call events, {@code null} if calls are not observed.
+     * @return Flow of mocked responses.
+     */
+    Object mock(final Supplier<Callable<Response<T>>> responses, final int emissions, final Behavior behavior,
+                final Method method, @Nullable final CallEvents events) {
+        return KotlinExtensions.mockedFlow(responses, emissions, behavior, method, events, wantsResponse);
+    }
+}
@@ -0,0 +1,382 @@
+package co.infinum.retromock;
+
+import com.squareup.moshi.JsonReader;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nullable;
+
+import okhttp3.Headers;
+import okhttp3.HttpUrl;
+import okio.Okio;
+
+/**
+ * Imports responses captured in a HAR file to a {@link FixtureStore}, so they can be replayed with
+ * {@link Retromock.Builder#replayFrom(FixtureStore)}.
+ * <p>
+ * Each captured entry is matched to a service method by its HTTP method annotation and relative
+ * URL resolved against the base URL. Values of {@code @Path}, {@code @Query}, {@code @Header} and
+ * {@code @Field} arguments are taken from the captured request, so the entry is replayed for calls
+ * made with the same values. Entries that match no service method are skipped.
+ * <p>
+ * The file is parsed as a stream one entry at a time, so memory use is bounded by the largest
+ * captured response, not the size of the file. Parsing requires Moshi on the classpath.
+ * <pre><code>
+ *   FixtureStore store = new FixtureStore(new File("fixtures"));
+ *   new HarImporter(store, retrofit.baseUrl(), Service.class).importFrom(new File("staging.har"));
+ *   store.close();
+ * </code></pre>
+ */
+public final class HarImporter {
+
+  /**
+   * Response headers describing the captured encoding of a body, HAR bodies are already decoded.
+   */
+  private static final Set<String> SKIPPED_HEADERS = new HashSet<>(Arrays.asList(
+    "content-encoding", "content-length", "transfer-encoding"));
+
+  /**
+   * Lowest valid HTTP status code, HAR uses 0 for requests that got no response.
+   */
+  private static final int MIN_STATUS = 100;
+
+  /**
+   * Nanoseconds in a millisecond, HAR timings are in milliseconds.
+   */
+  private static final long NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+  /**
+   * Content encoding of binary HAR bodies.
+   */
+  private static final String BASE64 = "base64";
+
+  /**
+   * Store entries are imported to.
+   */
+  private final FixtureStore store;
+
+  /**
+   * Service methods entries are matched to, most specific first.
+   */
+  private final List<ServiceRoute> routes;
+
+  /**
+   * Creates an importer matching captured entries to methods of the services.
+   *
+   * @param store    Store to import entries to.
+   * @param baseUrl  Base URL relative URLs of service methods are resolved against, usually
+   *                 {@link retrofit2.Retrofit#baseUrl()}.
+   * @param services Service interfaces entries are matched to.
+   */
+  public HarImporter(final FixtureStore store, final HttpUrl baseUrl, final Class<?>... services) {
+    Preconditions.checkNotNull(store, "Store is null.");
+    Preconditions.checkNotNull(baseUrl, "Base URL is null.");
+    this.store = store;
+    this.routes = ServiceRoute.of(baseUrl, true, services);
+  }
+
+  /**
+   * Imports entries of a HAR file.
+   *
+   * @param har HAR file.
+   * @return Number of imported entries.
+   * @throws IOException if the file cannot be read or parsed, or the store cannot be written.
+   */
+  public int importFrom(final File har) throws IOException {
+    try (InputStream input = new FileInputStream(har)) {
+      return importFrom(input);
+    }
+  }
+
+  /**
+   * Imports entries of a HAR stream. The stream is not closed.
+   *
+   * @param har HAR stream.
+   * @return Number of imported entries.
+   * @throws IOException if the stream cannot be read or parsed, or the store cannot be written.
+   */
+  public int importFrom(final InputStream har) throws IOException {
+    JsonReader reader = JsonReader.of(Okio.buffer(Okio.source(har)));
+    int imported = 0;
+    reader.beginObject();
+    while (reader.hasNext()) {
+      if (!"log".equals(reader.nextName())) {
+        reader.skipValue();
+        continue;
+      }
+      reader.beginObject();
+      while (reader.hasNext()) {
+        if (!"entries".equals(reader.nextName())) {
+          reader.skipValue();
+          continue;
+        }
+        reader.beginArray();
+        while (reader.hasNext()) {
+          if (record(Entry.read(reader))) {
+            imported++;
+          }
+        }
+        reader.endArray();
+      }
+      reader.endObject();
+    }
+    reader.endObject();
+    return imported;
+  }
+
+  private boolean record(final Entry entry) throws IOException {
+    HttpUrl url = entry.url != null ? HttpUrl.parse(entry.url) : null;
+    if (url == null || entry.status < MIN_STATUS) {
+      return false;
+    }
+    for (ServiceRoute route : routes) {
+      Object[] args = route.match(entry.method, url, entry.requestHeaders, entry.fields);
+      if (args != null) {
+        store.record(
+          FixtureKey.of(route.arguments(), args),
+          entry.status,
+          entry.statusText,
+          entry.responseHeaders.build(),
+          entry.body,
+          (long) (entry.timeMillis * NANOS_PER_MILLI)
+        );
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Captured request and response, only the parts needed to match and record them.
+   */
+  private static final class Entry {
+
+    /**
+     * Request HTTP method.
+     */
+    private String method = "GET";
+
+    /**
+     * Request URL.
+     */
+    @Nullable
+    private String url;
+
+    /**
+     * Request header values by lower case name.
+     */
+    private final Map<String, String> requestHeaders = new HashMap<>();
+
+    /**
+     * Form field values of the request body.
+     */
+    private final Map<String, String> fields = new HashMap<>();
+
+    /**
+     * Response HTTP status code.
+     */
+    private int status;
+
+    /**
+     * Response HTTP status message.
+     */
+    private String statusText = "";
+
+    /**
+     * Response headers.
+     */
+    private final Headers.Builder responseHeaders = new Headers.Builder();
+
+    /**
+     * Response body, {@code null} if it was not captured.
+     */
+    @Nullable
+    private byte[] body;
+
+    /**
+     * Time elapsed from sending the request until the response was received.
+     */
+    private double timeMillis;
+
+    static Entry read(final JsonReader reader) throws IOException {
+      Entry entry = new Entry();
+      reader.beginObject();
+      while (reader.hasNext()) {
+        switch (reader.nextName()) {
+          case "request":
+            entry.readRequest(reader);
+            break;
+          case "response":
+            entry.readResponse(reader);
+            break;
+          case "time":
+            entry.timeMillis = reader.nextDouble();
+            break;
+          default:
+            reader.skipValue();
+        }
+      }
+      reader.endObject();
+      return entry;
+    }
+
+    private void readRequest(final JsonReader reader) throws IOException {
+      reader.beginObject();
+      while (reader.hasNext()) {
+        switch (reader.nextName()) {
+          case "method":
+            method = reader.nextString();
+            break;
+          case "url":
+            url = reader.nextString();
+            break;
+          case "headers":
+            for (String[] header : readPairs(reader)) {
+              requestHeaders.put(header[0].toLowerCase(Locale.US), header[1]);
+            }
+            break;
+          case "postData":
+            readPostData(reader);
+            break;
+          default:
+            reader.skipValue();
+        }
+      }
+      reader.endObject();
+    }
+
+    private void readPostData(final JsonReader reader) throws IOException {
+      String mimeType = null;
+      String text = null;
+      reader.beginObject();
+      while (reader.hasNext()) {
+        switch (reader.nextName()) {
+          case "mimeType":
+            mimeType = readString(reader);
+            break;
+          case "text":
+            text = readString(reader);
+            break;
+          case "params":
+            for (String[] param : readPairs(reader)) {
+              fields.put(param[0], param[1]);
+            }
+            break;
+          default:
+            reader.skipValue();
+        }
+      }
+      reader.endObject();
+
+      if (fields.isEmpty() && text != null && mimeType != null
+        && mimeType.startsWith(ServiceRoute.FORM)) {
+        ServiceRoute.parseForm(text, fields);
+      }
+    }
+
+    private void readResponse(final JsonReader reader) throws IOException {
+      reader.beginObject();
+      while (reader.hasNext()) {
+        switch (reader.nextName()) {
+          case "status":
+            status = reader.nextInt();
+            break;
+          case "statusText":
+            String text = readString(reader);
+            statusText = text != null ? text : "";
+            break;
+          case "headers":
+            for (String[] header : readPairs(reader)) {
+              // HTTP/2 pseudo headers are not headers of the response
+              if (!header[0].startsWith(":")
+                && !SKIPPED_HEADERS.contains(header[0].toLowerCase(Locale.US))) {
+                responseHeaders.addUnsafeNonAscii(header[0], header[1]);
+              }
+            }
+            break;
+          case "content":
+            readContent(reader);
+            break;
+          default:
+            reader.skipValue();
+        }
+      }
+      reader.endObject();
+    }
+
+    private void readContent(final JsonReader reader) throws IOException {
+      String text = null;
+      String encoding = null;
+      reader.beginObject();
+      while (reader.hasNext()) {
+        switch (reader.nextName()) {
+          case "text":
+            text = readString(reader);
+            break;
+          case "encoding":
+            encoding = readString(reader);
+            break;
+          default:
+            reader.skipValue();
+        }
+      }
+      reader.endObject();
+
+      if (text != null) {
+        body = BASE64.equals(encoding)
+          ? Base64.getMimeDecoder().decode(text)
+          : text.getBytes(StandardCharsets.UTF_8);
+      }
+    }
+
+    private static List<String[]> readPairs(final JsonReader reader) throws IOException {
+      List<String[]> pairs = new ArrayList<>();
+      reader.beginArray();
+      while (reader.hasNext()) {
+        String name = null;
+        String value = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+          switch (reader.nextName()) {
+            case "name":
+              name = readString(reader);
+              break;
+            case "value":
+              value = readString(reader);
+              break;
+            default:
+              reader.skipValue();
+          }
+        }
+        reader.endObject();
+        if (name != null) {
+          pairs.add(new String[] {name, value != null ? value : ""});
+        }
+      }
+      reader.endArray();
+      return pairs;
+    }
+
+    @Nullable
+    private static String readString(final JsonReader reader) throws IOException {
+      if (reader.peek() == JsonReader.Token.NULL) {
+        return reader.nextNull();
+      }
+      return reader.nextString();
+    }
+  }
+}
@@ -0,0 +1,194 @@
+package co.infinum.retromock;
+
+import java.lang.reflect.Method;
+
+import javax.annotation.Nullable;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.FlightRecorderListener;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder event types. Referenced only through {@link MockEvents}, so this class is never
+ * loaded on runtimes without Flight Recorder.
+ */
+final class JfrEvents {
+
+  /**
+   * Flag indicating whether at least one recording is running.
+   */
+  private static volatile boolean recording;
+
+  static {
+    FlightRecorder.addListener(new FlightRecorderListener() {
+      @Override
+      public void recorderInitialized(final FlightRecorder recorder) {
+        update(recorder);
+      }
+
+      @Override
+      public void recordingStateChanged(final Recording changed) {
+        update(FlightRecorder.getFlightRecorder());
+      }
+    });
+  }
+
+  private JfrEvents() {
+  }
+
+  private static void update(final FlightRecorder recorder) {
+    boolean running = false;
+    for (Recording r : recorder.getRecordings()) {
+      if (r.getState() == RecordingState.RUNNING) {
+        running = true;
+        break;
+      }
+    }
+    recording = running;
+  }
+
+  @Nullable
+  static Object begin(final MockEvents.Kind kind) {
+    if (!recording) {
+      return null;
+    }
+
+    MockEvent event;
+    switch (kind) {
+      case PARSE:
+        event = new ParseEvent();
+        break;
+      case PROVIDER:
+        event = new ProviderEvent();
+        break;
+      case BODY:
+        event = new BodyEvent();
+        break;
+      case CONVERSION:
+        event = new ConversionEvent();
+        break;
+      case DELAY:
+        event = new DelayEvent();
+        break;
+      case CALLBACK:
+        event = new CallbackEvent();
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown event kind " + kind);
+    }
+    if (!event.isEnabled()) {
+      return null;
+    }
+    event.begin();
+    return event;
+  }
+
+  static void end(final Object started, @Nullable final Method method, final long value) {
+    MockEvent event = (MockEvent) started;
+    event.end();
+    if (!event.shouldCommit()) {
+      return;
+    }
+    if (method != null) {
+      event.method = method.getDeclaringClass().getName() + "." + method.getName();
+    }
+    event.value(value);
+    event.commit();
+  }
+
+  @Category({"Retromock"})
+  @Enabled(false)
+  @StackTrace(false)
+  private abstract static class MockEvent extends Event {
+
+    /**
+     * Service method the event relates to.
+     */
+    @Label("Method")
+    private String method;
+
+    void value(final long value) {
+    }
+  }
+
+  @Name("co.infinum.retromock.Parse")
+  @Label("Method Parse")
+  @Description("Parsing of service method annotations")
+  private static final class ParseEvent extends MockEvent {
+  }
+
+  @Name("co.infinum.retromock.Provider")
+  @Label("Provider Invocation")
+  @Description("Invocation of a mock response provider method")
+  private static final class ProviderEvent extends MockEvent {
+  }
+
+  @Name("co.infinum.retromock.Body")
+  @Label("Body Creation")
+  @Description("Creation of a mocked response body source")
+  private static final class BodyEvent extends MockEvent {
+
+    /**
+     * Content length of the body, -1 if unknown.
+     */
+    @Label("Content Length")
+    @DataAmount
+    private long contentLength;
+
+    @Override
+    void value(final long value) {
+      contentLength = value;
+    }
+  }
+
+  @Name("co.infinum.retromock.Conversion")
+  @Label("Body Conversion")
+  @Description("Conversion of a mocked response body by a Retrofit converter")
+  private static final class ConversionEvent extends MockEvent {
+  }
+
+  @Name("co.infinum.retromock.Delay")
+  @Label("Response Delay")
+  @Description("Response delay from scheduling until it fires")
+  private static final class DelayEvent extends MockEvent {
+
+    /**
+     * Delay requested by behavior.
+     */
+    @Label("Requested Delay")
+    @Timespan(Timespan.MILLISECONDS)
+    private long requestedMillis;
+
+    @Override
+    void value(final long value) {
+      requestedMillis = value;
+    }
+  }
+
+  @Name("co.infinum.retromock.Callback")
+  @Label("Callback Dispatch")
+  @Description("Dispatch of a mocked call callback on the callback executor")
+  private static final class CallbackEvent extends MockEvent {
+
+    /**
+     * Flag indicating whether a response or a failure was dispatched.
+     */
+    @Label("Successful")
+    private boolean successful;
+
+    @Override
+    void value(final long value) {
+      successful = value != 0;
+    }
+  }
+}
@@ -0,0 +1,141 @@
+package co.infinum.retromock;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+import javax.annotation.Nullable;
+
+/**
+ * Keeps a separate iterator per scope key. Key consists of a scope provided by
+ * {@link ScopeProvider} and string values of selected arguments. Number of keys is bounded,
+ * when exceeded the oldest keys are evicted.
+ *
+ * @param <T> Type of responses.
+ */
+final class KeyedIterator<T> implements ResponseIterator<T> {
+
+    /**
+     * Indices of arguments that are part of the key.
+     */
+  private final int[] arguments;
+
+    /**
+     * Maximum number of keys to keep iterators for.
+     */
+  private final int maxKeys;
+
+    /**
+     * Creates a new iterator for a key seen for the first time.
+     */
+  private final Supplier<ResponseIterator<T>> factory;
+
+    /**
+     * Iterators by key.
+     */
+  private final ConcurrentMap<List<Object>, ResponseIterator<T>> iterators;
+
+    /**
+     * Keys in order of creation, used for eviction.
+     */
+  private final Queue<List<Object>> keys;
+
+  KeyedIterator(
+    final int[] arguments,
+    final int maxKeys,
+    final Supplier<ResponseIterator<T>> factory) {
+
+    if (maxKeys <= 0) {
+      throw new IllegalArgumentException("Maximum number of scopes must be positive.");
+    }
+    this.arguments = arguments;
+    this.maxKeys = maxKeys;
+    this.factory = factory;
+    this.iterators = new ConcurrentHashMap<>();
+    this.keys = new ConcurrentLinkedQueue<>();
+  }
+
+  @Override
+  public T next() {
+    return next(new Object[0], null);
+  }
+
+  @Override
+  public T next(final Object[] args, @Nullable final Object scope) {
+    Object[] values = new Object[arguments.length + 1];
+    values[0] = scope;
+    for (int i = 0; i < arguments.length; i++) {
+      int index = arguments[i];
+      values[i + 1] = index < args.length ? MethodArguments.stringValue(args[index]) : "";
+    }
+    List<Object> key = Arrays.asList(values);
+
+    ResponseIterator<T> iterator = iterators.get(key);
+    if (iterator == null) {
+      ResponseIterator<T> created = factory.get();
+      iterator = iterators.putIfAbsent(key, created);
+      if (iterator == null) {
+        iterator = created;
+        keys.add(key);
+        evict();
+      }
+    }
+    return iterator.next(args, scope);
+  }
+
+  private void evict() {
+    while (iterators.size() > maxKeys) {
+      List<Object> eldest = keys.poll();
+      if (eldest == null) {
+        return;
+      }
+      iterators.remove(eldest);
+    }
+  }
+
+  int size() {
+    return iterators.size();
+  }
+
+  @Override
+  public void reset() {
+    iterators.clear();
+    keys.clear();
+  }
+
+  @Override
+  public Object snapshot() {
+    Map<List<Object>, Object> snapshot = new LinkedHashMap<>();
+    for (List<Object> key : keys) {
+      ResponseIterator<T> iterator = iterators.get(key);
+      if (iterator != null) {
+        snapshot.put(key, iterator.snapshot());
+      }
+    }
+    return Collections.unmodifiableMap(snapshot);
+  }
+
+  @Override
+  public void restore(@Nullable final Object snapshot) {
+    reset();
+    if (!(snapshot instanceof Map)) {
+      return;
+    }
+    for (Map.Entry<?, ?> entry : ((Map<?, ?>) snapshot).entrySet()) {
+      @SuppressWarnings("unchecked")
+      List<Object> key = (List<Object>) entry.getKey();
+      ResponseIterator<T> iterator = factory.get();
+      iterator.restore(entry.getValue());
+      iterators.put(key, iterator);
+      keys.add(key);
+    }
+    evict();
+  }
+}
@@ -3,11 +3,18 @@
 package co.infinum.retromock
 
 import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.flow
 import kotlinx.coroutines.suspendCancellableCoroutine
 import retrofit2.Call
 import retrofit2.Callback
 import retrofit2.HttpException
 import retrofit2.Response
+import java.lang.reflect.Method
+import java.util.concurrent.Callable
+import java.util.function.Supplier
+import kotlin.coroutines.cancellation.CancellationException
 import kotlin.coroutines.intrinsics.COROUTINE_SUSPENDED
 import kotlin.coroutines.intrinsics.intercepted
 import kotlin.coroutines.intrinsics.suspendCoroutineUninterceptedOrReturn
@@ -61,6 +68,68 @@ internal suspend fun <T : Any> Call<T>.awaitResponse(): Response<T> {
     }
 }
 
+/**
+ * Mocks a call of a suspend service method directly in the calling coroutine.
+ *
+ * The delay of [behavior] suspends on the caller's dispatcher and [this] creates the response once
+ * it elapses, so no [Call], call adapter, executor thread or callback is involved. Cancelling the
+ * coroutine during the delay cancels the call before its response is created.
+ */
+internal suspend fun <T> Callable<Response<T>>.awaitMocked(
+    behavior: Behavior,
+    method: Method,
+    events: CallEvents?,
+    wantsResponse: Boolean
+): Any? {
+    val startNanos = events?.started() ?: 0L
+    events?.dequeued()
+    val delayMillis = behavior.delayMillis()
+    val response = try {
+        val delayEvent = MockEvents.begin(MockEvents.Kind.DELAY)
+        try {
+            delay(delayMillis)
+        } finally {
+            MockEvents.end(delayEvent, method, delayMillis)
+        }
+        call()
+    } catch (e: CancellationException) {
+        events?.canceled()
+        throw e
+    } catch (e: Throwable) {
+        events?.failed(e)
+        throw e
+    }
+    events?.completed(startNanos, delayMillis)
+
+    if (wantsResponse) {
+        return response
+    }
+    if (!response.isSuccessful) {
+        throw HttpException(response)
+    }
+    return response.body() ?: throw KotlinNullPointerException("Response body type was declared as non-null")
+}
+
+/**
+ * Creates a cold flow emitting [emissions] mocked responses to each collector, each one created
+ * after the delay of [behavior] as by [awaitMocked]. Every collection takes its own response source
+ * from [this], so collectors iterate responses from the first one independently of each other. The
+ * next delay starts only once the collector has processed the previous emission, and delays suspend
+ * in the collecting coroutine, so no thread is used per collector.
+ */
+internal fun <T> Supplier<Callable<Response<T>>>.mockedFlow(
+    emissions: Int,
+    behavior: Behavior,
+    method: Method,
+    events: CallEvents?,
+    wantsResponse: Boolean
+): Flow<Any?> = flow {
+    val responses = get()
+    repeat(emissions) {
+        emit(responses.awaitMocked(behavior, method, events, wantsResponse))
+    }
+}
+
 /**
  * Force the calling coroutine to suspend before throwing [this].
  *
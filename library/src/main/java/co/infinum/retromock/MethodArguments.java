@@ -0,0 +1,157 @@
+package co.infinum.retromock;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+import retrofit2.http.Body;
+import retrofit2.http.Field;
+import retrofit2.http.Header;
+import retrofit2.http.Path;
+import retrofit2.http.Query;
+
+/**
+ * Resolves service method arguments by names declared in Retrofit's parameter annotations.
+ * Arguments annotated with {@link Path}, {@link Query}, {@link Header} or {@link Field} can be
+ * referenced either by plain name, e.g. {@code id}, or qualified name, e.g. {@code path.id}.
+ */
+final class MethodArguments {
+
+  /**
+   * Name used to reference an argument annotated with {@link Body}.
+   */
+  static final String BODY = "body";
+
+  /**
+   * Service method which arguments are resolved.
+   */
+  private final Method method;
+
+  /**
+   * Argument indices by qualified name, e.g. {@code path.id}.
+   */
+  private final Map<String, Integer> qualified = new HashMap<>();
+
+  /**
+   * Argument indices by plain name, {@code -1} if ambiguous.
+   */
+  private final Map<String, Integer> plain = new HashMap<>();
+
+  /**
+   * Qualified names by argument index, {@code null} for arguments that cannot be referenced.
+   */
+  private final String[] names;
+
+  /**
+   * Index of the argument annotated with {@link Body}, {@code -1} if none.
+   */
+  private int body = -1;
+
+  MethodArguments(final Method method) {
+    this.method = method;
+
+    Annotation[][] annotations = method.getParameterAnnotations();
+    this.names = new String[annotations.length];
+    for (int i = 0; i < annotations.length; i++) {
+      for (Annotation annotation : annotations[i]) {
+        if (annotation instanceof Path) {
+          add("path", ((Path) annotation).value(), i);
+        } else if (annotation instanceof Query) {
+          add("query", ((Query) annotation).value(), i);
+        } else if (annotation instanceof Header) {
+          add("header", ((Header) annotation).value(), i);
+        } else if (annotation instanceof Field) {
+          add("field", ((Field) annotation).value(), i);
+        } else if (annotation instanceof Body) {
+          body = i;
+        }
+      }
+    }
+  }
+
+  private void add(final String kind, final String name, final int index) {
+    qualified.put(kind + "." + name, index);
+    names[index] = kind + "." + name;
+    Integer existing = plain.get(name);
+    plain.put(name, existing == null || existing == index ? index : -1);
+  }
+
+  Method method() {
+    return method;
+  }
+
+  /**
+   * @return Number of service method arguments.
+   */
+  int size() {
+    return names.length;
+  }
+
+  /**
+   * Returns a qualified name of an argument, e.g. {@code path.id}.
+   *
+   * @param index Argument index.
+   * @return Qualified name or {@code null} if the argument is not annotated with {@link Path},
+   * {@link Query}, {@link Header} or {@link Field}.
+   */
+  @Nullable
+  String qualifiedName(final int index) {
+    return names[index];
+  }
+
+  /**
+   * Finds an index of the argument referenced by name.
+   *
+   * @param name Plain or qualified argument name.
+   * @return Argument index.
+   * @throws IllegalArgumentException if there is no such argument or the name is ambiguous.
+   */
+  int indexOf(final String name) {
+    if (BODY.equals(name)) {
+      return bodyIndex();
+    }
+
+    Integer index = qualified.get(name);
+    if (index == null) {
+      index = plain.get(name);
+    }
+    if (index == null) {
+      throw error(name, "no argument with that name");
+    }
+    if (index < 0) {
+      throw error(name, "name is ambiguous, qualify it with path., query., header. or field.");
+    }
+    return index;
+  }
+
+  /**
+   * Finds an index of the argument annotated with {@link Body}.
+   *
+   * @return Argument index.
+   * @throws IllegalArgumentException if there is no such argument.
+   */
+  int bodyIndex() {
+    if (body < 0) {
+      throw error(BODY, "method has no @Body argument");
+    }
+    return body;
+  }
+
+  IllegalArgumentException error(final String name, final String reason) {
+    return new IllegalArgumentException("Cannot resolve argument '" + name + "' of "
+      + method.getDeclaringClass().getName() + "." + method.getName() + ": " + reason + ".");
+  }
+
+  /**
+   * Converts an argument to a string the same way for templates and matchers.
+   *
+   * @param value Argument value.
+   * @return String value, empty string for {@code null}.
+   */
+  static String stringValue(@Nullable final Object value) {
+    return value == null ? "" : value.toString();
+  }
+}
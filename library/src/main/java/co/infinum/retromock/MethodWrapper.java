@@ -0,0 +1,10 @@
+package co.infinum.retromock;
+
+import java.lang.reflect.Type;
+
+interface MethodWrapper {
+
+  Type getReturnType();
+
+  Type getActualType();
+}
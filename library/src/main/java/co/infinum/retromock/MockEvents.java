@@ -0,0 +1,98 @@
+package co.infinum.retromock;
+
+import java.lang.reflect.Method;
+
+import javax.annotation.Nullable;
+
+/**
+ * Emits Java Flight Recorder events of the mock pipeline. Events are disabled by default, enable
+ * them in a recording settings file by their name, e.g. {@code co.infinum.retromock.Delay}.
+ * <p>
+ * Every event is started by {@link #begin(Kind)} and committed by
+ * {@link #end(Object, Method, long)}. While no recording is running {@code begin} returns
+ * {@code null} after a single volatile read and nothing is allocated. On runtimes without Flight
+ * Recorder, e.g. Android, events are never emitted.
+ */
+final class MockEvents {
+
+  /**
+   * Flag indicating whether Flight Recorder classes can be loaded on this runtime.
+   */
+  private static final boolean AVAILABLE = isAvailable();
+
+  /**
+   * Kinds of emitted events.
+   */
+  enum Kind {
+
+    /**
+     * Parsing of service method annotations. No value.
+     */
+    PARSE,
+
+    /**
+     * Invocation of a {@link co.infinum.retromock.meta.MockResponseProvider}. No value.
+     */
+    PROVIDER,
+
+    /**
+     * Creation of a response body source. Value is the content length, {@code -1} if unknown.
+     */
+    BODY,
+
+    /**
+     * Conversion of a response body. No value.
+     */
+    CONVERSION,
+
+    /**
+     * Response delay from scheduling until it fires. Value is the requested delay in millis.
+     */
+    DELAY,
+
+    /**
+     * Dispatch of a callback on the callback executor. Value is {@code 1} for a response and
+     * {@code 0} for a failure.
+     */
+    CALLBACK
+  }
+
+  private MockEvents() {
+  }
+
+  private static boolean isAvailable() {
+    try {
+      Class.forName("jdk.jfr.Event", false, MockEvents.class.getClassLoader());
+      return true;
+    } catch (ClassNotFoundException | LinkageError | SecurityException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Starts timing an event.
+   *
+   * @param kind Event kind.
+   * @return Started event or {@code null} if events are not recorded.
+   */
+  @Nullable
+  static Object begin(final Kind kind) {
+    if (!AVAILABLE) {
+      return null;
+    }
+    return JfrEvents.begin(kind);
+  }
+
+  /**
+   * Commits an event started by {@link #begin(Kind)}.
+   *
+   * @param event  Started event, may be {@code null}.
+   * @param method Service method the event relates to, may be {@code null} if unknown.
+   * @param value  Event value, meaning depends on the {@link Kind}.
+   */
+  static void end(@Nullable final Object event, @Nullable final Method method, final long value) {
+    if (event != null) {
+      JfrEvents.end(event, method, value);
+    }
+  }
+}
@@ -1,7 +1,35 @@
 package co.infinum.retromock;
 
+import javax.annotation.Nullable;
+
 interface ParamsProducer {
 
   ResponseParams produce(Object[] args);
 
+  default ResponseParams produce(final Object[] args, @Nullable final Object scope) {
+    return produce(args);
+  }
+
+  /**
+   * Creates a producer for a single collection of a flow, which iterates responses from the first
+   * one independently of calls and other collections.
+   *
+   * @return Producer of one collection, this producer if it has no iteration state.
+   */
+  default ParamsProducer collection() {
+    return this;
+  }
+
+  default void reset() {
+  }
+
+  @Nullable
+  default Object snapshot() {
+    return null;
+  }
+
+  default void restore(@Nullable final Object snapshot) {
+    reset();
+  }
+
 }
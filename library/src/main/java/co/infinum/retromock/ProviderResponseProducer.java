@@ -37,6 +37,7 @@ final class ProviderResponseProducer implements ParamsProducer {
     @Override
     public ResponseParams produce(final Object[] args) {
         Response response;
+        Object event = MockEvents.begin(MockEvents.Kind.PROVIDER);
         try {
             response = (Response) providerMethod.invoke(provider, args);
         } catch (IllegalAccessException e) {
@@ -44,6 +45,8 @@ final class ProviderResponseProducer implements ParamsProducer {
         } catch (InvocationTargetException e) {
             throw new RuntimeException("Method " + providerMethod.getDeclaringClass() + "."
                     + providerMethod.getName() + " threw an exception while executing.", e.getCause());
+        } finally {
+            MockEvents.end(event, providerMethod, 0);
         }
         return new ResponseParams.Builder()
                 .code(response.code())
@@ -64,7 +67,7 @@ final class ProviderResponseProducer implements ParamsProducer {
         Method providerMethod = null;
         for (Class<?> c = providerClass; c != Object.class; c = c.getSuperclass()) {
             for (Method method : c.getDeclaredMethods()) {
-                CallWrapper callWrapper = retromock.findCallWrapper(method);
+                MethodWrapper callWrapper = retromock.findCallWrapper(method);
                 if (method.isAnnotationPresent(ProvidesMock.class)
                         && Response.class.equals(callWrapper.getActualType())
                         && isMethodApplicable(method, serviceMethod)) {
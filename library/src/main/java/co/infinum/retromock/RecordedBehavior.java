@@ -0,0 +1,50 @@
+package co.infinum.retromock;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Implementation of {@link Behavior} replaying latencies recorded in a {@link FixtureStore}.
+ * Each delay is a randomly chosen recorded sample, so delays follow the recorded distribution,
+ * including its tail, instead of a uniform deviation around a mean.
+ */
+final class RecordedBehavior implements Behavior {
+
+  /**
+   * Recorded latencies in nanoseconds.
+   */
+  private final long[] samples;
+
+  /**
+   * Provider for random number generation.
+   */
+  private final RandomProvider randomProvider;
+
+  /**
+   * Create new instance using recorded latencies.
+   *
+   * @param samples Recorded latencies in nanoseconds, at least one.
+   */
+  RecordedBehavior(final long[] samples) {
+    this(samples, new ThreadLocalRandomProvider());
+  }
+
+  /**
+   * Create new instance using recorded latencies.
+   *
+   * @param samples        Recorded latencies in nanoseconds, at least one.
+   * @param randomProvider Provides random generator.
+   */
+  RecordedBehavior(final long[] samples, final RandomProvider randomProvider) {
+    if (samples.length == 0) {
+      throw new IllegalArgumentException("There are no recorded latencies.");
+    }
+    this.samples = samples;
+    this.randomProvider = randomProvider;
+  }
+
+  @Override
+  public long delayMillis() {
+    long sample = samples.length == 1 ? samples[0] : samples[randomProvider.nextInt(samples.length)];
+    return TimeUnit.NANOSECONDS.toMillis(sample);
+  }
+}
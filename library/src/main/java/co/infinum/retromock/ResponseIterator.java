@@ -1,7 +1,38 @@
 package co.infinum.retromock;
 
+import javax.annotation.Nullable;
+
 interface ResponseIterator<T> {
 
   T next();
 
+  default T next(final Object[] args, @Nullable final Object scope) {
+    return next();
+  }
+
+  /**
+   * Starts iteration from the first response again.
+   */
+  default void reset() {
+  }
+
+  /**
+   * Captures the current iteration state.
+   *
+   * @return Immutable state or {@code null} if this iterator has no state.
+   */
+  @Nullable
+  default Object snapshot() {
+    return null;
+  }
+
+  /**
+   * Restores iteration state captured by {@link #snapshot()} of the same iterator.
+   *
+   * @param snapshot State to restore, {@code null} to reset.
+   */
+  default void restore(@Nullable final Object snapshot) {
+    reset();
+  }
+
 }
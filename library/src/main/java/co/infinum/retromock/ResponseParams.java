@@ -3,9 +3,17 @@ package co.infinum.retromock;
 import javax.annotation.Nullable;
 
 import okhttp3.Headers;
+import okhttp3.MediaType;
+import okhttp3.Protocol;
+import okhttp3.Request;
 
 final class ResponseParams {
 
+  /**
+   * Request mocked responses are made for.
+   */
+  static final Request REQUEST = new Request.Builder().url("http://localhost").build();
+
   /**
    * HTTP status code for the response.
    */
@@ -26,12 +34,31 @@ final class ResponseParams {
    */
   private final Headers headers;
 
+  /**
+   * Media type parsed from the Content-Type header, {@code null} if there is none.
+   */
+  @Nullable
+  private final MediaType mediaType;
+
+  /**
+   * Value of the Content-Length header, -1 if unknown.
+   */
+  private final long contentLength;
+
+  /**
+   * Raw response without a body, responses with a body are copied from it. Created on first use,
+   * racing threads create equal instances.
+   */
+  @Nullable
+  private okhttp3.Response prototype;
+
   private ResponseParams(final Builder builder) {
     this(
       builder.code,
       builder.message,
       builder.bodyFactory,
-      builder.headers
+      builder.headers,
+      builder.source != null && builder.source.headers == builder.headers ? builder.source : null
     );
   }
 
@@ -41,10 +68,33 @@ final class ResponseParams {
     final RetromockBodyFactory bodyFactory,
     final Headers headers) {
 
+    this(code, message, bodyFactory, headers, null);
+  }
+
+  private ResponseParams(
+    final int code,
+    final String message,
+    final RetromockBodyFactory bodyFactory,
+    final Headers headers,
+    @Nullable final ResponseParams sameHeaders) {
+
     this.code = code;
     this.message = message;
     this.bodyFactory = bodyFactory;
     this.headers = headers;
+
+    if (sameHeaders != null) {
+      // e.g. rendered templates, which only replace the body factory
+      this.mediaType = sameHeaders.mediaType;
+      this.contentLength = sameHeaders.contentLength;
+      if (code == sameHeaders.code && message.equals(sameHeaders.message)) {
+        this.prototype = sameHeaders.prototype;
+      }
+    } else {
+      String contentType = contentTypeInternal(headers);
+      this.mediaType = contentType != null ? MediaType.parse(contentType) : null;
+      this.contentLength = contentLengthInternal(headers);
+    }
   }
 
   int code() {
@@ -70,7 +120,33 @@ final class ResponseParams {
   }
 
   long contentLength() {
-    return contentLengthInternal(headers);
+    return contentLength;
+  }
+
+  @Nullable
+  MediaType mediaType() {
+    return mediaType;
+  }
+
+  /**
+   * Creates a raw response with these parameters.
+   *
+   * @param body Response body.
+   * @return Raw response.
+   */
+  okhttp3.Response rawResponse(@Nullable final okhttp3.ResponseBody body) {
+    okhttp3.Response prototype = this.prototype;
+    if (prototype == null) {
+      prototype = new okhttp3.Response.Builder()
+        .code(code)
+        .message(message)
+        .protocol(Protocol.HTTP_1_1)
+        .headers(headers)
+        .request(REQUEST)
+        .build();
+      this.prototype = prototype;
+    }
+    return prototype.newBuilder().body(body).build();
   }
 
   Builder newBuilder() {
@@ -99,6 +175,12 @@ final class ResponseParams {
      */
     private Headers headers;
 
+    /**
+     * Parameters this builder was created from, {@code null} if none.
+     */
+    @Nullable
+    private ResponseParams source;
+
     Builder() {
     }
 
@@ -107,6 +189,7 @@ final class ResponseParams {
       this.message = params.message;
       this.bodyFactory = params.bodyFactory;
       this.headers = params.headers;
+      this.source = params;
     }
 
     Builder code(final int code) {
@@ -1,7 +1,12 @@
 package co.infinum.retromock;
 
+import java.lang.reflect.Method;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import javax.annotation.Nullable;
 
 import co.infinum.retromock.meta.MockHeader;
 import co.infinum.retromock.meta.MockResponse;
@@ -20,7 +25,12 @@ final class ResponseParamsProducer implements ParamsProducer {
   private final ResponseIterator<MockResponse> iterator;
 
     /**
-     * Cache for storing parsed response parameters.
+     * Factory of iterators for collections of a flow.
+     */
+  private final Supplier<ResponseIterator<MockResponse>> iterators;
+
+    /**
+     * Cache for storing parsed response parameters, shared by concurrent calls and collections.
      */
   private final Map<MockResponse, ResponseParams> cache;
 
@@ -29,43 +39,109 @@ final class ResponseParamsProducer implements ParamsProducer {
      */
   private final ResponseParams defaults;
 
+    /**
+     * Compiled body templates of responses that use {@link TemplateBodyFactory}.
+     */
+  private final Map<MockResponse, ResponseTemplate> templates;
+
   ResponseParamsProducer(
     final Retromock retromock,
-    final ResponseIterator<MockResponse> iterator,
+    final Method method,
+    final MockResponse[] responses,
+    final Supplier<ResponseIterator<MockResponse>> iterators,
     final ResponseParams defaults) {
 
+    this(retromock, iterators.get(), iterators, new ConcurrentHashMap<MockResponse, ResponseParams>(),
+      defaults, compileTemplates(retromock, method, responses));
+  }
+
+  private ResponseParamsProducer(
+    final Retromock retromock,
+    final ResponseIterator<MockResponse> iterator,
+    final Supplier<ResponseIterator<MockResponse>> iterators,
+    final Map<MockResponse, ResponseParams> cache,
+    final ResponseParams defaults,
+    final Map<MockResponse, ResponseTemplate> templates) {
+
     this.retromock = retromock;
     this.iterator = iterator;
+    this.iterators = iterators;
+    this.cache = cache;
     this.defaults = defaults;
-    this.cache = new HashMap<>();
+    this.templates = templates;
   }
 
   @Override
   public ResponseParams produce(final Object[] args) {
-    MockResponse mockResponse = iterator.next();
+    return produce(args, null);
+  }
+
+  @Override
+  public ResponseParams produce(final Object[] args, @Nullable final Object scope) {
+    MockResponse mockResponse = iterator.next(args, scope);
     ResponseParams params = cache.get(mockResponse);
-    if (params != null) {
-      return params;
-    }
+    if (params == null) {
+      ResponseParams.Builder builder = defaults.newBuilder();
+      parseResponseAnnotation(builder, mockResponse, retromock, templates.get(mockResponse));
+      params = builder.build();
 
-    ResponseParams.Builder builder = defaults.newBuilder();
-    parseResponseAnnotation(builder, mockResponse, retromock);
-    params = builder.build();
+      cache.put(mockResponse, params);
+    }
 
-    cache.put(mockResponse, params);
+    RetromockBodyFactory bodyFactory = params.bodyFactory();
+    if (bodyFactory != null && bodyFactory.isTemplate()) {
+      return params.newBuilder().bodyFactory(bodyFactory.withArgs(args)).build();
+    }
     return params;
   }
 
+  @Override
+  public ParamsProducer collection() {
+    return new ResponseParamsProducer(retromock, iterators.get(), iterators, cache, defaults, templates);
+  }
+
+  @Override
+  public void reset() {
+    iterator.reset();
+  }
+
+  @Nullable
+  @Override
+  public Object snapshot() {
+    return iterator.snapshot();
+  }
+
+  @Override
+  public void restore(@Nullable final Object snapshot) {
+    iterator.restore(snapshot);
+  }
+
   private static void parseResponseAnnotation(
     final ResponseParams.Builder builder,
     final MockResponse annotation,
-    final Retromock retromock) {
+    final Retromock retromock,
+    @Nullable final ResponseTemplate template) {
 
     builder.code(annotation.code())
       .message(annotation.message())
       .headers(convertHeaders(annotation.headers()))
       .bodyFactory(new RetromockBodyFactory(retromock.bodyFactory(annotation.bodyFactory()),
-        annotation.body()));
+        annotation.body(), template, null));
+  }
+
+  private static Map<MockResponse, ResponseTemplate> compileTemplates(
+    final Retromock retromock,
+    final Method method,
+    final MockResponse[] responses) {
+
+    Map<MockResponse, ResponseTemplate> templates = new HashMap<>();
+    for (MockResponse response : responses) {
+      if (retromock.isTemplateBodyFactory(response.bodyFactory())
+        && ResponseTemplate.hasPlaceholders(response.body())) {
+        templates.put(response, ResponseTemplate.compile(response.body(), method));
+      }
+    }
+    return templates;
   }
 
   private static Headers convertHeaders(final MockHeader[] headers) {
@@ -0,0 +1,270 @@
+package co.infinum.retromock;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import javax.annotation.Nullable;
+
+import co.infinum.retromock.meta.MockMatch;
+import co.infinum.retromock.meta.MockResponse;
+
+/**
+ * Selects a {@link MockResponse} by matching its {@link MockMatch} conditions against service
+ * method arguments. Conditions are compiled once: each response with an exact value condition is
+ * indexed by that value in a hash map, so selection costs one lookup per referenced argument
+ * regardless of how many values are declared. Responses with pattern conditions only are checked
+ * in declaration order.
+ */
+final class ResponseRouter implements ResponseIterator<MockResponse> {
+
+    /**
+     * Hash indices of responses, one per argument referenced by an exact value condition.
+     */
+  private final ArgumentIndex[] indices;
+
+    /**
+     * Responses that have only pattern conditions, in declaration order.
+     */
+  private final Rule[] unindexed;
+
+    /**
+     * Iterator over responses without conditions, {@code null} if there are none.
+     */
+  @Nullable
+  private final ResponseIterator<MockResponse> fallback;
+
+    /**
+     * Service method description used in error messages.
+     */
+  private final String methodName;
+
+  ResponseRouter(
+    final MethodArguments arguments,
+    final MockResponse[] responses,
+    @Nullable final ResponseIterator<MockResponse> fallback) {
+
+    Map<Integer, Map<String, List<Rule>>> indexed = new LinkedHashMap<>();
+    List<Rule> unindexed = new ArrayList<>();
+
+    for (int order = 0; order < responses.length; order++) {
+      MockResponse response = responses[order];
+      if (response.match().length == 0) {
+        continue;
+      }
+      Rule rule = new Rule(order, response, compileConditions(arguments, response.match()));
+      Condition key = rule.firstExactCondition();
+      if (key == null) {
+        unindexed.add(rule);
+      } else {
+        Map<String, List<Rule>> values = indexed.get(key.argument);
+        if (values == null) {
+          values = new HashMap<>();
+          indexed.put(key.argument, values);
+        }
+        List<Rule> rules = values.get(key.value);
+        if (rules == null) {
+          rules = new ArrayList<>();
+          values.put(key.value, rules);
+        }
+        rules.add(rule);
+      }
+    }
+
+    this.indices = new ArgumentIndex[indexed.size()];
+    int i = 0;
+    for (Map.Entry<Integer, Map<String, List<Rule>>> entry : indexed.entrySet()) {
+      indices[i++] = new ArgumentIndex(entry.getKey(), entry.getValue());
+    }
+    this.unindexed = unindexed.toArray(new Rule[0]);
+    this.fallback = fallback;
+    this.methodName = arguments.method().getDeclaringClass().getName() + "."
+      + arguments.method().getName();
+  }
+
+  private static Condition[] compileConditions(
+    final MethodArguments arguments,
+    final MockMatch[] matches) {
+
+    Condition[] conditions = new Condition[matches.length];
+    for (int i = 0; i < matches.length; i++) {
+      MockMatch match = matches[i];
+      int argument = arguments.indexOf(match.name());
+      if (match.pattern().isEmpty()) {
+        conditions[i] = new Condition(argument, match.value(), null);
+      } else {
+        conditions[i] = new Condition(argument, null, Pattern.compile(match.pattern()));
+      }
+    }
+    return conditions;
+  }
+
+  @Override
+  public MockResponse next() {
+    if (fallback == null) {
+      throw new IllegalStateException("Method " + methodName + " has no @MockResponse without "
+        + "conditions to return.");
+    }
+    return fallback.next();
+  }
+
+  @Override
+  public MockResponse next(final Object[] args, @Nullable final Object scope) {
+    Rule selected = null;
+    for (ArgumentIndex index : indices) {
+      Rule[] candidates = index.rules.get(MethodArguments.stringValue(args[index.argument]));
+      if (candidates != null) {
+        selected = firstMatch(candidates, args, selected);
+      }
+    }
+    selected = firstMatch(unindexed, args, selected);
+
+    if (selected != null) {
+      return selected.response;
+    }
+    if (fallback == null) {
+      throw new IllegalStateException("None of @MockResponse conditions on method " + methodName
+        + " match its arguments.");
+    }
+    return fallback.next(args, scope);
+  }
+
+  @Override
+  public void reset() {
+    if (fallback != null) {
+      fallback.reset();
+    }
+  }
+
+  @Nullable
+  @Override
+  public Object snapshot() {
+    return fallback != null ? fallback.snapshot() : null;
+  }
+
+  @Override
+  public void restore(@Nullable final Object snapshot) {
+    if (fallback != null) {
+      fallback.restore(snapshot);
+    }
+  }
+
+  @Nullable
+  private static Rule firstMatch(
+    final Rule[] candidates,
+    final Object[] args,
+    @Nullable final Rule selected) {
+
+    for (Rule candidate : candidates) {
+      if (selected != null && candidate.order > selected.order) {
+        break;
+      }
+      if (candidate.matches(args)) {
+        return candidate;
+      }
+    }
+    return selected;
+  }
+
+  private static final class ArgumentIndex {
+
+    /**
+     * Index of the argument this index is keyed by.
+     */
+    private final int argument;
+
+    /**
+     * Responses by exact argument value, in declaration order.
+     */
+    private final Map<String, Rule[]> rules;
+
+    ArgumentIndex(final int argument, final Map<String, List<Rule>> rules) {
+      this.argument = argument;
+      this.rules = new HashMap<>();
+      for (Map.Entry<String, List<Rule>> entry : rules.entrySet()) {
+        this.rules.put(entry.getKey(), entry.getValue().toArray(new Rule[0]));
+      }
+    }
+  }
+
+  private static final class Rule {
+
+    /**
+     * Position of the response in the service method declaration.
+     */
+    private final int order;
+
+    /**
+     * Response returned if all conditions match.
+     */
+    private final MockResponse response;
+
+    /**
+     * Conditions on service method arguments.
+     */
+    private final Condition[] conditions;
+
+    Rule(final int order, final MockResponse response, final Condition[] conditions) {
+      this.order = order;
+      this.response = response;
+      this.conditions = conditions;
+    }
+
+    @Nullable
+    Condition firstExactCondition() {
+      for (Condition condition : conditions) {
+        if (condition.value != null) {
+          return condition;
+        }
+      }
+      return null;
+    }
+
+    boolean matches(final Object[] args) {
+      for (Condition condition : conditions) {
+        if (!condition.matches(args)) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  private static final class Condition {
+
+    /**
+     * Index of the argument this condition applies to.
+     */
+    private final int argument;
+
+    /**
+     * Exact value the argument has to be equal to, {@code null} if pattern is used.
+     */
+    @Nullable
+    private final String value;
+
+    /**
+     * Pattern the argument has to match, {@code null} if exact value is used.
+     */
+    @Nullable
+    private final Pattern pattern;
+
+    Condition(final int argument, @Nullable final String value, @Nullable final Pattern pattern) {
+      this.argument = argument;
+      this.value = value;
+      this.pattern = pattern;
+    }
+
+    boolean matches(final Object[] args) {
+      String actual = MethodArguments.stringValue(args[argument]);
+      if (value != null) {
+        return value.equals(actual);
+      }
+      assert pattern != null;
+      return pattern.matcher(actual).matches();
+    }
+  }
+}
@@ -0,0 +1,218 @@
+package co.infinum.retromock;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+import okio.Buffer;
+
+/**
+ * Response body template compiled from {@link co.infinum.retromock.meta.MockResponse} body.
+ * Placeholders are written as {@code {{name}}}. The template is parsed and its placeholders bound
+ * to service method parameters once, when it is compiled; it is then rendered on every call with
+ * that call's arguments, which only walks the compiled segments.
+ * <p>
+ * Supported placeholders:
+ * <ul>
+ *   <li>{@code {{name}}} references an argument as resolved by {@link MethodArguments},</li>
+ *   <li>{@code {{body}}} references an argument annotated with {@code @Body} and
+ *   {@code {{body.a.b}}} a field of it.</li>
+ * </ul>
+ */
+final class ResponseTemplate {
+
+  /**
+   * Opening placeholder delimiter.
+   */
+  private static final String OPEN = "{{";
+
+  /**
+   * Closing placeholder delimiter.
+   */
+  private static final String CLOSE = "}}";
+
+  /**
+   * Compiled template segments in the order they are rendered.
+   */
+  private final Segment[] segments;
+
+  private ResponseTemplate(final Segment[] segments) {
+    this.segments = segments;
+  }
+
+  /**
+   * Checks whether the input contains at least one placeholder.
+   *
+   * @param input Template source.
+   * @return {@code true} if the input has to be compiled.
+   */
+  static boolean hasPlaceholders(final String input) {
+    int start = input.indexOf(OPEN);
+    return start >= 0 && input.indexOf(CLOSE, start + OPEN.length()) >= 0;
+  }
+
+  /**
+   * Compiles a template against parameters of a service method.
+   *
+   * @param input  Template source.
+   * @param method Service method which arguments are referenced by placeholders.
+   * @return Compiled template.
+   * @throws IllegalArgumentException if a placeholder cannot be resolved.
+   */
+  static ResponseTemplate compile(final String input, final Method method) {
+    MethodArguments arguments = new MethodArguments(method);
+    List<Segment> segments = new ArrayList<>();
+
+    int position = 0;
+    while (position < input.length()) {
+      int start = input.indexOf(OPEN, position);
+      int end = start < 0 ? -1 : input.indexOf(CLOSE, start + OPEN.length());
+      if (end < 0) {
+        segments.add(new Literal(input.substring(position)));
+        break;
+      }
+      if (start > position) {
+        segments.add(new Literal(input.substring(position, start)));
+      }
+      String name = input.substring(start + OPEN.length(), end).trim();
+      segments.add(resolve(name, arguments));
+      position = end + CLOSE.length();
+    }
+
+    return new ResponseTemplate(segments.toArray(new Segment[0]));
+  }
+
+  /**
+   * Renders this template into the sink.
+   *
+   * @param sink Buffer to write the rendered body to.
+   * @param args Service method arguments.
+   */
+  void writeTo(final Buffer sink, final Object[] args) {
+    for (Segment segment : segments) {
+      segment.writeTo(sink, args);
+    }
+  }
+
+  /**
+   * Renders this template into a string.
+   *
+   * @param args Service method arguments.
+   * @return Rendered template.
+   */
+  String render(final Object[] args) {
+    Buffer buffer = new Buffer();
+    writeTo(buffer, args);
+    return buffer.readUtf8();
+  }
+
+  private abstract static class Segment {
+
+    abstract void writeTo(Buffer sink, Object[] args);
+  }
+
+  private static final class Literal extends Segment {
+
+    /**
+     * UTF-8 encoded literal text.
+     */
+    private final byte[] bytes;
+
+    Literal(final String text) {
+      this.bytes = text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    void writeTo(final Buffer sink, final Object[] args) {
+      sink.write(bytes);
+    }
+  }
+
+  private static final class Argument extends Segment {
+
+    /**
+     * Index of the referenced argument.
+     */
+    private final int index;
+
+    /**
+     * Field getters applied to the argument, in order.
+     */
+    private final MethodHandle[] getters;
+
+    Argument(final int index, final MethodHandle[] getters) {
+      this.index = index;
+      this.getters = getters;
+    }
+
+    @Override
+    void writeTo(final Buffer sink, final Object[] args) {
+      Object value = args[index];
+      for (int i = 0; i < getters.length && value != null; i++) {
+        try {
+          value = getters[i].invoke(value);
+        } catch (Throwable e) {
+          throw new IllegalStateException("Cannot read template value.", e);
+        }
+      }
+      sink.writeUtf8(MethodArguments.stringValue(value));
+    }
+  }
+
+  private static Segment resolve(final String name, final MethodArguments arguments) {
+    if (name.equals(MethodArguments.BODY) || name.startsWith(MethodArguments.BODY + ".")) {
+      int index = arguments.bodyIndex();
+      String[] path = name.equals(MethodArguments.BODY)
+        ? new String[0]
+        : name.substring(MethodArguments.BODY.length() + 1).split("\\.");
+      Type type = arguments.method().getGenericParameterTypes()[index];
+      return new Argument(index, resolveGetters(type, path, arguments, name));
+    }
+    return new Argument(arguments.indexOf(name), new MethodHandle[0]);
+  }
+
+  private static MethodHandle[] resolveGetters(
+    final Type type,
+    final String[] path,
+    final MethodArguments arguments,
+    final String name) {
+
+    MethodHandle[] getters = new MethodHandle[path.length];
+    Class<?> current = Utils.getRawType(type);
+    for (int i = 0; i < path.length; i++) {
+      Field field = findField(current, path[i]);
+      if (field == null) {
+        throw arguments.error(name, current.getName() + " has no field " + path[i]);
+      }
+      try {
+        field.setAccessible(true);
+        getters[i] = MethodHandles.lookup().unreflectGetter(field);
+      } catch (IllegalAccessException | RuntimeException e) {
+        throw new IllegalArgumentException("Cannot access field " + field + " referenced in "
+          + "template of " + arguments.method().getDeclaringClass().getName() + "."
+          + arguments.method().getName(), e);
+      }
+      current = field.getType();
+    }
+    return getters;
+  }
+
+  @Nullable
+  private static Field findField(final Class<?> type, final String name) {
+    for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+      try {
+        return c.getDeclaredField(name);
+      } catch (NoSuchFieldException ignored) {
+        // check superclass
+      }
+    }
+    return null;
+  }
+}
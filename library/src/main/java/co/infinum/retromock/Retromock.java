@@ -4,10 +4,13 @@ import co.infinum.retromock.meta.Mock;
 import co.infinum.retromock.meta.MockBehavior;
 import co.infinum.retromock.meta.MockResponse;
 import okhttp3.MediaType;
-import okhttp3.Protocol;
-import okhttp3.Request;
+import okhttp3.OkHttpClient;
 import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ForwardingSource;
 import okio.Okio;
+import okio.Source;
 import retrofit2.Call;
 import retrofit2.CallAdapter;
 import retrofit2.Callback;
@@ -18,17 +21,24 @@ import retrofit2.Retrofit;
 import javax.annotation.Nullable;
 
 import java.io.IOException;
+import java.lang.annotation.Annotation;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
+import java.lang.reflect.Type;
 import java.net.HttpURLConnection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 /**
  * Retromock adapts {@link Retrofit} created Java interface using annotations on declared methods
@@ -87,11 +97,62 @@ public final class Retromock {
     static final class DisabledException extends Exception {
     }
 
+    /**
+     * Template body factory used if no instance is registered explicitly.
+     */
+    private static final TemplateBodyFactory DEFAULT_TEMPLATE_BODY_FACTORY = new TemplateBodyFactory();
+
+    /**
+     * Hands mocked bodies of methods returning {@link ResponseBody} through as they are.
+     */
+    private static final Converter<ResponseBody, ResponseBody> PASSTHROUGH_CONVERTER =
+            new Converter<ResponseBody, ResponseBody>() {
+                @Override
+                public ResponseBody convert(final ResponseBody value) {
+                    return value;
+                }
+            };
+
+    /**
+     * Type of a plain {@code Call}, used to look up the adapter of Retrofit's built-in call adapter
+     * factory.
+     */
+    private static final Type CALL_TYPE = new Utils.ParameterizedTypeImpl(null, Call.class, Object.class);
+
     /**
      * The underlying Retrofit instance for making actual network calls.
      */
     private final Retrofit retrofit;
 
+    /**
+     * Retrofit instance used to create delegate services, records responses in record mode.
+     */
+    private final Retrofit delegateRetrofit;
+
+    /**
+     * Store responses are recorded to, {@code null} if not in record mode.
+     */
+    @Nullable
+    private final FixtureStore fixtureStore;
+
+    /**
+     * Store responses are replayed from, {@code null} if not in replay mode.
+     */
+    @Nullable
+    private final FixtureStore replayStore;
+
+    /**
+     * Index of the replayed store, {@code null} if not in replay mode.
+     */
+    @Nullable
+    private final FixtureIndex fixtureIndex;
+
+    /**
+     * Factory of replayed bodies, {@code null} if not in replay mode.
+     */
+    @Nullable
+    private final FixtureBodyFactory fixtureBodyFactory;
+
     /**
      * Map of body factory classes to their instances for creating response bodies.
      */
@@ -103,9 +164,9 @@ public final class Retromock {
     private final Map<Method, RetromockMethod> methodCache;
 
     /**
-     * Cache of methods to their corresponding call wrappers.
+     * Cache of methods to their corresponding call or flow wrappers.
      */
-    private final Map<Method, CallWrapper> callWrapperCache;
+    private final Map<Method, MethodWrapper> callWrapperCache;
 
     /**
      * Flag indicating whether to eagerly load method configurations.
@@ -113,41 +174,72 @@ public final class Retromock {
     private final boolean eagerlyLoad;
 
     /**
-     * Executor service for running background tasks.
+     * Default behavior to use when no specific behavior is configured for a method.
      */
-    private final ExecutorService backgroundExecutor;
+    private final Behavior defaultBehavior;
 
     /**
-     * Executor for running callbacks on the appropriate thread.
+     * Default body factory to use when no specific body factory is configured.
      */
-    private final Executor callbackExecutor;
+    private final BodyFactory defaultBodyFactory;
 
     /**
-     * Default behavior to use when no specific behavior is configured for a method.
+     * Provider of the current scope for methods annotated with
+     * {@link co.infinum.retromock.meta.MockScoped}, {@code null} for a single shared scope.
      */
-    private final Behavior defaultBehavior;
+    @Nullable
+    private final ScopeProvider scopeProvider;
 
     /**
-     * Default body factory to use when no specific body factory is configured.
+     * Executors and settings shared by all mocked calls.
      */
-    private final BodyFactory defaultBodyFactory;
+    private final CallConfig callConfig;
+
+    /**
+     * Class of call adapters created by Retrofit's built-in factory, which hands a {@code Call}
+     * through, {@code null} if the factory is not found.
+     */
+    @Nullable
+    private final Class<?> defaultCallAdapterClass;
+
+    /**
+     * Flag indicating whether replayed calls are delayed by recorded latencies by default.
+     */
+    private final boolean replayLatencies;
+
+    /**
+     * Number of mocked calls submitted to the background executor that did not start yet.
+     */
+    private final AtomicInteger queuedCalls = new AtomicInteger();
 
     private Retromock(final Retrofit retrofit,
+                      final Retrofit delegateRetrofit,
+                      @Nullable final FixtureStore fixtureStore,
+                      @Nullable final FixtureStore replayStore,
+                      @Nullable final FixtureIndex fixtureIndex,
                       final Map<Class<? extends BodyFactory>, BodyFactory> bodyFactories,
                       final boolean eagerlyLoad,
-                      final ExecutorService backgroundExecutor,
-                      final Executor callbackExecutor,
                       final Behavior defaultBehavior,
-                      final BodyFactory bodyFactory) {
+                      final BodyFactory bodyFactory,
+                      @Nullable final ScopeProvider scopeProvider,
+                      final CallConfig callConfig,
+                      final boolean replayLatencies) {
         this.retrofit = retrofit;
+        this.delegateRetrofit = delegateRetrofit;
+        this.fixtureStore = fixtureStore;
+        this.replayStore = replayStore;
+        this.fixtureIndex = fixtureIndex;
+        this.fixtureBodyFactory = replayStore != null ? new FixtureBodyFactory(replayStore) : null;
         this.bodyFactories = bodyFactories;
         this.methodCache = new HashMap<>();
         this.callWrapperCache = new HashMap<>();
         this.eagerlyLoad = eagerlyLoad;
-        this.backgroundExecutor = backgroundExecutor;
-        this.callbackExecutor = callbackExecutor;
         this.defaultBehavior = defaultBehavior;
         this.defaultBodyFactory = bodyFactory;
+        this.scopeProvider = scopeProvider;
+        this.callConfig = callConfig;
+        this.defaultCallAdapterClass = defaultCallAdapterClass(retrofit);
+        this.replayLatencies = replayLatencies;
     }
 
     /**
@@ -198,7 +290,7 @@ public final class Retromock {
      * service
      */
     public <T> T create(final Class<T> service) {
-        return create(createDelegate(retrofit, service), service);
+        return create(createDelegate(delegateRetrofit, service), service);
     }
 
     /**
@@ -266,6 +358,10 @@ public final class Retromock {
                         if (method.getDeclaringClass() == Object.class) {
                             return method.invoke(this, args);
                         }
+                        if (fixtureStore != null) {
+                            // record mode, all calls go to the delegate
+                            return method.invoke(delegate, args);
+                        }
 
                         RetromockMethod mockMethod;
                         try {
@@ -275,30 +371,81 @@ public final class Retromock {
                             return method.invoke(delegate, args);
                         }
 
-                        CallWrapper callWrapper = findCallWrapper(method);
-
-                        final CallAdapter<?, T> callAdapter = (CallAdapter<?, T>) retrofit
-                                .callAdapter(callWrapper.getReturnType(), method.getAnnotations());
+                        MethodWrapper wrapper = findCallWrapper(method);
 
                         final ParamsProducer producer = mockMethod.producer();
+                        final CallEvents events = mockMethod.events();
+                        final Object scope = mockMethod.scoped() && scopeProvider != null
+                                ? scopeProvider.currentScope()
+                                : null;
+
+                        if (wrapper instanceof FlowWrapper) {
+                            // flows are collected in a coroutine, no call is adapted
+                            final Converter<ResponseBody, T> converter = responseConverter(
+                                    mockMethod, wrapper.getActualType(), method);
+                            return ((FlowWrapper<T>) wrapper).mock(new Supplier<Callable<Response<T>>>() {
+                                @Override
+                                public Callable<Response<T>> get() {
+                                    // each collection iterates responses on its own
+                                    final ParamsProducer collection = producer.collection();
+                                    return new Callable<Response<T>>() {
+                                        @Override
+                                        public Response<T> call() throws IOException {
+                                            return createResponse(converter, method,
+                                                    collection.produce(args, scope), events);
+                                        }
+                                    };
+                                }
+                            }, mockMethod.emissions(), mockMethod.behavior(), method, events);
+                        }
+
+                        CallWrapper callWrapper = (CallWrapper) wrapper;
+
+                        final CallAdapter<?, T> callAdapter = callAdapter(mockMethod, callWrapper, method);
+
+                        if (callWrapper instanceof SuspendCallWrapper && isDefaultCallAdapter(callAdapter)) {
+                            // suspend methods are mocked in the calling coroutine unless a custom
+                            // call adapter handles their calls
+                            final Converter<ResponseBody, T> converter = responseConverter(
+                                    mockMethod, callAdapter.responseType(), method);
+                            return ((SuspendCallWrapper<T>) callWrapper).mock(new Callable<Response<T>>() {
+                                @Override
+                                public Response<T> call() throws IOException {
+                                    return createResponse(converter, method, producer.produce(args, scope), events);
+                                }
+                            }, mockMethod.behavior(), method, events, args);
+                        }
+
+                        if (callWrapper instanceof RxJavaCallWrapper) {
+                            // delays of RxJava types are timers, so no thread blocks on execute()
+                            final Converter<ResponseBody, T> converter = responseConverter(
+                                    mockMethod, callAdapter.responseType(), method);
+                            return ((RxJavaCallWrapper<T>) callWrapper).mock(
+                                    (CallAdapter<T, ?>) callAdapter,
+                                    new Callable<Response<T>>() {
+                                        @Override
+                                        public Response<T> call() throws IOException {
+                                            return createResponse(converter, method, producer.produce(args, scope), events);
+                                        }
+                                    }, mockMethod.behavior(), method, events, callConfig.delayScheduler());
+                        }
 
                         Call<?> mockedCall = Calls.defer(new Callable<Call<T>>() {
                             @Override
                             public Call<T> call() throws IOException {
                                 return Calls.response(createResponse(
-                                        retrofit.<T>responseBodyConverter(
-                                                callAdapter.responseType(),
-                                                method.getAnnotations()
-                                        ), producer.produce(args)
+                                        Retromock.this.<T>responseConverter(mockMethod, callAdapter.responseType(), method),
+                                        method, producer.produce(args, scope), events
                                 ));
                             }
                         });
 
                         Object call = callAdapter.adapt(new RetromockCall(
                                 mockMethod.behavior(),
-                                backgroundExecutor,
-                                callbackExecutor,
-                                mockedCall
+                                mockedCall,
+                                method,
+                                events,
+                                callConfig
                         ));
 
                         return callWrapper.wrap(call, args);
@@ -307,19 +454,19 @@ public final class Retromock {
     }
 
     /**
-     * Finds or creates a {@link CallWrapper} for the specified method.
+     * Finds or creates a {@link MethodWrapper} for the specified method.
      *
-     * <p>This method first attempts to retrieve a cached {@link CallWrapper} for the given method.
-     * If the {@link CallWrapper} is not found in the cache, it synchronizes on the cache to ensure
-     * thread safety and checks the cache again. If the {@link CallWrapper} is still not found,
+     * <p>This method first attempts to retrieve a cached {@link MethodWrapper} for the given method.
+     * If the {@link MethodWrapper} is not found in the cache, it synchronizes on the cache to ensure
+     * thread safety and checks the cache again. If the {@link MethodWrapper} is still not found,
      * it creates a new one using the {@link CallWrapperFactory} and adds it to the cache.
      *
-     * @param method the {@link Method} for which to find or create a {@link CallWrapper}
-     * @param <T>    the type of the {@link CallWrapper} to be created
-     * @return the existing or newly created {@link CallWrapper} for the specified method
+     * @param method the {@link Method} for which to find or create a {@link MethodWrapper}
+     * @param <T>    the type of the {@link MethodWrapper} to be created
+     * @return the existing or newly created {@link MethodWrapper} for the specified method
      */
-    public <T> CallWrapper findCallWrapper(final Method method) {
-        CallWrapper result = callWrapperCache.get(method);
+    public <T> MethodWrapper findCallWrapper(final Method method) {
+        MethodWrapper result = callWrapperCache.get(method);
         if (result != null) {
             return result;
         }
@@ -335,7 +482,53 @@ public final class Retromock {
         return result;
     }
 
-    private RetromockMethod findRetromockMethod(final Method method) throws DisabledException {
+    /**
+     * Resets response iteration state of all service methods created by this instance, so each
+     * method returns responses as if it was called for the first time. Service methods are not
+     * parsed again and already created services keep working.
+     * <p>
+     * Calls that are mocked concurrently with reset may observe either state.
+     */
+    public void reset() {
+        for (RetromockMethod method : loadedMethods().values()) {
+            method.reset();
+        }
+    }
+
+    /**
+     * Captures response iteration state of all service methods loaded so far.
+     *
+     * @return Snapshot that can be passed to {@link #restore(Snapshot)}.
+     */
+    public Snapshot snapshot() {
+        Map<Method, RetromockMethod> methods = loadedMethods();
+        Map<Method, Object> states = new HashMap<>();
+        for (Map.Entry<Method, RetromockMethod> entry : methods.entrySet()) {
+            states.put(entry.getKey(), entry.getValue().snapshot());
+        }
+        return new Snapshot(states);
+    }
+
+    /**
+     * Restores response iteration state captured by {@link #snapshot()}. Methods loaded after the
+     * snapshot was taken are reset.
+     *
+     * @param snapshot State to restore.
+     */
+    public void restore(final Snapshot snapshot) {
+        Preconditions.checkNotNull(snapshot, "Snapshot is null.");
+        for (Map.Entry<Method, RetromockMethod> entry : loadedMethods().entrySet()) {
+            entry.getValue().restore(snapshot.states.get(entry.getKey()));
+        }
+    }
+
+    private Map<Method, RetromockMethod> loadedMethods() {
+        synchronized (methodCache) {
+            return new HashMap<>(methodCache);
+        }
+    }
+
+    RetromockMethod findRetromockMethod(final Method method) throws DisabledException {
         RetromockMethod result = methodCache.get(method);
         if (result != null) {
             return result;
@@ -352,6 +545,58 @@ public final class Retromock {
         return result;
     }
 
+    @SuppressWarnings("unchecked")
+    private <T> CallAdapter<?, T> callAdapter(
+            final RetromockMethod mockMethod,
+            final CallWrapper callWrapper,
+            final Method method) {
+
+        CallAdapter<?, T> callAdapter = (CallAdapter<?, T>) mockMethod.callAdapter();
+        if (callAdapter == null) {
+            // looked up once per method, as Retrofit does for its service methods
+            callAdapter = (CallAdapter<?, T>) retrofit
+                    .callAdapter(callWrapper.getReturnType(), method.getAnnotations());
+            mockMethod.callAdapter(callAdapter);
+        }
+        return callAdapter;
+    }
+
+    private boolean isDefaultCallAdapter(final CallAdapter<?, ?> callAdapter) {
+        return callAdapter.getClass() == defaultCallAdapterClass;
+    }
+
+    @Nullable
+    private static Class<?> defaultCallAdapterClass(final Retrofit retrofit) {
+        // Retrofit adds its built-in factories after the configured ones, the Call one is the last
+        List<CallAdapter.Factory> factories = retrofit.callAdapterFactories();
+        if (factories.isEmpty()) {
+            return null;
+        }
+        CallAdapter<?, ?> callAdapter = factories.get(factories.size() - 1)
+                .get(CALL_TYPE, new Annotation[0], retrofit);
+        return callAdapter != null ? callAdapter.getClass() : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> Converter<ResponseBody, T> responseConverter(
+            final RetromockMethod mockMethod,
+            final Type type,
+            final Method method) {
+
+        Converter<ResponseBody, T> converter = (Converter<ResponseBody, T>) mockMethod.converter();
+        if (converter == null) {
+            if (type == ResponseBody.class && mockMethod.events() == null) {
+                // Retrofit buffers bodies to release the connection, mocked bodies have none, so
+                // buffering would only copy them. Observed calls still count bytes read by buffering.
+                converter = (Converter<ResponseBody, T>) (Converter<ResponseBody, ?>) PASSTHROUGH_CONVERTER;
+            } else {
+                converter = retrofit.responseBodyConverter(type, method.getAnnotations());
+            }
+            mockMethod.converter(converter);
+        }
+        return converter;
+    }
+
     BodyFactory bodyFactory(final Class<? extends BodyFactory> type) {
         if (type == BodyFactory.class) {
             return defaultBodyFactory;
@@ -360,10 +605,24 @@ public final class Retromock {
         if (factory != null) {
             return factory;
         }
+        if (type == TemplateBodyFactory.class) {
+            return DEFAULT_TEMPLATE_BODY_FACTORY;
+        }
         throw new IllegalStateException(
                 "BodyFactory for type " + type.getName() + " does not exist.");
     }
 
+    boolean isTemplateBodyFactory(final Class<? extends BodyFactory> type) {
+        if (type == BodyFactory.class) {
+            return defaultBodyFactory instanceof TemplateBodyFactory;
+        }
+        return type == TemplateBodyFactory.class;
+    }
+
+    Retrofit retrofit() {
+        return retrofit;
+    }
+
     BodyFactory defaultBodyFactory() {
         return defaultBodyFactory;
     }
@@ -377,11 +636,44 @@ public final class Retromock {
     }
 
     ExecutorService backgroundExecutor() {
-        return backgroundExecutor;
+        return callConfig.backgroundExecutor();
     }
 
     Executor callbackExecutor() {
-        return callbackExecutor;
+        return callConfig.callbackExecutor();
+    }
+
+    @Nullable
+    ScopeProvider scopeProvider() {
+        return scopeProvider;
+    }
+
+    boolean replayLatencies() {
+        return replayLatencies;
+    }
+
+    @Nullable
+    FixtureStore fixtureStore() {
+        return fixtureStore;
+    }
+
+    @Nullable
+    FixtureIndex fixtureIndex() {
+        return fixtureIndex;
+    }
+
+    @Nullable
+    FixtureBodyFactory fixtureBodyFactory() {
+        return fixtureBodyFactory;
+    }
+
+    @Nullable
+    CallEvents callEvents(final Method method) {
+        CallListener listener = callConfig.listener();
+        if (listener == null) {
+            return null;
+        }
+        return new CallEvents(listener, method, queuedCalls);
     }
 
     private static <T> DelegateFactory<T> createDelegate(
@@ -407,47 +699,60 @@ public final class Retromock {
 
     private static <T> Response<T> createResponse(
             final Converter<ResponseBody, T> converter,
-            final ResponseParams params) throws IOException {
+            final Method method,
+            final ResponseParams params,
+            @Nullable final CallEvents events) throws IOException {
 
+        long startNanos = events != null ? System.nanoTime() : 0;
         RetromockBodyFactory factory = params.bodyFactory();
+        CountingSource counter = null;
 
         ResponseBody responseBody = null;
         if (factory != null) {
 
-            String contentType = params.contentType();
-            MediaType mediaType = null;
-            if (contentType != null) {
-                mediaType = MediaType.parse(contentType);
+            MediaType mediaType = params.mediaType();
+            Object bodyEvent = MockEvents.begin(MockEvents.Kind.BODY);
+            BufferedSource source = factory.createSource();
+            long contentLength = params.contentLength();
+            if (source instanceof Buffer) {
+                // rendered templates know their exact size
+                contentLength = ((Buffer) source).size();
+            }
+            MockEvents.end(bodyEvent, method, contentLength);
+            if (events != null) {
+                counter = new CountingSource(source);
+                source = Okio.buffer(counter);
             }
 
-            responseBody = ResponseBody.create(
-                    mediaType,
-                    params.contentLength(),
-                    Okio.buffer(Okio.source(factory.createBody())));
+            responseBody = ResponseBody.create(mediaType, contentLength, source);
         }
 
-        okhttp3.Response rawResponse = new okhttp3.Response.Builder()
-                .code(params.code())
-                .message(params.message())
-                .body(responseBody)
-                .protocol(Protocol.HTTP_1_1)
-                .headers(params.headers())
-                .request(new Request.Builder().url("http://localhost").build())
-                .build();
+        okhttp3.Response rawResponse = params.rawResponse(responseBody);
 
         assert rawResponse.body() != null;
         if (!rawResponse.isSuccessful()) {
+            if (events != null) {
+                events.responseCreated(startNanos, rawResponse.body().contentLength());
+            }
             return Response.error(rawResponse.body(), rawResponse);
         } else {
             try {
                 T body = null;
                 if (rawResponse.code() != HttpURLConnection.HTTP_NO_CONTENT
                         && rawResponse.code() != HttpURLConnection.HTTP_RESET) {
-                    body = converter.convert(rawResponse.body());
+                    Object conversionEvent = MockEvents.begin(MockEvents.Kind.CONVERSION);
+                    try {
+                        body = converter.convert(rawResponse.body());
+                    } finally {
+                        MockEvents.end(conversionEvent, method, 0);
+                    }
                 } else {
                     // 204 and 205 must not include a body
                     rawResponse.close();
                 }
+                if (events != null) {
+                    events.responseCreated(startNanos, counter != null ? counter.count : 0);
+                }
                 return Response.success(body, rawResponse);
             } catch (IOException e) {
                 throw new RuntimeException("Error while converting mocked response!", e);
@@ -455,6 +760,30 @@ public final class Retromock {
         }
     }
 
+    /**
+     * Counts bytes read from the response body.
+     */
+    private static final class CountingSource extends ForwardingSource {
+
+        /**
+         * Number of bytes read so far.
+         */
+        private long count;
+
+        CountingSource(final Source delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public long read(final Buffer sink, final long byteCount) throws IOException {
+            long read = super.read(sink, byteCount);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+    }
+
     /**
      * Creates a new builder instance with state same as in this instance.
      *
@@ -464,6 +793,30 @@ public final class Retromock {
         return new Builder(this);
     }
 
+    /**
+     * Response iteration state of service methods captured by {@link Retromock#snapshot()}.
+     */
+    public static final class Snapshot {
+
+        /**
+         * Opaque iteration state by service method.
+         */
+        private final Map<Method, Object> states;
+
+        Snapshot(final Map<Method, Object> states) {
+            this.states = Collections.unmodifiableMap(states);
+        }
+
+        /**
+         * Service methods which state is captured in this snapshot.
+         *
+         * @return Set of service methods.
+         */
+        public Set<Method> methods() {
+            return states.keySet();
+        }
+    }
+
     static class SyncExecutor implements Executor {
 
         @Override
@@ -514,6 +867,52 @@ public final class Retromock {
          */
         private BodyFactory defaultBodyFactory;
 
+        /**
+         * Provider of the current scope for methods annotated with
+         * {@link co.infinum.retromock.meta.MockScoped}.
+         */
+        private ScopeProvider scopeProvider;
+
+        /**
+         * Listener of mocked call events.
+         */
+        private CallListener callListener;
+
+        /**
+         * Flag indicating whether response delay is measured from the moment a call is started.
+         */
+        private boolean delayFromStart;
+
+        /**
+         * Scheduler enqueued calls are delayed on.
+         */
+        private ScheduledExecutorService delayScheduler;
+
+        /**
+         * Flag indicating whether responses of enqueued calls are converted on the callback executor.
+         */
+        private boolean lazyConversion;
+
+        /**
+         * Flag indicating whether callbacks are posted to the callback executor in batches.
+         */
+        private boolean batchCallbacks;
+
+        /**
+         * Store responses are recorded to in record mode.
+         */
+        private FixtureStore fixtureStore;
+
+        /**
+         * Store responses are replayed from in replay mode.
+         */
+        private FixtureStore replayStore;
+
+        /**
+         * Flag indicating whether replayed calls are delayed by recorded latencies by default.
+         */
+        private boolean replayLatencies;
+
         /**
          * Creates default instance of Builder.
          */
@@ -528,10 +927,23 @@ public final class Retromock {
         Builder(final Retromock retromock) {
             this.retrofit = retromock.retrofit;
             this.loadEagerly = retromock.eagerlyLoad;
-            this.backgroundExecutor = retromock.backgroundExecutor;
-            this.callbackExecutor = retromock.callbackExecutor;
+            CallConfig callConfig = retromock.callConfig;
+            this.backgroundExecutor = callConfig.backgroundExecutor();
+            this.callbackExecutor = callConfig.callbackExecutor();
+            this.batchCallbacks = callConfig.batchCallbacks();
+            if (batchCallbacks) {
+                this.callbackExecutor = ((BatchingExecutor) callbackExecutor).delegate();
+            }
             this.defaultBehavior = retromock.defaultBehavior;
             this.defaultBodyFactory = retromock.defaultBodyFactory;
+            this.scopeProvider = retromock.scopeProvider;
+            this.callListener = callConfig.listener();
+            this.delayFromStart = callConfig.delayFromStart();
+            this.delayScheduler = callConfig.delayScheduler();
+            this.lazyConversion = callConfig.lazyConversion();
+            this.fixtureStore = retromock.fixtureStore;
+            this.replayStore = retromock.replayStore;
+            this.replayLatencies = retromock.replayLatencies;
 
             bodyFactories.putAll(retromock.bodyFactories);
 
@@ -627,6 +1039,144 @@ public final class Retromock {
             return this;
         }
 
+        /**
+         * Specify a provider of the current scope for service methods annotated with
+         * {@link co.infinum.retromock.meta.MockScoped}. Provider is called on the thread that
+         * invokes a service method. If not set, all calls share the same scope.
+         *
+         * @param scopeProvider Provider of the current scope.
+         * @return this {@link Builder}.
+         */
+        public Builder scopeProvider(@Nullable final ScopeProvider scopeProvider) {
+            this.scopeProvider = scopeProvider;
+            return this;
+        }
+
+        /**
+         * Specify a listener of mocked call events, e.g. {@link CallMetrics}. Calls are not timed
+         * if the listener is not set.
+         *
+         * @param callListener Listener of mocked call events.
+         * @return this {@link Builder}.
+         */
+        public Builder callListener(@Nullable final CallListener callListener) {
+            this.callListener = callListener;
+            return this;
+        }
+
+        /**
+         * Measure response delay from the moment a call is executed or enqueued instead of from
+         * the moment the background executor starts it. Time a call spends waiting for a busy
+         * background executor is then subtracted from its delay, so responses are delivered at
+         * {@code start + delay} whenever possible. Disabled by default.
+         *
+         * @param delayFromStart true to measure delay from the moment a call is started.
+         * @return this {@link Builder}.
+         */
+        public Builder delayFromStart(final boolean delayFromStart) {
+            this.delayFromStart = delayFromStart;
+            return this;
+        }
+
+        /**
+         * Delay enqueued calls on a scheduler instead of sleeping on the background executor. A call
+         * is scheduled to run once its delay elapses, so no thread is blocked while calls wait for
+         * their responses, e.g. when using asynchronous call adapters. Responses are created on the
+         * scheduler's threads and delay is always measured from the moment a call is enqueued.
+         * Methods returning RxJava 3 types schedule their delay timers on it too. Not set by default.
+         *
+         * @param delayScheduler Scheduler calls are delayed on, {@code null} to sleep on the
+         *                       background executor.
+         * @return this {@link Builder}.
+         */
+        public Builder delayScheduler(@Nullable final ScheduledExecutorService delayScheduler) {
+            this.delayScheduler = delayScheduler;
+            return this;
+        }
+
+        /**
+         * Create and convert responses of enqueued calls on the callback executor right before their
+         * callbacks run, instead of on the background executor. Expensive deserialization then
+         * doesn't hold up other calls waiting for the background executor, and calls canceled
+         * before their callbacks run are never converted. Executed calls always convert responses
+         * on the calling thread. Disabled by default.
+         *
+         * @param lazyConversion true to convert responses on the callback executor.
+         * @return this {@link Builder}.
+         */
+        public Builder lazyConversion(final boolean lazyConversion) {
+            this.lazyConversion = lazyConversion;
+            return this;
+        }
+
+        /**
+         * Post callbacks of mocked calls to the callback executor in batches. Callbacks of calls
+         * that complete before the callback executor runs the previous batch are coalesced into a
+         * single {@link Executor#execute(Runnable)} call, e.g. a single main thread message on
+         * Android. Disabled by default.
+         *
+         * @param batchCallbacks true to post callbacks in batches.
+         * @return this {@link Builder}.
+         */
+        public Builder batchCallbacks(final boolean batchCallbacks) {
+            this.batchCallbacks = batchCallbacks;
+            return this;
+        }
+
+        /**
+         * Enable record mode. All service method calls, mocked or not, are delegated to Retrofit
+         * and their responses are recorded to the store using {@link FixtureRecorder}. Retrofit
+         * instance has to use {@link OkHttpClient} as its call factory.
+         * <p>
+         * Services created with a custom {@link DelegateFactory} are delegated to as well, but
+         * their responses are recorded only if their client has {@link FixtureRecorder}.
+         *
+         * @param fixtureStore Store to record responses to, {@code null} to disable record mode.
+         * @return this {@link Builder}.
+         */
+        public Builder recordTo(@Nullable final FixtureStore fixtureStore) {
+            this.fixtureStore = fixtureStore;
+            return this;
+        }
+
+        /**
+         * Enable replay mode. Service method calls are served with responses recorded to the
+         * store, looked up by service method and values of its {@code @Path}, {@code @Query},
+         * {@code @Header} and {@code @Field} arguments. Methods are replayed even if they are not
+         * annotated with {@link Mock}, unless it is explicitly disabled with {@code @Mock(false)}.
+         * <p>
+         * If a call was not recorded, responses defined by {@link MockResponse} or
+         * {@link co.infinum.retromock.meta.MockResponseProvider} are used instead if the method
+         * has them, otherwise the call fails.
+         * <p>
+         * The store index is loaded by {@link #build()}. It is built and saved to the store first
+         * if the store was recorded to since it was last loaded.
+         *
+         * @param replayStore Store to replay responses from, {@code null} to disable replay mode.
+         * @return this {@link Builder}.
+         */
+        public Builder replayFrom(@Nullable final FixtureStore replayStore) {
+            this.replayStore = replayStore;
+            return this;
+        }
+
+        /**
+         * Delay replayed calls by latencies recorded for their service method instead of the
+         * default {@link Behavior}. Delays are randomly drawn from the recorded latencies, so they
+         * follow the recorded distribution including its tail. Methods annotated with
+         * {@link co.infinum.retromock.meta.MockBehavior} use recorded latencies only if its
+         * {@code recorded} is set, methods with no recorded latencies use the default behavior.
+         * <p>
+         * Has effect only in replay mode, see {@link #replayFrom(FixtureStore)}.
+         *
+         * @param replayLatencies true to delay replayed calls by recorded latencies.
+         * @return this {@link Builder}.
+         */
+        public Builder replayLatencies(final boolean replayLatencies) {
+            this.replayLatencies = replayLatencies;
+            return this;
+        }
+
         /**
          * Create the {@link Retromock} instance using the configured values.
          * <p>
@@ -661,6 +1211,9 @@ public final class Retromock {
             if (callbackExecutor == null) {
                 callbackExecutor = new SyncExecutor();
             }
+            if (batchCallbacks) {
+                callbackExecutor = new BatchingExecutor(callbackExecutor);
+            }
 
             Behavior behavior = this.defaultBehavior;
             if (behavior == null) {
@@ -672,14 +1225,51 @@ public final class Retromock {
                 bodyFactory = new PassThroughBodyFactory();
             }
 
+            if (fixtureStore != null && replayStore != null) {
+                throw new IllegalStateException("Cannot both record and replay responses.");
+            }
+            FixtureIndex fixtureIndex = null;
+            if (replayStore != null) {
+                try {
+                    fixtureIndex = FixtureIndex.load(replayStore);
+                } catch (IOException e) {
+                    throw new IllegalStateException(
+                            "Cannot load fixtures from " + replayStore.directory(), e);
+                }
+            }
+
+            Retrofit delegateRetrofit = retrofit;
+            if (fixtureStore != null) {
+                if (!(retrofit.callFactory() instanceof OkHttpClient)) {
+                    throw new IllegalStateException("Record mode requires Retrofit with OkHttpClient.");
+                }
+                OkHttpClient client = ((OkHttpClient) retrofit.callFactory()).newBuilder()
+                        .addInterceptor(new FixtureRecorder(fixtureStore))
+                        .build();
+                delegateRetrofit = retrofit.newBuilder().client(client).build();
+            }
+
             return new Retromock(
                     retrofit,
+                    delegateRetrofit,
+                    fixtureStore,
+                    replayStore,
+                    fixtureIndex,
                     Collections.unmodifiableMap(bodyFactories),
                     loadEagerly,
-                    backgroundExecutor,
-                    callbackExecutor,
                     behavior,
-                    bodyFactory
+                    bodyFactory,
+                    scopeProvider,
+                    new CallConfig(
+                            backgroundExecutor,
+                            callbackExecutor,
+                            callListener,
+                            delayFromStart,
+                            delayScheduler,
+                            lazyConversion,
+                            batchCallbacks
+                    ),
+                    replayLatencies
             );
         }
 
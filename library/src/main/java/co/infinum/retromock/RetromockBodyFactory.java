@@ -3,6 +3,11 @@ package co.infinum.retromock;
 import java.io.IOException;
 import java.io.InputStream;
 
+import javax.annotation.Nullable;
+
+import okio.BufferedSource;
+import okio.Okio;
+
 final class RetromockBodyFactory {
 
     /**
@@ -15,12 +20,50 @@ final class RetromockBodyFactory {
      */
   private final String input;
 
+    /**
+     * Compiled input template, {@code null} if input is not a template.
+     */
+  @Nullable
+  private final ResponseTemplate template;
+
+    /**
+     * Service method arguments the template is rendered with.
+     */
+  @Nullable
+  private final Object[] args;
+
   RetromockBodyFactory(final BodyFactory bodyFactory, final String input) {
+    this(bodyFactory, input, null, null);
+  }
+
+  RetromockBodyFactory(
+    final BodyFactory bodyFactory,
+    final String input,
+    @Nullable final ResponseTemplate template,
+    @Nullable final Object[] args) {
+
     this.bodyFactory = bodyFactory;
     this.input = input;
+    this.template = template;
+    this.args = args;
   }
 
   InputStream createBody() throws IOException {
     return bodyFactory.create(input);
   }
+
+  BufferedSource createSource() throws IOException {
+    if (template != null && args != null && bodyFactory instanceof TemplateBodyFactory) {
+      return ((TemplateBodyFactory) bodyFactory).render(template, args);
+    }
+    return Okio.buffer(Okio.source(createBody()));
+  }
+
+  boolean isTemplate() {
+    return template != null;
+  }
+
+  RetromockBodyFactory withArgs(final Object[] args) {
+    return new RetromockBodyFactory(bodyFactory, input, template, args);
+  }
 }
@@ -1,12 +1,14 @@
 package co.infinum.retromock;
 
 import java.io.IOException;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.Executor;
-import java.util.concurrent.ExecutorService;
+import java.lang.reflect.Method;
 import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.annotation.Nullable;
 
 import okhttp3.Request;
 import okio.Timeout;
@@ -22,25 +24,43 @@ final class RetromockCall<T> implements Call<T> {
   private final Behavior behavior;
 
     /**
-     * Executor service for running background tasks.
+     * Executors and settings shared by mocked calls.
      */
-  private final ExecutorService backgroundExecutor;
+  private final CallConfig config;
 
     /**
-     * Executor for running callbacks on the appropriate thread.
+     * The underlying call delegate that performs the actual work.
      */
-  private final Executor callbackExecutor;
+  private final Call<T> delegate;
 
     /**
-     * The underlying call delegate that performs the actual work.
+     * Service method this call is made to, {@code null} if unknown.
      */
-  private final Call<T> delegate;
+  @Nullable
+  private final Method method;
+
+    /**
+     * Reporter of call events, {@code null} if no listener is set.
+     */
+  @Nullable
+  private final CallEvents events;
 
     /**
      * Future representing the currently running background task.
      */
   private volatile Future<?> task;
 
+    /**
+     * Background task, used to report cancellation of a task that never started.
+     */
+  private volatile DelayAndEnqueueRunnable runnable;
+
+    /**
+     * Thread waiting for the delay of an executed call to elapse, {@code null} if none.
+     */
+  @Nullable
+  private volatile Thread waiter;
+
     /**
      * Flag indicating whether this call has been canceled.
      */
@@ -53,14 +73,16 @@ final class RetromockCall<T> implements Call<T> {
 
   RetromockCall(
     final Behavior behavior,
-    final ExecutorService backgroundExecutor,
-    final Executor callbackExecutor,
-    final Call<T> delegate) {
+    final Call<T> delegate,
+    @Nullable final Method method,
+    @Nullable final CallEvents events,
+    final CallConfig config) {
 
     this.behavior = behavior;
-    this.backgroundExecutor = backgroundExecutor;
-    this.callbackExecutor = callbackExecutor;
     this.delegate = delegate;
+    this.method = method;
+    this.events = events;
+    this.config = config;
 
     this.canceled = new AtomicBoolean();
     this.executed = new AtomicBoolean();
@@ -76,79 +98,140 @@ final class RetromockCall<T> implements Call<T> {
     return delegate.timeout();
   }
 
-  private void enqueueInBackground(final Callback<T> callback) {
-    Preconditions.checkNotNull(callback, "Callback is null");
+  private void enqueueInBackground(final Callback<T> callback, @Nullable final Callback<T> directCallback) {
 
     if (!executed.compareAndSet(false, true)) {
       throw new IllegalStateException("Call has already been executed!");
     }
 
-    task = backgroundExecutor.submit(new DelayAndEnqueueRunnable(callback));
+    long startNanos = 0;
+    if (events != null) {
+      startNanos = events.started();
+    } else if (config.delayFromStart()) {
+      startNanos = System.nanoTime();
+    }
+
+    ScheduledExecutorService delayScheduler = config.delayScheduler();
+    if (delayScheduler != null) {
+      // the delay elapses on a timer, so no thread waits for it
+      long delayMillis = behavior.delayMillis();
+      runnable = new DelayAndEnqueueRunnable(callback, directCallback, startNanos, delayMillis,
+        MockEvents.begin(MockEvents.Kind.DELAY), true);
+      task = delayScheduler.schedule(runnable, delayMillis, TimeUnit.MILLISECONDS);
+      return;
+    }
+
+    // with delay measured from start the deadline is fixed now, before the call gets queued
+    long delayMillis = config.delayFromStart() ? behavior.delayMillis() : 0;
+
+    runnable = new DelayAndEnqueueRunnable(callback, directCallback, startNanos, delayMillis,
+      MockEvents.begin(MockEvents.Kind.DELAY), false);
+    task = config.backgroundExecutor().submit(runnable);
   }
 
   @Override
   public void enqueue(final Callback<T> callback) {
+    Preconditions.checkNotNull(callback, "Callback is null");
+
+    final Callback<T> direct = new Callback<T>() {
+      @Override
+      public void onResponse(final Call<T> call, final Response<T> response) {
+        Object event = MockEvents.begin(MockEvents.Kind.CALLBACK);
+        try {
+          callback.onResponse(call, response);
+        } finally {
+          MockEvents.end(event, method, 1);
+        }
+      }
+
+      @Override
+      public void onFailure(final Call<T> call, final Throwable error) {
+        Object event = MockEvents.begin(MockEvents.Kind.CALLBACK);
+        try {
+          callback.onFailure(call, error);
+        } finally {
+          MockEvents.end(event, method, 0);
+        }
+      }
+    };
+
     enqueueInBackground(new Callback<T>() {
       @Override
       public void onResponse(final Call<T> call, final Response<T> response) {
-        callbackExecutor.execute(new Runnable() {
+        config.callbackExecutor().execute(new Runnable() {
           @Override
           public void run() {
-            callback.onResponse(call, response);
+            direct.onResponse(call, response);
           }
         });
       }
 
       @Override
       public void onFailure(final Call<T> call, final Throwable error) {
-        callbackExecutor.execute(new Runnable() {
+        config.callbackExecutor().execute(new Runnable() {
           @Override
           public void run() {
-            callback.onFailure(call, error);
+            direct.onFailure(call, error);
           }
         });
       }
-    });
+    }, config.lazyConversion() ? direct : null);
   }
 
   @Override
   public Response<T> execute() throws IOException {
-    final AtomicReference<Response<T>> responseRef = new AtomicReference<>();
-    final AtomicReference<Throwable> errorRef = new AtomicReference<>();
-    final CountDownLatch latch = new CountDownLatch(1);
-
-    enqueueInBackground(new Callback<T>() {
-      @Override
-      public void onResponse(final Call<T> call, final Response<T> response) {
-        responseRef.set(response);
-        latch.countDown();
-      }
+    if (!executed.compareAndSet(false, true)) {
+      throw new IllegalStateException("Call has already been executed!");
+    }
 
-      @Override
-      public void onFailure(final Call<T> call, final Throwable error) {
-        errorRef.set(error);
-        latch.countDown();
-      }
-    });
+    // synchronous calls are never queued, they are delayed on the calling thread
+    long startNanos = events != null ? events.started() : System.nanoTime();
+    if (events != null) {
+      events.dequeued();
+    }
 
+    Object delayEvent = MockEvents.begin(MockEvents.Kind.DELAY);
+    long delayMillis = behavior.delayMillis();
     try {
-      latch.await();
-    } catch (InterruptedException e) {
+      park(startNanos, delayMillis);
+    } finally {
+      MockEvents.end(delayEvent, method, delayMillis);
+    }
+    if (canceled.get() || Thread.interrupted()) {
+      if (events != null) {
+        events.canceled();
+      }
       throw new IOException("canceled");
     }
 
-    Response<T> response = responseRef.get();
-    if (response != null) {
+    try {
+      Response<T> response = delegate.execute();
+      if (events != null) {
+        events.completed(startNanos, delayMillis);
+      }
       return response;
+    } catch (IOException | RuntimeException | Error error) {
+      if (events != null) {
+        events.failed(error);
+      }
+      throw error;
     }
+  }
 
-    Throwable error = errorRef.get();
-    if (error instanceof RuntimeException) {
-      throw (RuntimeException) error;
-    } else if (error instanceof IOException) {
-      throw (IOException) error;
-    } else {
-      throw new RuntimeException(error);
+  private void park(final long startNanos, final long delayMillis) {
+    long deadline = startNanos + TimeUnit.MILLISECONDS.toNanos(delayMillis);
+    waiter = Thread.currentThread();
+    try {
+      // cancel() unparks the waiting thread, parking also returns early if it is interrupted
+      while (!canceled.get() && !Thread.currentThread().isInterrupted()) {
+        long remainingNanos = deadline - System.nanoTime();
+        if (remainingNanos <= 0) {
+          return;
+        }
+        LockSupport.parkNanos(this, remainingNanos);
+      }
+    } finally {
+      waiter = null;
     }
   }
 
@@ -160,9 +243,19 @@ final class RetromockCall<T> implements Call<T> {
   @Override
   public void cancel() {
     canceled.set(true);
+    Thread waiter = this.waiter;
+    if (waiter != null) {
+      LockSupport.unpark(waiter);
+    }
     Future<?> task = this.task;
     if (task != null) {
       task.cancel(true);
+      // a task canceled before it started never runs, so its cancellation is reported here,
+      // the failure is still delivered on the callback executor
+      DelayAndEnqueueRunnable runnable = this.runnable;
+      if (runnable != null && runnable.dequeue()) {
+        runnable.canceled();
+      }
     }
   }
 
@@ -174,54 +267,187 @@ final class RetromockCall<T> implements Call<T> {
   @SuppressWarnings("CloneDoesntCallSuperClone")
   @Override
   public Call<T> clone() {
-    return new RetromockCall<>(behavior, backgroundExecutor, callbackExecutor, delegate);
+    return new RetromockCall<>(behavior, delegate, method, events, config);
   }
 
   private class DelayAndEnqueueRunnable implements Runnable {
 
     /**
-     * The callback to invoke after the delay and execution.
+     * The callback to invoke after the delay and execution. It posts to the callback executor, so
+     * failures reported from {@link #cancel()} don't run on the canceling thread.
      */
     private final Callback<T> callback;
 
-    DelayAndEnqueueRunnable(final Callback<T> callback) {
+    /**
+     * Callback invoked on the callback executor if the response is created there, {@code null} if
+     * the response is created on the thread that ran the delay.
+     */
+    @Nullable
+    private final Callback<T> directCallback;
+
+    /**
+     * Time the call was started at, used only if events are reported or delay is measured from
+     * start.
+     */
+    private final long startNanos;
+
+    /**
+     * Delay requested when the call was started, used only if delay is measured from start.
+     */
+    private final long delayMillis;
+
+    /**
+     * Flight Recorder delay event started when the call was scheduled, {@code null} if not
+     * recorded.
+     */
+    @Nullable
+    private final Object delayEvent;
+
+    /**
+     * Flag indicating whether the task is run by the delay scheduler once the delay elapsed.
+     */
+    private final boolean scheduled;
+
+    /**
+     * Flag indicating whether the task left the background executor queue.
+     */
+    private final AtomicBoolean dequeued = new AtomicBoolean();
+
+    /**
+     * Flag indicating whether the outcome of the call was reported to events.
+     */
+    private final AtomicBoolean reported = new AtomicBoolean();
+
+    DelayAndEnqueueRunnable(
+      final Callback<T> callback,
+      @Nullable final Callback<T> directCallback,
+      final long startNanos,
+      final long delayMillis,
+      @Nullable final Object delayEvent,
+      final boolean scheduled) {
+
       this.callback = callback;
+      this.directCallback = directCallback;
+      this.startNanos = startNanos;
+      this.delayMillis = delayMillis;
+      this.delayEvent = delayEvent;
+      this.scheduled = scheduled;
     }
 
-    private void delay() throws InterruptedException {
-      long delayMillis = behavior.delayMillis();
-      if (delayMillis > 0) {
-        Thread.sleep(delayMillis);
+    boolean dequeue() {
+      if (!dequeued.compareAndSet(false, true)) {
+        return false;
       }
+      if (events != null) {
+        events.dequeued();
+      }
+      return true;
+    }
+
+    boolean report() {
+      return events != null && reported.compareAndSet(false, true);
+    }
+
+    private long delay() throws InterruptedException {
+      long delayMillis = config.delayFromStart() || scheduled ? this.delayMillis : behavior.delayMillis();
+      try {
+        if (scheduled) {
+          return delayMillis;
+        } else if (config.delayFromStart()) {
+          long remainingNanos = startNanos + TimeUnit.MILLISECONDS.toNanos(delayMillis)
+            - System.nanoTime();
+          if (remainingNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(remainingNanos);
+          }
+        } else if (delayMillis > 0) {
+          Thread.sleep(delayMillis);
+        }
+      } finally {
+        MockEvents.end(delayEvent, method, delayMillis);
+      }
+      return delayMillis;
+    }
+
+    void canceled() {
+      canceled(callback);
+    }
+
+    private void canceled(final Callback<T> callback) {
+      if (report()) {
+        events.canceled();
+      }
+      callback.onFailure(RetromockCall.this, new IOException("canceled"));
     }
 
     @Override
     public void run() {
+      if (!dequeue()) {
+        // canceled before it started, cancel already reported it
+        return;
+      }
       if (canceled.get()) {
-        callback.onFailure(RetromockCall.this, new IOException("canceled"));
+        canceled();
+        return;
+      }
+
+      final long delayMillis;
+      try {
+        delayMillis = delay();
+      } catch (InterruptedException interrupt) {
+        canceled();
+        return;
+      } catch (Throwable error) {
+        failed(callback, error);
+        return;
+      }
+
+      final Callback<T> directCallback = this.directCallback;
+      if (directCallback == null) {
+        respond(callback, delayMillis);
       } else {
-        try {
-          try {
-            delay();
-          } catch (InterruptedException interrupt) {
-            callback.onFailure(RetromockCall.this, new IOException("canceled"));
-            return;
+        config.callbackExecutor().execute(new Runnable() {
+          @Override
+          public void run() {
+            // calls canceled while waiting for the callback executor are never converted
+            if (canceled.get()) {
+              canceled(directCallback);
+            } else {
+              respond(directCallback, delayMillis);
+            }
           }
-          delegate.enqueue(new Callback<T>() {
-            @Override
-            public void onResponse(final Call<T> call, final Response<T> response) {
-              callback.onResponse(call, response);
+        });
+      }
+    }
+
+    private void respond(final Callback<T> callback, final long delayMillis) {
+      try {
+        delegate.enqueue(new Callback<T>() {
+          @Override
+          public void onResponse(final Call<T> call, final Response<T> response) {
+            if (report()) {
+              events.completed(startNanos, delayMillis);
             }
+            callback.onResponse(call, response);
+          }
 
-            @Override
-            public void onFailure(final Call<T> call, final Throwable t) {
-              callback.onFailure(call, t);
+          @Override
+          public void onFailure(final Call<T> call, final Throwable t) {
+            if (report()) {
+              events.failed(t);
             }
-          });
-        } catch (Throwable error) {
-          callback.onFailure(RetromockCall.this, error);
-        }
+            callback.onFailure(call, t);
+          }
+        });
+      } catch (Throwable error) {
+        failed(callback, error);
+      }
+    }
+
+    private void failed(final Callback<T> callback, final Throwable error) {
+      if (report()) {
+        events.failed(error);
       }
+      callback.onFailure(RetromockCall.this, error);
     }
   }
 }
@@ -0,0 +1,135 @@
+package co.infinum.retromock;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import retrofit2.Invocation;
+
+/**
+ * OkHttp interceptor serving mocked responses inside the client pipeline. Requests are matched to
+ * service methods using Retrofit's {@link Invocation} request tag and mocked the same way as by
+ * services created with {@link Retromock#create(Class)}: responses come from the method's
+ * annotations or response provider and are delayed by its {@link Behavior}.
+ * <p>
+ * Add it as the last application interceptor of the client used by Retrofit, so all other
+ * application interceptors process mocked requests and responses. Services have to be created by
+ * Retrofit, not Retromock, and calls run on OkHttp's threads, so {@link Retromock}'s executors are
+ * not used. Requests of methods that are not mocked are passed on to the network.
+ * <pre><code>
+ *   OkHttpClient client = new OkHttpClient.Builder()
+ *     .addInterceptor(authInterceptor)
+ *     .addInterceptor(new RetromockInterceptor(retromock))
+ *     .build();
+ * </code></pre>
+ */
+public final class RetromockInterceptor implements Interceptor {
+
+  /**
+   * Longest sleep between checks whether the call was canceled.
+   */
+  private static final long CANCEL_CHECK_MILLIS = 10;
+
+  /**
+   * Instance service methods are parsed by.
+   */
+  private final Retromock retromock;
+
+  /**
+   * Creates an interceptor mocking requests the same way as the Retromock instance.
+   *
+   * @param retromock Retromock instance.
+   */
+  public RetromockInterceptor(final Retromock retromock) {
+    Preconditions.checkNotNull(retromock, "Retromock is null.");
+    this.retromock = retromock;
+  }
+
+  @Override
+  public Response intercept(final Chain chain) throws IOException {
+    Request request = chain.request();
+    Invocation invocation = request.tag(Invocation.class);
+    if (invocation == null || retromock.fixtureStore() != null) {
+      return chain.proceed(request);
+    }
+
+    Method method = invocation.method();
+    RetromockMethod mockMethod;
+    try {
+      mockMethod = retromock.findRetromockMethod(method);
+    } catch (Retromock.DisabledException e) {
+      return chain.proceed(request);
+    }
+
+    ScopeProvider scopeProvider = retromock.scopeProvider();
+    Object scope = mockMethod.scoped() && scopeProvider != null
+      ? scopeProvider.currentScope()
+      : null;
+    ResponseParams params = mockMethod.producer().produce(invocation.arguments().toArray(), scope);
+
+    long sentAtMillis = System.currentTimeMillis();
+    Object delayEvent = MockEvents.begin(MockEvents.Kind.DELAY);
+    long delayMillis = mockMethod.behavior().delayMillis();
+    delay(chain, delayMillis);
+    MockEvents.end(delayEvent, method, delayMillis);
+
+    return new Response.Builder()
+      .request(request)
+      .protocol(Protocol.HTTP_1_1)
+      .code(params.code())
+      .message(params.message())
+      .headers(params.headers())
+      .body(createBody(method, params))
+      .sentRequestAtMillis(sentAtMillis)
+      .receivedResponseAtMillis(System.currentTimeMillis())
+      .build();
+  }
+
+  private static void delay(final Chain chain, final long delayMillis) throws IOException {
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis);
+    long checkNanos = TimeUnit.MILLISECONDS.toNanos(CANCEL_CHECK_MILLIS);
+    try {
+      // canceling an OkHttp call does not interrupt its thread, so wake up now and then to check
+      while (!chain.call().isCanceled()) {
+        long remainingNanos = deadline - System.nanoTime();
+        if (remainingNanos <= 0) {
+          return;
+        }
+        TimeUnit.NANOSECONDS.sleep(Math.min(remainingNanos, checkNanos));
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Mocked call was interrupted.");
+    }
+    throw new IOException("Canceled");
+  }
+
+  private static ResponseBody createBody(final Method method, final ResponseParams params)
+    throws IOException {
+
+    MediaType mediaType = params.mediaType();
+
+    RetromockBodyFactory factory = params.bodyFactory();
+    if (factory == null) {
+      return ResponseBody.create(new byte[0], mediaType);
+    }
+
+    Object bodyEvent = MockEvents.begin(MockEvents.Kind.BODY);
+    BufferedSource source = factory.createSource();
+    long contentLength = params.contentLength();
+    if (source instanceof Buffer) {
+      contentLength = ((Buffer) source).size();
+    }
+    MockEvents.end(bodyEvent, method, contentLength);
+    return ResponseBody.create(source, mediaType, contentLength);
+  }
+}
@@ -2,6 +2,9 @@ package co.infinum.retromock;
 
 import java.lang.reflect.Method;
 import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
 
 import javax.annotation.Nullable;
 
@@ -12,8 +15,12 @@ import co.infinum.retromock.meta.MockRandom;
 import co.infinum.retromock.meta.MockResponse;
 import co.infinum.retromock.meta.MockResponseProvider;
 import co.infinum.retromock.meta.MockResponses;
+import co.infinum.retromock.meta.MockScoped;
 import co.infinum.retromock.meta.MockSequential;
 import okhttp3.Headers;
+import okhttp3.ResponseBody;
+import retrofit2.CallAdapter;
+import retrofit2.Converter;
 
 final class RetromockMethod {
 
@@ -29,11 +36,21 @@ final class RetromockMethod {
   static RetromockMethod parse(final Method method, final Retromock retromock) throws
     Retromock.DisabledException {
     Mock mock = method.getAnnotation(Mock.class);
-    if (mock == null || !mock.value()) {
+    boolean replay = retromock.fixtureIndex() != null;
+    if (mock == null ? !replay : !mock.value()) {
       throw new Retromock.DisabledException();
     }
 
-    MockResponse[] responses = loadMockResponses(method);
+    Object event = MockEvents.begin(MockEvents.Kind.PARSE);
+    try {
+      return parseMocked(method, retromock);
+    } finally {
+      MockEvents.end(event, method, 0);
+    }
+  }
+
+  private static RetromockMethod parseMocked(final Method method, final Retromock retromock) {
+    final MockResponse[] responses = loadMockResponses(method);
     MockResponseProvider provider = method.getAnnotation(MockResponseProvider.class);
     ParamsProducer producer;
     if (responses != null && provider != null) {
@@ -43,7 +60,14 @@ final class RetromockMethod {
     } else if (responses != null) {
       producer = new ResponseParamsProducer(
         retromock,
-        loadResponseIterator(method, responses),
+        method,
+        responses,
+        new Supplier<ResponseIterator<MockResponse>>() {
+          @Override
+          public ResponseIterator<MockResponse> get() {
+            return loadResponseIterator(method, responses);
+          }
+        },
         DEFAULT_PARAMS
       );
     } else if (provider != null) {
@@ -56,13 +80,30 @@ final class RetromockMethod {
       producer = new NoResponseProducer(retromock, DEFAULT_PARAMS);
     }
 
+    FixtureIndex fixtureIndex = retromock.fixtureIndex();
+    FixtureBodyFactory fixtureBodyFactory = retromock.fixtureBodyFactory();
+    if (fixtureIndex != null && fixtureBodyFactory != null) {
+      // annotated responses are served only for calls that were not recorded
+      producer = new FixtureResponseProducer(fixtureIndex, fixtureBodyFactory, method,
+        responses != null || provider != null ? producer : null);
+    }
+
     Behavior behavior = retromock.defaultBehavior();
     MockBehavior mockBehavior = method.getAnnotation(MockBehavior.class);
     if (mockBehavior != null) {
       behavior = new RetromockBehavior(mockBehavior);
     }
+    if (fixtureIndex != null
+      && (mockBehavior != null ? mockBehavior.recorded() : retromock.replayLatencies())) {
+      long[] latencies = fixtureIndex.latencies(FixtureKey.methodKey(new MethodArguments(method)));
+      if (latencies != null) {
+        behavior = new RecordedBehavior(latencies);
+      }
+    }
 
-    return new RetromockMethod(producer, behavior);
+    return new RetromockMethod(producer, behavior,
+      method.isAnnotationPresent(MockScoped.class), retromock.callEvents(method),
+      responses != null ? responses.length : 1);
   }
 
   @Nullable
@@ -83,6 +124,51 @@ final class RetromockMethod {
   private static ResponseIterator<MockResponse> loadResponseIterator(
     final Method method, final MockResponse[] responses) {
 
+    List<MockResponse> unconditional = new ArrayList<>();
+    for (MockResponse response : responses) {
+      if (response.match().length == 0) {
+        unconditional.add(response);
+      }
+    }
+    if (unconditional.size() == responses.length) {
+      return loadIterator(method, responses);
+    }
+
+    ResponseIterator<MockResponse> fallback = null;
+    if (!unconditional.isEmpty()) {
+      fallback = loadIterator(method, unconditional.toArray(new MockResponse[0]));
+    }
+    return new ResponseRouter(new MethodArguments(method), responses, fallback);
+  }
+
+  private static ResponseIterator<MockResponse> loadIterator(
+    final Method method, final MockResponse[] responses) {
+
+    // validates iterator annotations even if scoped iterators are created lazily
+    ResponseIterator<MockResponse> iterator = createIterator(method, responses);
+
+    MockScoped mockScoped = method.getAnnotation(MockScoped.class);
+    if (mockScoped == null) {
+      return iterator;
+    }
+
+    MethodArguments arguments = new MethodArguments(method);
+    int[] indices = new int[mockScoped.value().length];
+    for (int i = 0; i < indices.length; i++) {
+      indices[i] = arguments.indexOf(mockScoped.value()[i]);
+    }
+    return new KeyedIterator<>(indices, mockScoped.maxScopes(),
+      new Supplier<ResponseIterator<MockResponse>>() {
+        @Override
+        public ResponseIterator<MockResponse> get() {
+          return createIterator(method, responses);
+        }
+      });
+  }
+
+  private static ResponseIterator<MockResponse> createIterator(
+    final Method method, final MockResponse[] responses) {
+
     MockCircular mockCircular = method.getAnnotation(MockCircular.class);
     MockSequential mockSequential = method.getAnnotation(MockSequential.class);
     MockRandom mockRandom = method.getAnnotation(MockRandom.class);
@@ -91,6 +177,9 @@ final class RetromockMethod {
       if (mockSequential != null || mockRandom != null) {
         throw new IllegalStateException("Cannot specify more than one response iterator.");
       }
+      if (!mockCircular.strict()) {
+        return new ThreadLocalCircularIterator<>(responses);
+      }
       return new CircularIterator<>(responses);
     }
 
@@ -118,12 +207,46 @@ final class RetromockMethod {
    */
   private final Behavior behavior;
 
+  /**
+   * Flag indicating whether responses are iterated per scope.
+   */
+  private final boolean scoped;
+
+  /**
+   * Reporter of call events, {@code null} if no listener is set.
+   */
+  @Nullable
+  private final CallEvents events;
+
+  /**
+   * Number of responses emitted to each collector of a method returning a flow.
+   */
+  private final int emissions;
+
+  /**
+   * Call adapter of the method, looked up on first call.
+   */
+  @Nullable
+  private volatile CallAdapter<?, ?> callAdapter;
+
+  /**
+   * Converter of mocked response bodies, looked up on first call.
+   */
+  @Nullable
+  private volatile Converter<ResponseBody, ?> converter;
+
   private RetromockMethod(
     final ParamsProducer producer,
-    final Behavior behavior
+    final Behavior behavior,
+    final boolean scoped,
+    @Nullable final CallEvents events,
+    final int emissions
   ) {
     this.producer = producer;
     this.behavior = behavior;
+    this.scoped = scoped;
+    this.events = events;
+    this.emissions = emissions;
   }
 
   ParamsProducer producer() {
@@ -133,4 +256,48 @@ final class RetromockMethod {
   Behavior behavior() {
     return behavior;
   }
+
+  boolean scoped() {
+    return scoped;
+  }
+
+  @Nullable
+  CallEvents events() {
+    return events;
+  }
+
+  int emissions() {
+    return emissions;
+  }
+
+  @Nullable
+  CallAdapter<?, ?> callAdapter() {
+    return callAdapter;
+  }
+
+  void callAdapter(final CallAdapter<?, ?> callAdapter) {
+    this.callAdapter = callAdapter;
+  }
+
+  @Nullable
+  Converter<ResponseBody, ?> converter() {
+    return converter;
+  }
+
+  void converter(final Converter<ResponseBody, ?> converter) {
+    this.converter = converter;
+  }
+
+  void reset() {
+    producer.reset();
+  }
+
+  @Nullable
+  Object snapshot() {
+    return producer.snapshot();
+  }
+
+  void restore(@Nullable final Object snapshot) {
+    producer.restore(snapshot);
+  }
 }
@@ -0,0 +1,63 @@
+package co.infinum.retromock;
+
+import retrofit2.CallAdapter;
+import retrofit2.Response;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ScheduledExecutorService;
+
+import javax.annotation.Nullable;
+
+final class RxJavaCallWrapper<T> implements CallWrapper {
+
+    /**
+     * The return type of the method being wrapped.
+     */
+    private final Type returnType;
+
+    /**
+     * The RxJava type returned by the method, e.g. {@code Single}.
+     */
+    private final Class<?> rxType;
+
+    RxJavaCallWrapper(final Type returnType, final Class<?> rxType) {
+        this.returnType = returnType;
+        this.rxType = rxType;
+    }
+
+    @Override
+    public Type getReturnType() {
+        return returnType;
+    }
+
+    @Override
+    public Type getActualType() {
+        return returnType;
+    }
+
+    /**
+     * Creates a cold source that mocks a call for each subscriber. The delay of the behavior is a
+     * timer on the delay scheduler, so no thread waits for it. Once it elapses, the call adapter
+     * adapts a call responding immediately, so the adapter's scheduler is used as usual.
+     *
+     * @param callAdapter    Call adapter of the method, creates a source of the returned type.
+     * @param response       Creates the mocked response once the delay elapses.
+     * @param behavior       Behavior the call is delayed by.
+     * @param method         Mocked service method.
+     * @param events         Listener of call events, {@code null} if calls are not observed.
+     * @param delayScheduler Executor delays are scheduled on, {@code null} for RxJava's computation scheduler.
+     * @return Source of the RxJava type returned by the method.
+     */
+    Object mock(final CallAdapter<T, ?> callAdapter, final Callable<Response<T>> response, final Behavior behavior,
+                final Method method, @Nullable final CallEvents events,
+                @Nullable final ScheduledExecutorService delayScheduler) {
+        return RxJavaMocks.mock(rxType, callAdapter, response, behavior, method, events, delayScheduler);
+    }
+
+    @Override
+    public Object wrap(final Object call, final Object[] args) {
+        return call;
+    }
+}
@@ -0,0 +1,226 @@
+package co.infinum.retromock;
+
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.core.CompletableSource;
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.core.Maybe;
+import io.reactivex.rxjava3.core.MaybeSource;
+import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.core.ObservableSource;
+import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.core.Single;
+import io.reactivex.rxjava3.core.SingleSource;
+import io.reactivex.rxjava3.functions.Action;
+import io.reactivex.rxjava3.functions.Supplier;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+import org.reactivestreams.Publisher;
+import retrofit2.Call;
+import retrofit2.CallAdapter;
+import retrofit2.Response;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.Nullable;
+
+/**
+ * Mocks service methods returning RxJava 3 types. It is the only class referencing RxJava, which is
+ * an optional dependency, so it is loaded only if such methods are mocked.
+ * <p>
+ * Each subscription waits for the delay on a timer and then subscribes to the source the method's
+ * call adapter creates from a call that responds immediately. The adapter applies its own
+ * scheduler and async settings, so mocked sources emit where the adapter's sources would.
+ */
+final class RxJavaMocks {
+
+    private RxJavaMocks() {
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> Object mock(
+        final Class<?> rxType,
+        final CallAdapter<T, ?> callAdapter,
+        final Callable<Response<T>> response,
+        final Behavior behavior,
+        final Method method,
+        @Nullable final CallEvents events,
+        @Nullable final ScheduledExecutorService delayScheduler) {
+
+        final Scheduler scheduler = delayScheduler != null
+            ? Schedulers.from(delayScheduler)
+            : Schedulers.computation();
+
+        if (rxType == Completable.class) {
+            return Completable.defer(new Supplier<CompletableSource>() {
+                @Override
+                public CompletableSource get() {
+                    Subscription<T> subscription = new Subscription<>(callAdapter, response, behavior, method, events);
+                    return subscription.delay(scheduler)
+                        .andThen((CompletableSource) subscription.adapt())
+                        .doOnDispose(subscription);
+                }
+            });
+        } else if (rxType == Maybe.class) {
+            return Maybe.defer(new Supplier<MaybeSource<Object>>() {
+                @Override
+                public MaybeSource<Object> get() {
+                    Subscription<T> subscription = new Subscription<>(callAdapter, response, behavior, method, events);
+                    return subscription.delay(scheduler)
+                        .andThen((MaybeSource<Object>) subscription.adapt())
+                        .doOnDispose(subscription);
+                }
+            });
+        } else if (rxType == Observable.class) {
+            return Observable.defer(new Supplier<ObservableSource<Object>>() {
+                @Override
+                public ObservableSource<Object> get() {
+                    Subscription<T> subscription = new Subscription<>(callAdapter, response, behavior, method, events);
+                    return subscription.delay(scheduler)
+                        .andThen((ObservableSource<Object>) subscription.adapt())
+                        .doOnDispose(subscription);
+                }
+            });
+        } else if (rxType == Flowable.class) {
+            return Flowable.defer(new Supplier<Publisher<Object>>() {
+                @Override
+                public Publisher<Object> get() {
+                    Subscription<T> subscription = new Subscription<>(callAdapter, response, behavior, method, events);
+                    return subscription.delay(scheduler)
+                        .andThen((Publisher<Object>) subscription.adapt())
+                        .doOnCancel(subscription);
+                }
+            });
+        }
+        return Single.defer(new Supplier<SingleSource<Object>>() {
+            @Override
+            public SingleSource<Object> get() {
+                Subscription<T> subscription = new Subscription<>(callAdapter, response, behavior, method, events);
+                return subscription.delay(scheduler)
+                    .andThen((SingleSource<Object>) subscription.adapt())
+                    .doOnDispose(subscription);
+            }
+        });
+    }
+
+    /**
+     * Mocked call of a single subscription. It reports disposal during the delay as cancellation.
+     *
+     * @param <T> Type of the response body.
+     */
+    private static final class Subscription<T> implements Callable<Call<T>>, Action {
+
+        /**
+         * Call adapter of the service method.
+         */
+        private final CallAdapter<T, ?> callAdapter;
+
+        /**
+         * Creates the mocked response.
+         */
+        private final Callable<Response<T>> response;
+
+        /**
+         * Mocked service method.
+         */
+        private final Method method;
+
+        /**
+         * Listener of call events, {@code null} if calls are not observed.
+         */
+        @Nullable
+        private final CallEvents events;
+
+        /**
+         * Time the subscription started at, used only if events are reported.
+         */
+        private final long startNanos;
+
+        /**
+         * Delay of the call.
+         */
+        private final long delayMillis;
+
+        /**
+         * Flight Recorder delay event, {@code null} if not recorded.
+         */
+        @Nullable
+        private final Object delayEvent;
+
+        /**
+         * Flag indicating whether the delay elapsed or was reported as canceled.
+         */
+        private final AtomicBoolean elapsed = new AtomicBoolean();
+
+        Subscription(
+            final CallAdapter<T, ?> callAdapter,
+            final Callable<Response<T>> response,
+            final Behavior behavior,
+            final Method method,
+            @Nullable final CallEvents events) {
+
+            this.callAdapter = callAdapter;
+            this.response = response;
+            this.method = method;
+            this.events = events;
+            this.startNanos = events != null ? events.started() : 0L;
+            if (events != null) {
+                events.dequeued();
+            }
+            this.delayMillis = behavior.delayMillis();
+            this.delayEvent = MockEvents.begin(MockEvents.Kind.DELAY);
+        }
+
+        Completable delay(final Scheduler scheduler) {
+            return Completable.timer(delayMillis, TimeUnit.MILLISECONDS, scheduler)
+                .doOnComplete(new Action() {
+                    @Override
+                    public void run() {
+                        if (elapsed.compareAndSet(false, true)) {
+                            MockEvents.end(delayEvent, method, delayMillis);
+                        }
+                    }
+                });
+        }
+
+        Object adapt() {
+            return callAdapter.adapt(Calls.defer(this));
+        }
+
+        @Override
+        public Call<T> call() throws IOException {
+            Response<T> result;
+            try {
+                result = response.call();
+            } catch (IOException | RuntimeException e) {
+                if (events != null) {
+                    events.failed(e);
+                }
+                throw e;
+            } catch (Exception e) {
+                if (events != null) {
+                    events.failed(e);
+                }
+                throw new IllegalStateException(e);
+            }
+            if (events != null) {
+                events.completed(startNanos, delayMillis);
+            }
+            return Calls.response(result);
+        }
+
+        @Override
+        public void run() {
+            // disposing after the delay elapsed cancels the adapted call instead
+            if (elapsed.compareAndSet(false, true)) {
+                MockEvents.end(delayEvent, method, delayMillis);
+                if (events != null) {
+                    events.canceled();
+                }
+            }
+        }
+    }
+}
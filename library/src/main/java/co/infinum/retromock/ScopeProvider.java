@@ -0,0 +1,19 @@
+package co.infinum.retromock;
+
+import javax.annotation.Nullable;
+
+/**
+ * Provides a key that separates response iteration state of service methods annotated with
+ * {@link co.infinum.retromock.meta.MockScoped}. It is called on the thread that invokes a service
+ * method, so it can return e.g. a name of the test that is currently running on that thread.
+ */
+public interface ScopeProvider {
+
+  /**
+   * Returns the key of the current scope. Keys are compared using {@code equals}.
+   *
+   * @return Current scope key or {@code null} for a shared scope.
+   */
+  @Nullable
+  Object currentScope();
+}
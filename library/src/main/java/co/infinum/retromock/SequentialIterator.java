@@ -2,6 +2,8 @@ package co.infinum.retromock;
 
 import java.util.concurrent.atomic.AtomicInteger;
 
+import javax.annotation.Nullable;
+
 final class SequentialIterator<T> implements ResponseIterator<T> {
 
   /**
@@ -12,7 +14,7 @@ final class SequentialIterator<T> implements ResponseIterator<T> {
   /**
    * Index tracker for the current position in the responses array.
    */
-  private AtomicInteger index = new AtomicInteger();
+  private final AtomicInteger index = new AtomicInteger();
 
   SequentialIterator(final T[] responses) {
     Preconditions.checkNotEmpty(responses, "Responses should contain at least one response.");
@@ -21,11 +23,32 @@ final class SequentialIterator<T> implements ResponseIterator<T> {
 
   @Override
   public T next() {
+    int last = responses.length - 1;
+    // once the last response is reached the index is only read, so it never overflows and
+    // concurrent callers do not contend on it
+    if (index.get() >= last) {
+      return responses[last];
+    }
     int currentIndex = this.index.getAndIncrement();
-    if (currentIndex >= responses.length) {
-      return responses[responses.length - 1];
+    if (currentIndex >= last) {
+      return responses[last];
     } else {
       return responses[currentIndex];
     }
   }
+
+  @Override
+  public void reset() {
+    index.set(0);
+  }
+
+  @Override
+  public Object snapshot() {
+    return Math.min(index.get(), responses.length - 1);
+  }
+
+  @Override
+  public void restore(@Nullable final Object snapshot) {
+    index.set(snapshot instanceof Integer ? (Integer) snapshot : 0);
+  }
 }
@@ -0,0 +1,291 @@
+package co.infinum.retromock;
+
+import java.io.UnsupportedEncodingException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.annotation.Nullable;
+
+import okhttp3.HttpUrl;
+import retrofit2.http.DELETE;
+import retrofit2.http.GET;
+import retrofit2.http.HEAD;
+import retrofit2.http.HTTP;
+import retrofit2.http.OPTIONS;
+import retrofit2.http.PATCH;
+import retrofit2.http.POST;
+import retrofit2.http.PUT;
+
+/**
+ * Matches HTTP requests to a service method by its HTTP method annotation and relative URL
+ * resolved against a base URL, and extracts values of the method's {@code @Path}, {@code @Query},
+ * {@code @Header} and {@code @Field} arguments from the request.
+ */
+final class ServiceRoute {
+
+  /**
+   * Path parameter in a relative URL, same as in Retrofit.
+   */
+  private static final Pattern PARAMETER = Pattern.compile("\\{([a-zA-Z][a-zA-Z0-9_-]*)\\}");
+
+  /**
+   * Media type of form request bodies.
+   */
+  static final String FORM = "application/x-www-form-urlencoded";
+
+  /**
+   * Arguments of the service method.
+   */
+  private final MethodArguments arguments;
+
+  /**
+   * HTTP method of the service method.
+   */
+  private final String httpMethod;
+
+  /**
+   * Host of matched URLs, {@code null} to match any host.
+   */
+  @Nullable
+  private final String host;
+
+  /**
+   * Encoded path of matched URLs, path parameters are captured in declaration order.
+   */
+  private final Pattern path;
+
+  /**
+   * Path parameter names in declaration order.
+   */
+  private final List<String> parameters;
+
+  /**
+   * Query parameters declared in the relative URL.
+   */
+  private final Map<String, String> query;
+
+  private ServiceRoute(
+    final MethodArguments arguments,
+    final String httpMethod,
+    @Nullable final String host,
+    final Pattern path,
+    final List<String> parameters,
+    final Map<String, String> query) {
+
+    this.arguments = arguments;
+    this.httpMethod = httpMethod;
+    this.host = host;
+    this.path = path;
+    this.parameters = parameters;
+    this.query = query;
+  }
+
+  @Nullable
+  private static ServiceRoute of(
+    final Method method,
+    final HttpUrl baseUrl,
+    final boolean matchHost) {
+
+    String httpMethod = null;
+    String relativeUrl = null;
+    for (Annotation annotation : method.getAnnotations()) {
+      if (annotation instanceof GET) {
+        httpMethod = "GET";
+        relativeUrl = ((GET) annotation).value();
+      } else if (annotation instanceof POST) {
+        httpMethod = "POST";
+        relativeUrl = ((POST) annotation).value();
+      } else if (annotation instanceof PUT) {
+        httpMethod = "PUT";
+        relativeUrl = ((PUT) annotation).value();
+      } else if (annotation instanceof DELETE) {
+        httpMethod = "DELETE";
+        relativeUrl = ((DELETE) annotation).value();
+      } else if (annotation instanceof PATCH) {
+        httpMethod = "PATCH";
+        relativeUrl = ((PATCH) annotation).value();
+      } else if (annotation instanceof HEAD) {
+        httpMethod = "HEAD";
+        relativeUrl = ((HEAD) annotation).value();
+      } else if (annotation instanceof OPTIONS) {
+        httpMethod = "OPTIONS";
+        relativeUrl = ((OPTIONS) annotation).value();
+      } else if (annotation instanceof HTTP) {
+        httpMethod = ((HTTP) annotation).method();
+        relativeUrl = ((HTTP) annotation).path();
+      }
+    }
+    // methods with a dynamic @Url cannot be matched
+    if (httpMethod == null || relativeUrl == null || relativeUrl.isEmpty()) {
+      return null;
+    }
+
+    Map<String, String> query = new HashMap<>();
+    int queryStart = relativeUrl.indexOf('?');
+    if (queryStart >= 0) {
+      for (String pair : relativeUrl.substring(queryStart + 1).split("&")) {
+        int equals = pair.indexOf('=');
+        if (equals >= 0) {
+          query.put(decode(pair.substring(0, equals)), decode(pair.substring(equals + 1)));
+        } else if (!pair.isEmpty()) {
+          query.put(decode(pair), null);
+        }
+      }
+      relativeUrl = relativeUrl.substring(0, queryStart);
+    }
+
+    String host = matchHost ? baseUrl.host() : null;
+    String template;
+    int scheme = relativeUrl.indexOf("://");
+    if (scheme >= 0) {
+      int pathStart = relativeUrl.indexOf('/', scheme + "://".length());
+      template = pathStart >= 0 ? relativeUrl.substring(pathStart) : "/";
+      host = null;
+    } else if (relativeUrl.startsWith("/")) {
+      template = relativeUrl;
+    } else {
+      String basePath = baseUrl.encodedPath();
+      template = basePath.substring(0, basePath.lastIndexOf('/') + 1) + relativeUrl;
+    }
+
+    List<String> parameters = new ArrayList<>();
+    StringBuilder pattern = new StringBuilder();
+    Matcher matcher = PARAMETER.matcher(template);
+    int literalStart = 0;
+    while (matcher.find()) {
+      pattern.append(Pattern.quote(template.substring(literalStart, matcher.start())));
+      pattern.append("([^/]*)");
+      parameters.add(matcher.group(1));
+      literalStart = matcher.end();
+    }
+    pattern.append(Pattern.quote(template.substring(literalStart)));
+
+    return new ServiceRoute(new MethodArguments(method), httpMethod, host,
+      Pattern.compile(pattern.toString()), parameters, query);
+  }
+
+  /**
+   * Creates routes of all service methods that can be matched, most specific first.
+   *
+   * @param baseUrl   Base URL relative URLs are resolved against.
+   * @param matchHost true to match only requests to the host of the base URL.
+   * @param services  Service interfaces.
+   * @return Routes ordered so literal path segments take precedence over path parameters,
+   * e.g. {@code users/me} over {@code users/{id}}.
+   */
+  static List<ServiceRoute> of(
+    final HttpUrl baseUrl,
+    final boolean matchHost,
+    final Class<?>... services) {
+
+    List<ServiceRoute> routes = new ArrayList<>();
+    for (Class<?> service : services) {
+      for (Method method : service.getDeclaredMethods()) {
+        ServiceRoute route = of(method, baseUrl, matchHost);
+        if (route != null) {
+          routes.add(route);
+        }
+      }
+    }
+    Collections.sort(routes, new Comparator<ServiceRoute>() {
+      @Override
+      public int compare(final ServiceRoute first, final ServiceRoute second) {
+        return Integer.compare(first.parameters.size(), second.parameters.size());
+      }
+    });
+    return routes;
+  }
+
+  MethodArguments arguments() {
+    return arguments;
+  }
+
+  /**
+   * Matches a request to the service method.
+   *
+   * @param method  Request HTTP method.
+   * @param url     Request URL.
+   * @param headers Request header values by lower case name.
+   * @param fields  Form field values of the request body.
+   * @return Service method arguments or {@code null} if the request does not match.
+   */
+  @Nullable
+  Object[] match(
+    final String method,
+    final HttpUrl url,
+    final Map<String, String> headers,
+    final Map<String, String> fields) {
+
+    if (!httpMethod.equalsIgnoreCase(method)
+      || (host != null && !host.equalsIgnoreCase(url.host()))) {
+      return null;
+    }
+    Matcher matcher = path.matcher(url.encodedPath());
+    if (!matcher.matches()) {
+      return null;
+    }
+    for (Map.Entry<String, String> parameter : query.entrySet()) {
+      String value = url.queryParameter(parameter.getKey());
+      if (parameter.getValue() == null ? !url.queryParameterNames().contains(parameter.getKey())
+        : !parameter.getValue().equals(value)) {
+        return null;
+      }
+    }
+
+    Object[] args = new Object[arguments.size()];
+    for (int i = 0; i < args.length; i++) {
+      String name = arguments.qualifiedName(i);
+      if (name == null) {
+        continue;
+      }
+      int dot = name.indexOf('.');
+      String kind = name.substring(0, dot);
+      String key = name.substring(dot + 1);
+      if ("path".equals(kind)) {
+        int group = parameters.indexOf(key);
+        // plus is not an encoded space in a path
+        args[i] = group >= 0 ? decode(matcher.group(group + 1).replace("+", "%2B")) : null;
+      } else if ("query".equals(kind)) {
+        args[i] = url.queryParameter(key);
+      } else if ("header".equals(kind)) {
+        args[i] = headers.get(key.toLowerCase(Locale.US));
+      } else if ("field".equals(kind)) {
+        args[i] = fields.get(key);
+      }
+    }
+    return args;
+  }
+
+  /**
+   * Parses a form encoded request body.
+   *
+   * @param text   Form encoded body.
+   * @param fields Map parsed fields are put to.
+   */
+  static void parseForm(final String text, final Map<String, String> fields) {
+    for (String pair : text.split("&")) {
+      int equals = pair.indexOf('=');
+      if (equals >= 0) {
+        fields.put(decode(pair.substring(0, equals)), decode(pair.substring(equals + 1)));
+      }
+    }
+  }
+
+  static String decode(final String value) {
+    try {
+      return URLDecoder.decode(value, "UTF-8");
+    } catch (UnsupportedEncodingException e) {
+      throw new AssertionError(e);
+    }
+  }
+}
@@ -4,7 +4,11 @@ import retrofit2.Call;
 import retrofit2.Response;
 import kotlin.coroutines.Continuation;
 
+import java.lang.reflect.Method;
 import java.lang.reflect.Type;
+import java.util.concurrent.Callable;
+
+import javax.annotation.Nullable;
 
 class SuspendCallWrapper<T> implements CallWrapper {
 
@@ -47,7 +51,7 @@ class SuspendCallWrapper<T> implements CallWrapper {
         try {
             return KotlinExtensions.awaitResponse((Call<T>) call, continuation);
         } catch (Exception e) {
-            return KotlinExtensions.suspendAndThrow(e, continuation);
+            return suspendAndThrow(e, continuation);
         }
     }
 
@@ -57,8 +61,41 @@ class SuspendCallWrapper<T> implements CallWrapper {
         try {
             return KotlinExtensions.await((Call<T>) call, continuation);
         } catch (Exception e) {
-            return KotlinExtensions.suspendAndThrow(e, continuation);
+            return suspendAndThrow(e, continuation);
+        }
+    }
+
+    /**
+     * Mocks the call in the calling coroutine, without creating and adapting a {@link Call}.
+     *
+     * @param response Creates the mocked response once the delay elapses.
+     * @param behavior Behavior the call is delayed by.
+     * @param method   Mocked service method.
+     * @param events   Listener of call events, {@code null} if calls are not observed.
+     * @param args     Arguments of the call, the last one is the continuation.
+     * @return Result of the call or {@code COROUTINE_SUSPENDED}.
+     */
+    @SuppressWarnings("unchecked")
+    Object mock(final Callable<Response<T>> response, final Behavior behavior, final Method method,
+                @Nullable final CallEvents events, final Object[] args) {
+        Continuation<Object> continuation = (Continuation<Object>) args[args.length - 1];
+
+        // See SuspendForBody for explanation about this try/catch.
+        try {
+            return KotlinExtensions.awaitMocked(
+                response, behavior, method, events, continuationWantsResponse, continuation);
+        } catch (Exception e) {
+            return suspendAndThrow(e, continuation);
+        }
+    }
+
+    private static Object suspendAndThrow(final Exception e, final Continuation<?> continuation) {
+        if (e instanceof RuntimeException) {
+            // only checked exceptions get wrapped by the proxy, unchecked ones, like errors mocked
+            // with an immediate behavior, are thrown right away instead of after a thread hop
+            throw (RuntimeException) e;
         }
+        return KotlinExtensions.suspendAndThrow(e, continuation);
     }
 
     @Override
@@ -0,0 +1,84 @@
+package co.infinum.retromock;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import co.infinum.retromock.meta.MockResponse;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.Okio;
+
+/**
+ * Implementation of {@link BodyFactory} that treats {@link MockResponse} body as a template.
+ * Placeholders in form of {@code {{name}}} are replaced with service method arguments.
+ * For example,
+ * <pre><code>
+ * &#064;Mock
+ * &#064;MockResponse(body = "{\"id\":\"{{id}}\", \"name\":\"{{body.name}}\"}",
+ *   bodyFactory = TemplateBodyFactory.class)
+ * &#064;PUT("/users/{id}")
+ * Call&lt;User&gt; updateUser(&#064;Path("id") String id, &#064;Body User user);
+ * </code></pre>
+ * Placeholders can reference arguments annotated with {@code @Path}, {@code @Query},
+ * {@code @Header} and {@code @Field} by their name, optionally qualified as {@code path.id},
+ * {@code query.id}, {@code header.id} or {@code field.id}. {@code {{body}}} references an
+ * argument annotated with {@code @Body} and {@code {{body.field}}} any of its (nested) fields.
+ * <p>
+ * Templates are compiled once when a service method is loaded and rendered on every call with
+ * the arguments of that call. If not registered explicitly, Retromock uses an instance that writes
+ * the rendered template as the response body. To load a body from some other source using the
+ * rendered template, register an instance that wraps another {@link BodyFactory}.
+ */
+public final class TemplateBodyFactory implements BodyFactory {
+
+    /**
+     * Body factory that receives rendered template, {@code null} to use it as a body.
+     */
+  @Nullable
+  private final BodyFactory bodyFactory;
+
+  /**
+   * Creates a new instance that uses rendered template as the response body.
+   */
+  public TemplateBodyFactory() {
+    this.bodyFactory = null;
+  }
+
+  /**
+   * Creates a new instance that passes rendered template to provided body factory.
+   *
+   * @param bodyFactory instance to delegate rendered template to
+   */
+  public TemplateBodyFactory(final BodyFactory bodyFactory) {
+    Preconditions.checkNotNull(bodyFactory, "Body factory is null.");
+    this.bodyFactory = bodyFactory;
+  }
+
+  /**
+   * Called with the input as is, if the template was not rendered by Retromock.
+   *
+   * @param input String provided in {@link MockResponse} annotation body.
+   * @return New instance of a stream.
+   * @throws IOException In case of any IO error while loading a stream.
+   */
+  @Override
+  public InputStream create(@Nonnull final String input) throws IOException {
+    Preconditions.checkNotNull(input, "Input is null.");
+    if (bodyFactory != null) {
+      return bodyFactory.create(input);
+    }
+    return new Buffer().writeUtf8(input).inputStream();
+  }
+
+  BufferedSource render(final ResponseTemplate template, final Object[] args) throws IOException {
+    if (bodyFactory != null) {
+      return Okio.buffer(Okio.source(bodyFactory.create(template.render(args))));
+    }
+    Buffer buffer = new Buffer();
+    template.writeTo(buffer, args);
+    return buffer;
+  }
+}
@@ -0,0 +1,56 @@
+package co.infinum.retromock;
+
+/**
+ * Iterates through responses in a circular manner separately on each thread. Calls made from
+ * different threads do not share any mutable state, so there is no contention between them, but
+ * there is also no global order of responses. State of other threads cannot be captured, so
+ * restoring a snapshot resets this iterator.
+ *
+ * @param <T> Type of responses.
+ */
+final class ThreadLocalCircularIterator<T> implements ResponseIterator<T> {
+
+    /**
+     * Array of responses to iterate through in a circular manner.
+     */
+  private final T[] responses;
+
+    /**
+     * Position in the responses array of the current thread and generation it belongs to.
+     */
+  private final ThreadLocal<int[]> index = new ThreadLocal<int[]>() {
+    @Override
+    protected int[] initialValue() {
+      return new int[2];
+    }
+  };
+
+    /**
+     * Generation incremented on each reset, so threads restart their iteration lazily.
+     */
+  private volatile int generation;
+
+  ThreadLocalCircularIterator(final T[] responses) {
+    Preconditions.checkNotEmpty(responses, "Responses should contain at least one response.");
+    this.responses = responses;
+  }
+
+  @Override
+  public T next() {
+    int[] position = index.get();
+    int generation = this.generation;
+    if (position[1] != generation) {
+      position[0] = 0;
+      position[1] = generation;
+    }
+    int current = position[0];
+    position[0] = current + 1 == responses.length ? 0 : current + 1;
+    return responses[current];
+  }
+
+  @SuppressWarnings("NonAtomicOperationOnVolatileField")
+  @Override
+  public synchronized void reset() {
+    generation++;
+  }
+}
@@ -15,6 +15,8 @@ import java.lang.annotation.Target;
  *   durationDeviation = 500
  * </code></pre>
  * would produce a random delay in range [500, 1500).
+ * <p>
+ * In replay mode, set {@code recorded} to delay calls by latencies recorded for the method.
  */
 @Documented
 @Target(ElementType.METHOD)
@@ -43,4 +45,14 @@ public @interface MockBehavior {
    * @return A deviation of the delay in milliseconds.
    */
   int durationDeviation() default DEFAULT_DEVIATION_MILLIS;
+
+  /**
+   * Use latencies recorded for this method when replaying a
+   * {@link co.infinum.retromock.FixtureStore}. Delays are drawn from the recorded latencies instead
+   * of {@code durationMillis} and {@code durationDeviation}, which are used only if there are no
+   * recorded latencies or Retromock is not in replay mode.
+   *
+   * @return true to replay recorded latencies.
+   */
+  boolean recorded() default false;
 }
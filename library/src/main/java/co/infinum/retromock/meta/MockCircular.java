@@ -21,4 +21,13 @@ import co.infinum.retromock.Retromock;
 @Target(ElementType.METHOD)
 @Retention(RetentionPolicy.RUNTIME)
 public @interface MockCircular {
+
+  /**
+   * A flag to specify whether responses are ordered across all threads. If {@code false}, each
+   * thread that produces responses iterates through them on its own, which avoids contention
+   * when many calls are mocked concurrently on a multithreaded background executor.
+   *
+   * @return {@code true} if responses should be returned in a single global order.
+   */
+  boolean strict() default true;
 }
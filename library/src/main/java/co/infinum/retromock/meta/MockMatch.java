@@ -0,0 +1,55 @@
+package co.infinum.retromock.meta;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import co.infinum.retromock.Retromock;
+
+/**
+ * Use this annotation to specify a condition in a {@link MockResponse} annotation. Response is
+ * returned only if all of its conditions match service method arguments. For example,
+ * <pre><code>
+ *   &#064;Mock
+ *   &#064;MockResponse(body = "{\"name\":\"John\"}", match = &#064;MockMatch(name = "id", value = "1"))
+ *   &#064;MockResponse(code = 404, match = &#064;MockMatch(name = "id", pattern = "9\\d+"))
+ *   &#064;MockResponse(body = "{\"name\":\"Jane\"}")
+ *   &#064;GET("/users/{id}")
+ *   Call&lt;User&gt; getUser(&#064;Path("id") String id);
+ * </code></pre>
+ * If more than one response matches, the first declared one is returned. Responses without
+ * conditions are used if no other response matches, applying {@link MockSequential},
+ * {@link MockCircular} or {@link MockRandom} among them.
+ * It is applicable only in {@link MockResponse} match parameter. NOTE: Do not use this annotation
+ * directly on service method because {@link Retromock} will ignore it.
+ */
+@Documented
+@Target({})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface MockMatch {
+
+  /**
+   * Name of the argument annotated with {@code @Path}, {@code @Query}, {@code @Header} or
+   * {@code @Field}. Name can be qualified as {@code path.id}, {@code query.id},
+   * {@code header.id} or {@code field.id} if it is not unique.
+   *
+   * @return Argument name.
+   */
+  String name();
+
+  /**
+   * Exact argument value. Argument matches if its {@code toString()} value is equal to this one.
+   * {@code null} argument is equal to an empty string.
+   *
+   * @return Argument value.
+   */
+  String value() default "";
+
+  /**
+   * Regular expression the whole argument value has to match. If set, value is ignored.
+   *
+   * @return Argument value pattern.
+   */
+  String pattern() default "";
+}
@@ -61,4 +61,12 @@ public @interface MockResponse {
    * @return BodyFactory class used to convert body parameter text to body.
    */
   Class<? extends BodyFactory> bodyFactory() default BodyFactory.class;
+
+  /**
+   * Array of conditions service method arguments have to match for this response to be returned.
+   * Response without conditions is returned if no other response matches.
+   *
+   * @return Array of argument conditions.
+   */
+  MockMatch[] match() default {};
 }
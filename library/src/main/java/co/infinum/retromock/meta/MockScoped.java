@@ -0,0 +1,55 @@
+package co.infinum.retromock.meta;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import co.infinum.retromock.Retromock;
+
+/**
+ * Use this annotation to keep separate response iteration state per scope instead of one state
+ * per service method. Scope is defined by values of listed arguments and by the key that
+ * {@link co.infinum.retromock.ScopeProvider} returns on the thread that calls the service method.
+ * For example,
+ * <pre><code>
+ *   &#064;Mock
+ *   &#064;MockScoped("id")
+ *   &#064;MockResponse(body = "first")
+ *   &#064;MockResponse(body = "second")
+ *   &#064;GET("/users/{id}")
+ *   Call&lt;User&gt; getUser(&#064;Path("id") String id);
+ * </code></pre>
+ * would return "first" and then "second" for each distinct id, regardless of calls made with
+ * other ids in between.
+ * <p>
+ * {@link Retromock} keeps state for at most {@code maxScopes} scopes. When the limit is exceeded,
+ * state of the oldest scope is dropped and that scope starts from the beginning when used again.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface MockScoped {
+
+  /**
+   * Default maximum number of scopes.
+   */
+  int DEFAULT_MAX_SCOPES = 1024;
+
+  /**
+   * Names of arguments annotated with {@code @Path}, {@code @Query}, {@code @Header} or
+   * {@code @Field} which values define a scope. If empty, scope is defined only by
+   * {@link co.infinum.retromock.ScopeProvider}.
+   *
+   * @return Argument names.
+   */
+  String[] value() default {};
+
+  /**
+   * Maximum number of scopes to keep iteration state for.
+   *
+   * @return Maximum number of scopes.
+   */
+  int maxScopes() default DEFAULT_MAX_SCOPES;
+}
@@ -0,0 +1,64 @@
+package co.infinum.retromock
+
+import co.infinum.retromock.helpers.ImmediateBehavior
+import co.infinum.retromock.meta.Mock
+import co.infinum.retromock.meta.MockResponse
+import okhttp3.ResponseBody
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Assumptions.assumeTrue
+import org.junit.jupiter.api.Test
+import retrofit2.Call
+import retrofit2.Retrofit
+import retrofit2.http.GET
+import java.lang.management.ManagementFactory
+
+class AllocationBudgetTest {
+
+    interface Service {
+
+        @Mock
+        @MockResponse(body = "Body example.")
+        @GET("/")
+        fun getBody(): Call<ResponseBody>
+    }
+
+    private companion object {
+        const val WARMUP_CALLS = 10_000
+        const val MEASURED_CALLS = 10_000
+
+        // a warmed-up call measured about 970 bytes on JDK 17 with compressed oops, a couple dozen
+        // small objects: the proxy call, deferred and mocked calls, the response source and body,
+        // and the OkHttp and Retrofit responses. The budget leaves room for VM differences, but a
+        // per-call thread or an unpooled 8 KiB buffer segment exceeds it.
+        const val BUDGET_BYTES = 1536L
+    }
+
+    @Test
+    fun executedStaticMockStaysWithinAllocationBudget() {
+        val threads = ManagementFactory.getThreadMXBean()
+        assumeTrue(threads is com.sun.management.ThreadMXBean && threads.isThreadAllocatedMemorySupported)
+        threads as com.sun.management.ThreadMXBean
+        threads.isThreadAllocatedMemoryEnabled = true
+
+        val service = Retromock.Builder()
+            .retrofit(Retrofit.Builder()
+                .baseUrl("http://infinum.co/")
+                .build())
+            .defaultBehavior(ImmediateBehavior())
+            .build()
+            .create(Service::class.java)
+
+        // executed calls run entirely on the calling thread, so its allocations cover the whole call.
+        // Bodies are closed without reading, so only the mock pipeline is measured.
+        repeat(WARMUP_CALLS) {
+            service.getBody().execute().body()!!.close()
+        }
+        val before = threads.currentThreadAllocatedBytes
+        repeat(MEASURED_CALLS) {
+            service.getBody().execute().body()!!.close()
+        }
+        val perCall = (threads.currentThreadAllocatedBytes - before) / MEASURED_CALLS
+
+        assertThat(perCall).isLessThan(BUDGET_BYTES)
+    }
+}
@@ -0,0 +1,106 @@
+package co.infinum.retromock
+
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import retrofit2.Retrofit
+import java.util.concurrent.Executor
+
+class BatchingExecutorTest {
+
+    private class QueueExecutor : Executor {
+        val tasks = ArrayDeque<Runnable>()
+
+        override fun execute(command: Runnable) {
+            tasks.addLast(command)
+        }
+
+        fun runNext() = tasks.removeFirst().run()
+    }
+
+    @Test
+    fun tasksSubmittedBeforeDrainAreCoalesced() {
+        val delegate = QueueExecutor()
+        val executor = BatchingExecutor(delegate)
+        val executed = mutableListOf<Int>()
+
+        for (i in 0 until 100) {
+            executor.execute { executed.add(i) }
+        }
+
+        assertThat(delegate.tasks).hasSize(1)
+        delegate.runNext()
+        assertThat(executed).isEqualTo((0 until 100).toList())
+        assertThat(delegate.tasks).isEmpty()
+    }
+
+    @Test
+    fun taskAfterDrainIsPostedAgain() {
+        val delegate = QueueExecutor()
+        val executor = BatchingExecutor(delegate)
+        var count = 0
+
+        executor.execute { count++ }
+        delegate.runNext()
+        executor.execute { count++ }
+
+        assertThat(delegate.tasks).hasSize(1)
+        delegate.runNext()
+        assertThat(count).isEqualTo(2)
+    }
+
+    @Test
+    fun taskSubmittedDuringDrainRunsInNextBatch() {
+        val delegate = QueueExecutor()
+        val executor = BatchingExecutor(delegate)
+        val executed = mutableListOf<Int>()
+
+        executor.execute {
+            executed.add(0)
+            executor.execute { executed.add(2) }
+        }
+        executor.execute { executed.add(1) }
+        delegate.runNext()
+
+        assertThat(executed).containsExactly(0, 1)
+        assertThat(delegate.tasks).hasSize(1)
+        delegate.runNext()
+        assertThat(executed).containsExactly(0, 1, 2)
+        assertThat(delegate.tasks).isEmpty()
+    }
+
+    @Test
+    fun failingTaskDoesNotStallQueue() {
+        val delegate = QueueExecutor()
+        val executor = BatchingExecutor(delegate)
+        var executed = false
+
+        executor.execute { throw IllegalStateException() }
+        executor.execute { executed = true }
+
+        assertThrows<IllegalStateException> {
+            delegate.runNext()
+        }
+        assertThat(delegate.tasks).hasSize(1)
+        delegate.runNext()
+        assertThat(executed).isTrue()
+    }
+
+    @Test
+    fun builderWrapsCallbackExecutor() {
+        val callbackExecutor = QueueExecutor()
+        val retromock = Retromock.Builder()
+            .retrofit(Retrofit.Builder()
+                .baseUrl("http://infinum.co/")
+                .build())
+            .callbackExecutor(callbackExecutor)
+            .batchCallbacks(true)
+            .build()
+
+        assertThat(retromock.callbackExecutor()).isInstanceOf(BatchingExecutor::class.java)
+        assertThat((retromock.callbackExecutor() as BatchingExecutor).delegate()).isSameAs(callbackExecutor)
+
+        val rebuilt = retromock.newBuilder().build()
+        assertThat((rebuilt.callbackExecutor() as BatchingExecutor).delegate()).isSameAs(callbackExecutor)
+    }
+}
@@ -0,0 +1,139 @@
+package co.infinum.retromock
+
+import co.infinum.retromock.helpers.ImmediateBehavior
+import co.infinum.retromock.meta.Mock
+import co.infinum.retromock.meta.MockResponse
+import com.google.common.util.concurrent.MoreExecutors
+import okhttp3.ResponseBody
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import retrofit2.Call
+import retrofit2.Retrofit
+import retrofit2.http.GET
+import java.io.IOException
+import java.util.concurrent.atomic.AtomicInteger
+
+class CallMetricsTest {
+
+    interface Service {
+
+        @Mock
+        @MockResponse(body = "first")
+        @GET("/users")
+        fun getUsers(): Call<ResponseBody>
+    }
+
+    private val method = Service::class.java.getMethod("getUsers")
+
+    @Test
+    fun histogramPercentiles() {
+        val histogram = CallMetrics.Histogram()
+        for (value in 1L..100L) {
+            histogram.record(value)
+        }
+
+        assertThat(histogram.count()).isEqualTo(100)
+        assertThat(histogram.sum()).isEqualTo(5050)
+        assertThat(histogram.max()).isEqualTo(100)
+        assertThat(histogram.percentile(0.5)).isEqualTo(63)
+        assertThat(histogram.percentile(0.99)).isEqualTo(100)
+        assertThat(histogram.percentile(0.0)).isEqualTo(1)
+    }
+
+    @Test
+    fun emptyHistogram() {
+        val histogram = CallMetrics.Histogram()
+
+        assertThat(histogram.count()).isZero()
+        assertThat(histogram.percentile(0.99)).isZero()
+    }
+
+    @Test
+    fun invalidPercentileThrows() {
+        assertThrows<IllegalArgumentException> {
+            CallMetrics.Histogram().percentile(1.5)
+        }
+    }
+
+    @Test
+    fun completedCallsAreCounted() {
+        val metrics = CallMetrics()
+        val service = Retromock.Builder()
+            .retrofit(Retrofit.Builder()
+                .baseUrl("http://infinum.co/")
+                .build())
+            .defaultBehavior(ImmediateBehavior())
+            .callListener(metrics)
+            .build()
+            .create(Service::class.java)
+
+        service.getUsers().execute()
+        service.getUsers().execute()
+
+        val methodMetrics = metrics.method(method)!!
+        assertThat(methodMetrics.calls()).isEqualTo(2)
+        assertThat(methodMetrics.completed()).isEqualTo(2)
+        assertThat(methodMetrics.failures()).isZero()
+        assertThat(methodMetrics.bodyBytes()).isEqualTo(10)
+        assertThat(methodMetrics.responseTime().count()).isEqualTo(2)
+        assertThat(methodMetrics.lag().count()).isEqualTo(2)
+        assertThat(methodMetrics.queueDepth().max()).isGreaterThanOrEqualTo(1)
+        assertThat(metrics.lag().count()).isEqualTo(2)
+    }
+
+    @Test
+    fun failedCallIsCounted() {
+        val metrics = CallMetrics()
+        val call = RetromockCall(
+            ImmediateBehavior(),
+            Calls.failure<String>(IOException("failure")),
+            method,
+            CallEvents(metrics, method, AtomicInteger()),
+            CallConfig(
+                MoreExecutors.newDirectExecutorService(),
+                MoreExecutors.directExecutor(),
+                metrics,
+                false,
+                null,
+                false,
+                false
+            )
+        )
+
+        assertThrows<IOException> {
+            call.execute()
+        }
+
+        assertThat(metrics.method(method)!!.failures()).isEqualTo(1)
+        assertThat(metrics.method(method)!!.completed()).isZero()
+    }
+
+    @Test
+    fun canceledCallIsCounted() {
+        val metrics = CallMetrics()
+        val call = RetromockCall(
+            ImmediateBehavior(),
+            Calls.response("body"),
+            method,
+            CallEvents(metrics, method, AtomicInteger()),
+            CallConfig(
+                MoreExecutors.newDirectExecutorService(),
+                MoreExecutors.directExecutor(),
+                metrics,
+                false,
+                null,
+                false,
+                false
+            )
+        )
+
+        call.cancel()
+        assertThrows<IOException> {
+            call.execute()
+        }
+
+        assertThat(metrics.method(method)!!.cancellations()).isEqualTo(1)
+        assertThat(metrics.method(method)!!.failures()).isZero()
+    }
+}
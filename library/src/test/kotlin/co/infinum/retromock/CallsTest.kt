@@ -2,6 +2,7 @@ package co.infinum.retromock
 
 import co.infinum.retromock.helpers.mock
 import co.infinum.retromock.helpers.whenever
+import okio.Timeout
 import org.assertj.core.api.Java6Assertions.assertThat
 import org.junit.jupiter.api.Test
 import org.junit.jupiter.api.assertThrows
@@ -15,6 +16,9 @@ import retrofit2.Callback
 import retrofit2.Response
 import java.io.IOException
 import java.util.concurrent.Callable
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.atomic.AtomicInteger
+import kotlin.concurrent.thread
 
 @ExtendWith(MockitoExtension::class)
 class CallsTest {
@@ -182,10 +186,59 @@ class CallsTest {
     @Test
     fun deferredCallCancelSetsTheFlag() {
         val callable = mock<Callable<Call<String>>>()
-        whenever(callable.call()).thenReturn(Calls.response(""))
         val call = Calls.DeferredCall(callable)
         call.cancel()
         assertThat(call.isCanceled).isTrue()
+        assertThat(call.isExecuted).isFalse()
+        verifyNoInteractions(callable)
+    }
+
+    @Test
+    fun deferredCallCanceledBeforeCreationCancelsDelegate() {
+        val delegate = Calls.FakeCall(Response.success(""), null)
+        val call = Calls.DeferredCall(Callable<Call<String>> { delegate })
+        call.cancel()
+
+        assertThrows<IOException> {
+            call.execute()
+        }
+        assertThat(delegate.isCanceled).isTrue()
+    }
+
+    @Test
+    fun deferredCallInvokesCallableOnceWhenRacing() {
+        val invocations = AtomicInteger()
+        val call = Calls.DeferredCall(Callable<Call<String>> {
+            invocations.incrementAndGet()
+            // long enough for the other threads to stop spinning and park
+            Thread.sleep(50)
+            Calls.response("")
+        })
+        val start = CountDownLatch(1)
+        val executed = AtomicInteger()
+        val threads = List(4) {
+            thread {
+                start.await()
+                // only the first execution succeeds, the others fail once the delegate is created
+                runCatching { call.execute() }.onSuccess { executed.incrementAndGet() }
+            }
+        }
+
+        start.countDown()
+        threads.forEach { it.join() }
+
+        assertThat(invocations.get()).isEqualTo(1)
+        assertThat(executed.get()).isEqualTo(1)
+    }
+
+    @Test
+    fun deferredCallRequestAndTimeoutDoNotCreateDelegate() {
+        val callable = mock<Callable<Call<String>>>()
+        val call = Calls.DeferredCall(callable)
+
+        assertThat(call.request().url.host).isEqualTo("localhost")
+        assertThat(call.timeout()).isSameAs(Timeout.NONE)
+        verifyNoInteractions(callable)
     }
 
     @Test
@@ -231,6 +284,7 @@ class CallsTest {
         val callable = mock<Callable<Call<String>>>()
         whenever(callable.call()).thenReturn(Calls.response(response))
         val call = Calls.DeferredCall(callable)
+        call.execute()
         assertThat(call.request()).isEqualTo(response.raw().request)
     }
 
@@ -239,6 +293,7 @@ class CallsTest {
         val callable = mock<Callable<Call<String>>>()
         whenever(callable.call()).thenReturn(Calls.response(""))
         val call = Calls.DeferredCall(callable)
+        call.execute()
         assertThat(call.request()).isNotNull()
     }
 
@@ -5,6 +5,11 @@ import org.junit.jupiter.api.Test
 import org.junit.jupiter.api.assertThrows
 import org.junit.jupiter.api.extension.ExtendWith
 import org.mockito.junit.jupiter.MockitoExtension
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
 
 @ExtendWith(MockitoExtension::class)
 class CircularIteratorTest {
@@ -34,6 +39,60 @@ class CircularIteratorTest {
         assertThat(iterator.next()).isSameAs(responses[1])
     }
 
+    @Test
+    fun cycleIsPreservedAcrossRounds() {
+        val responses = arrayOf(Any(), Any(), Any())
+
+        val iterator = CircularIterator<Any>(responses)
+
+        listOf(0, 1, 2, 0, 1, 2, 0, 1, 2, 0).forEach {
+            assertThat(iterator.next()).isSameAs(responses[it])
+        }
+    }
+
+    @Test
+    fun restoredSnapshotContinuesCycle() {
+        val responses = arrayOf(Any(), Any(), Any())
+        val iterator = CircularIterator<Any>(responses)
+        iterator.next()
+        iterator.next()
+        val snapshot = iterator.snapshot()
+
+        iterator.next()
+        iterator.restore(snapshot)
+
+        listOf(2, 0, 1).forEach {
+            assertThat(iterator.next()).isSameAs(responses[it])
+        }
+    }
+
+    @Test
+    fun concurrentCallsReturnEachResponseEqually() {
+        val responses = arrayOf(Any(), Any(), Any(), Any())
+        val iterator = CircularIterator<Any>(responses)
+        val threads = 32
+        val callsPerThread = 10_000
+        val counts = ConcurrentHashMap<Any, AtomicInteger>()
+        val executor = Executors.newFixedThreadPool(threads)
+        val start = CountDownLatch(1)
+
+        val futures = (1..threads).map {
+            executor.submit {
+                start.await()
+                repeat(callsPerThread) {
+                    counts.computeIfAbsent(iterator.next()) { AtomicInteger() }.incrementAndGet()
+                }
+            }
+        }
+        start.countDown()
+        futures.forEach { it.get(30, TimeUnit.SECONDS) }
+        executor.shutdown()
+
+        responses.forEach {
+            assertThat(counts[it]?.get()).isEqualTo(threads * callsPerThread / responses.size)
+        }
+    }
+
     @Test
     fun emptyArrayThrows() {
         val responses = arrayOf<Any>()
@@ -0,0 +1,151 @@
+package co.infinum.retromock
+
+import co.infinum.retromock.helpers.mock
+import co.infinum.retromock.helpers.whenever
+import okhttp3.MediaType.Companion.toMediaType
+import okhttp3.Protocol
+import okhttp3.Request
+import okhttp3.Response
+import okhttp3.ResponseBody.Companion.toResponseBody
+import okhttp3.Interceptor
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import org.junit.jupiter.api.io.TempDir
+import retrofit2.Call
+import retrofit2.Invocation
+import retrofit2.http.GET
+import retrofit2.http.Path
+import retrofit2.http.Query
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.io.File
+import java.io.IOException
+
+class FixtureRecorderTest {
+
+    interface Service {
+
+        @GET("/users/{id}")
+        fun getUser(@Path("id") id: String, @Query("lang") lang: String?): Call<String>
+    }
+
+    @TempDir
+    lateinit var directory: File
+
+    private val method = Service::class.java.getMethod("getUser", String::class.java, String::class.java)
+
+    private fun chain(id: String, body: String): Interceptor.Chain {
+        val request = Request.Builder()
+            .url("http://infinum.co/users/$id")
+            .tag(Invocation::class.java, Invocation.of(Service::class.java, mock<Service>(), method, listOf(id, null)))
+            .build()
+        val response = Response.Builder()
+            .request(request)
+            .protocol(Protocol.HTTP_1_1)
+            .code(200)
+            .message("OK")
+            .header("Content-Type", "application/json")
+            .body(body.toResponseBody("application/json".toMediaType()))
+            .build()
+
+        val chain = mock<Interceptor.Chain>()
+        whenever(chain.request()).thenReturn(request)
+        whenever(chain.proceed(request)).thenReturn(response)
+        return chain
+    }
+
+    private fun readFixtures(store: FixtureStore): List<Fixture> {
+        DataInputStream(store.logFile().inputStream().buffered()).use { input ->
+            assertThat(input.readInt()).isEqualTo(FixtureStore.MAGIC)
+            assertThat(input.readInt()).isEqualTo(FixtureStore.VERSION)
+            val fixtures = mutableListOf<Fixture>()
+            while (input.available() > 0) {
+                fixtures.add(Fixture.readFrom(input))
+            }
+            return fixtures
+        }
+    }
+
+    @Test
+    fun responseIsRecordedAndPassedOn() {
+        val store = FixtureStore(directory)
+        val recorder = FixtureRecorder(store)
+
+        val response = recorder.intercept(chain("1", "{\"id\":1}"))
+        store.close()
+
+        assertThat(response.body?.string()).isEqualTo("{\"id\":1}")
+
+        val fixture = readFixtures(store).single()
+        assertThat(fixture.key()).isEqualTo(FixtureKey.of(MethodArguments(method), arrayOf("1", null)))
+        assertThat(fixture.code()).isEqualTo(200)
+        assertThat(fixture.message()).isEqualTo("OK")
+        assertThat(fixture.headers()["Content-Type"]).isEqualTo("application/json")
+        assertThat(fixture.bodyLength()).isEqualTo(8)
+        assertThat(store.bodyFile(fixture.bodyDigest()).readText()).isEqualTo("{\"id\":1}")
+    }
+
+    @Test
+    fun equalBodiesAreStoredOnce() {
+        val store = FixtureStore(directory)
+        val recorder = FixtureRecorder(store)
+
+        recorder.intercept(chain("1", "same"))
+        recorder.intercept(chain("2", "same"))
+        store.close()
+
+        val fixtures = readFixtures(store)
+        assertThat(fixtures).hasSize(2)
+        assertThat(fixtures[0].key()).isNotEqualTo(fixtures[1].key())
+        assertThat(fixtures[0].bodyDigest()).isEqualTo(fixtures[1].bodyDigest())
+        assertThat(File(directory, FixtureStore.BODIES).listFiles()).hasSize(1)
+    }
+
+    @Test
+    fun recordingAppendsToExistingLog() {
+        val first = FixtureStore(directory)
+        FixtureRecorder(first).intercept(chain("1", "first"))
+        first.close()
+
+        val second = FixtureStore(directory)
+        FixtureRecorder(second).intercept(chain("2", "second"))
+        second.close()
+
+        assertThat(readFixtures(second)).hasSize(2)
+    }
+
+    @Test
+    fun logOfOtherVersionIsNotAppendedTo() {
+        val log = File(directory, FixtureStore.LOG)
+        DataOutputStream(log.outputStream()).use { output ->
+            output.writeInt(FixtureStore.MAGIC)
+            output.writeInt(FixtureStore.VERSION - 1)
+        }
+        val store = FixtureStore(directory)
+
+        assertThrows<IOException> {
+            FixtureRecorder(store).intercept(chain("1", "body"))
+        }
+        store.close()
+        assertThat(log).hasSize(8)
+    }
+
+    @Test
+    fun requestWithoutInvocationIsNotRecorded() {
+        val store = FixtureStore(directory)
+        val request = Request.Builder().url("http://infinum.co/").build()
+        val chain = mock<Interceptor.Chain>()
+        whenever(chain.request()).thenReturn(request)
+        whenever(chain.proceed(request)).thenReturn(Response.Builder()
+            .request(request)
+            .protocol(Protocol.HTTP_1_1)
+            .code(204)
+            .message("No Content")
+            .build())
+
+        FixtureRecorder(store).intercept(chain)
+
+        assertThat(store.logFile()).doesNotExist()
+    }
+}
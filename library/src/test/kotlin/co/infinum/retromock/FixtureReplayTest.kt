@@ -0,0 +1,252 @@
+package co.infinum.retromock
+
+import co.infinum.retromock.helpers.ImmediateBehavior
+import co.infinum.retromock.meta.Mock
+import co.infinum.retromock.meta.MockBehavior
+import co.infinum.retromock.meta.MockResponse
+import okhttp3.Headers.Companion.headersOf
+import okhttp3.ResponseBody
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import org.junit.jupiter.api.io.TempDir
+import retrofit2.Call
+import retrofit2.Retrofit
+import retrofit2.http.GET
+import retrofit2.http.Path
+import java.io.DataOutputStream
+import java.io.File
+import java.io.FileOutputStream
+import java.io.UTFDataFormatException
+import java.util.concurrent.TimeUnit
+
+class FixtureReplayTest {
+
+    interface Service {
+
+        @GET("/users/{id}")
+        fun getUser(@Path("id") id: String): Call<ResponseBody>
+
+        @MockResponse(body = "fallback")
+        @GET("/users/{id}/avatar")
+        fun getAvatar(@Path("id") id: String): Call<ResponseBody>
+
+        @Mock(false)
+        @GET("/users/{id}/disabled")
+        fun disabled(@Path("id") id: String): Call<ResponseBody>
+
+        @MockBehavior(recorded = true)
+        @GET("/users/{id}/friends")
+        fun getFriends(@Path("id") id: String): Call<ResponseBody>
+    }
+
+    @TempDir
+    lateinit var directory: File
+
+    private fun record(
+        store: FixtureStore,
+        name: String,
+        id: String,
+        code: Int,
+        body: String,
+        latencyMillis: Long = 0
+    ) {
+        val method = Service::class.java.getMethod(name, String::class.java)
+        store.record(
+            FixtureKey.of(MethodArguments(method), arrayOf(id)),
+            code,
+            "OK",
+            headersOf("Content-Type", "text/plain"),
+            body.toByteArray(),
+            TimeUnit.MILLISECONDS.toNanos(latencyMillis)
+        )
+    }
+
+    private fun service(store: FixtureStore) = Retromock.Builder()
+        .retrofit(Retrofit.Builder()
+            .baseUrl("http://infinum.co/")
+            .build())
+        .defaultBehavior(ImmediateBehavior())
+        .replayFrom(store)
+        .build()
+        .create(Service::class.java)
+
+    @Test
+    fun recordedResponseIsReplayed() {
+        val store = FixtureStore(directory)
+        record(store, "getUser", "1", 200, "one")
+        record(store, "getUser", "2", 200, "two")
+        store.close()
+
+        val service = service(store)
+
+        val response = service.getUser("2").execute()
+        assertThat(response.code()).isEqualTo(200)
+        assertThat(response.headers()["Content-Type"]).isEqualTo("text/plain")
+        assertThat(response.body()?.string()).isEqualTo("two")
+        assertThat(service.getUser("1").execute().body()?.string()).isEqualTo("one")
+    }
+
+    @Test
+    fun repeatedCallsReplayRecordingOrderAndRepeatLast() {
+        val store = FixtureStore(directory)
+        record(store, "getUser", "1", 200, "first")
+        record(store, "getUser", "1", 200, "second")
+        store.close()
+
+        val service = service(store)
+
+        assertThat(service.getUser("1").execute().body()?.string()).isEqualTo("first")
+        assertThat(service.getUser("1").execute().body()?.string()).isEqualTo("second")
+        assertThat(service.getUser("1").execute().body()?.string()).isEqualTo("second")
+    }
+
+    @Test
+    fun missingFixtureFailsWithoutFallback() {
+        val store = FixtureStore(directory)
+        record(store, "getUser", "1", 200, "one")
+        store.close()
+
+        val service = service(store)
+
+        assertThrows<IllegalStateException> {
+            service.getUser("2").execute()
+        }
+    }
+
+    @Test
+    fun missingFixtureUsesAnnotatedResponse() {
+        val store = FixtureStore(directory)
+        record(store, "getAvatar", "1", 200, "avatar")
+        store.close()
+
+        val service = service(store)
+
+        assertThat(service.getAvatar("1").execute().body()?.string()).isEqualTo("avatar")
+        assertThat(service.getAvatar("2").execute().body()?.string()).isEqualTo("fallback")
+    }
+
+    @Test
+    fun explicitlyDisabledMethodIsNotReplayed() {
+        val store = FixtureStore(directory)
+        record(store, "disabled", "1", 200, "one")
+        store.close()
+
+        val service = service(store)
+
+        assertThrows<Exception> {
+            service.disabled("1").execute()
+        }
+    }
+
+    @Test
+    fun indexIsBuiltOnceAndRebuiltAfterRecording() {
+        val store = FixtureStore(directory)
+        record(store, "getUser", "1", 200, "one")
+        store.close()
+
+        val index = File(directory, FixtureIndex.INDEX)
+        assertThat(FixtureIndex.load(store).size()).isEqualTo(1)
+        val built = index.lastModified()
+        assertThat(FixtureIndex.load(store).size()).isEqualTo(1)
+        assertThat(index.lastModified()).isEqualTo(built)
+
+        val appended = FixtureStore(directory)
+        record(appended, "getUser", "2", 404, "")
+        appended.close()
+
+        assertThat(FixtureIndex.load(appended).size()).isEqualTo(2)
+        assertThat(service(appended).getUser("2").execute().code()).isEqualTo(404)
+    }
+
+    @Test
+    fun oversizedValueIsRejectedWithoutPartialEntry() {
+        val store = FixtureStore(directory)
+        record(store, "getUser", "1", 200, "one")
+        assertThrows<UTFDataFormatException> {
+            store.record(
+                FixtureKey.of(MethodArguments(Service::class.java.getMethod("getUser", String::class.java)), arrayOf("2")),
+                200,
+                "OK",
+                headersOf("Set-Cookie", "x".repeat(70_000)),
+                null,
+                0
+            )
+        }
+        record(store, "getUser", "3", 200, "three")
+        store.close()
+
+        val service = service(store)
+
+        assertThat(FixtureIndex.load(store).size()).isEqualTo(2)
+        assertThat(service.getUser("1").execute().body()?.string()).isEqualTo("one")
+        assertThat(service.getUser("3").execute().body()?.string()).isEqualTo("three")
+    }
+
+    @Test
+    fun malformedEntryIsSkipped() {
+        val store = FixtureStore(directory)
+        record(store, "getUser", "1", 200, "one")
+        store.close()
+        DataOutputStream(FileOutputStream(store.logFile(), true)).use {
+            it.writeInt(3)
+            it.write(byteArrayOf(1, 2, 3))
+        }
+        val appended = FixtureStore(directory)
+        record(appended, "getUser", "2", 200, "two")
+        appended.close()
+
+        val service = service(appended)
+
+        assertThat(FixtureIndex.load(appended).size()).isEqualTo(2)
+        assertThat(service.getUser("1").execute().body()?.string()).isEqualTo("one")
+        assertThat(service.getUser("2").execute().body()?.string()).isEqualTo("two")
+    }
+
+    @Test
+    fun latenciesAreSampledPerMethod() {
+        val store = FixtureStore(directory)
+        for (i in 1..FixtureIndex.MAX_SAMPLES * 2) {
+            record(store, "getUser", i.toString(), 200, "", (i % 100).toLong())
+        }
+        record(store, "getFriends", "1", 200, "", 300)
+        store.close()
+
+        val index = FixtureIndex.load(store)
+        val users = index.latencies(FixtureKey.methodKey(MethodArguments(
+            Service::class.java.getMethod("getUser", String::class.java))))!!
+        assertThat(users).hasSize(FixtureIndex.MAX_SAMPLES).isSorted()
+        assertThat(users.first()).isGreaterThanOrEqualTo(0)
+        assertThat(users.last()).isLessThan(TimeUnit.MILLISECONDS.toNanos(100))
+
+        val friends = index.latencies(FixtureKey.methodKey(MethodArguments(
+            Service::class.java.getMethod("getFriends", String::class.java))))
+        assertThat(friends).containsExactly(TimeUnit.MILLISECONDS.toNanos(300))
+    }
+
+    @Test
+    fun recordedLatenciesAreSelectedPerMethod() {
+        val store = FixtureStore(directory)
+        record(store, "getUser", "1", 200, "", 120)
+        record(store, "getFriends", "1", 200, "", 300)
+        store.close()
+
+        val retromock = Retromock.Builder()
+            .retrofit(Retrofit.Builder()
+                .baseUrl("http://infinum.co/")
+                .build())
+            .defaultBehavior(ImmediateBehavior())
+            .replayFrom(store)
+            .build()
+
+        val getUser = Service::class.java.getMethod("getUser", String::class.java)
+        val getFriends = Service::class.java.getMethod("getFriends", String::class.java)
+        assertThat(RetromockMethod.parse(getUser, retromock).behavior().delayMillis()).isEqualTo(0)
+        assertThat(RetromockMethod.parse(getFriends, retromock).behavior().delayMillis()).isEqualTo(300)
+
+        val replaying = retromock.newBuilder()
+            .replayLatencies(true)
+            .build()
+        assertThat(RetromockMethod.parse(getUser, replaying).behavior().delayMillis()).isEqualTo(120)
+    }
+}
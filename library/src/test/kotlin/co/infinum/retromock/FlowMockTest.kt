@@ -0,0 +1,191 @@
+package co.infinum.retromock
+
+import co.infinum.retromock.helpers.ImmediateBehavior
+import co.infinum.retromock.meta.Mock
+import co.infinum.retromock.meta.MockBehavior
+import co.infinum.retromock.meta.MockResponse
+import co.infinum.retromock.meta.MockResponses
+import co.infinum.retromock.meta.MockSequential
+import kotlinx.coroutines.async
+import kotlinx.coroutines.awaitAll
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.flow.map
+import kotlinx.coroutines.flow.onEach
+import kotlinx.coroutines.flow.toList
+import kotlinx.coroutines.runBlocking
+import kotlinx.coroutines.yield
+import kotlinx.coroutines.withTimeoutOrNull
+import okhttp3.ResponseBody
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import retrofit2.HttpException
+import retrofit2.Response
+import retrofit2.Retrofit
+import retrofit2.http.GET
+import kotlin.coroutines.Continuation
+
+class FlowMockTest {
+
+    interface Service {
+
+        @Mock
+        @MockResponses(
+            MockResponse(body = "first"),
+            MockResponse(body = "second"),
+            MockResponse(body = "third")
+        )
+        @GET("/")
+        fun updates(): Flow<ResponseBody>
+
+        @Mock
+        @MockResponses(
+            MockResponse(body = "first"),
+            MockResponse(body = "second")
+        )
+        @MockSequential
+        @GET("/")
+        fun sequentialUpdates(): Flow<ResponseBody>
+
+        @Mock
+        @MockResponses(
+            MockResponse(body = "first"),
+            MockResponse(code = 404, body = "Not found.")
+        )
+        @GET("/")
+        fun failingUpdates(): Flow<ResponseBody>
+
+        @Mock
+        @MockResponses(
+            MockResponse(body = "first"),
+            MockResponse(code = 404, body = "Not found.")
+        )
+        @GET("/")
+        fun responseUpdates(): Flow<Response<ResponseBody>>
+
+        @Mock
+        @MockResponses(
+            MockResponse(body = "first"),
+            MockResponse(body = "second")
+        )
+        @MockBehavior(durationMillis = 10_000, durationDeviation = 0)
+        @GET("/")
+        fun slowUpdates(): Flow<ResponseBody>
+
+        @Mock
+        @MockResponse(body = "Body example.")
+        @GET("/")
+        suspend fun getBody(): ResponseBody
+    }
+
+    private val metrics = CallMetrics()
+
+    private val service = Retromock.Builder()
+        .retrofit(Retrofit.Builder()
+            .baseUrl("http://infinum.co/")
+            .build())
+        .defaultBehavior(ImmediateBehavior())
+        .callListener(metrics)
+        .build()
+        .create(Service::class.java)
+
+    @Test
+    fun responsesAreEmittedInOrderToEachCollector() {
+        val updates = service.updates().map { it.string() }
+
+        assertThat(runBlocking { updates.toList() }).containsExactly("first", "second", "third")
+        assertThat(runBlocking { updates.toList() }).containsExactly("first", "second", "third")
+    }
+
+    @Test
+    fun concurrentCollectorsEachReceiveAllResponsesInOrder() {
+        val updates = service.updates()
+            .map { it.string() }
+            // suspends after each emission so the collectors interleave
+            .onEach { yield() }
+
+        val collected = runBlocking {
+            List(3) { async { updates.toList() } }.awaitAll()
+        }
+
+        assertThat(collected).allSatisfy {
+            assertThat(it).containsExactly("first", "second", "third")
+        }
+    }
+
+    @Test
+    fun collectionStartsFromFirstResponseAfterPartialCollection() {
+        val updates = service.updates().map { it.string() }
+
+        assertThat(runBlocking { updates.first() }).isEqualTo("first")
+        assertThat(runBlocking { updates.toList() }).containsExactly("first", "second", "third")
+    }
+
+    @Test
+    fun collectionStartsFromFirstResponseAfterError() {
+        assertThrows<HttpException> {
+            runBlocking { service.failingUpdates().collect { } }
+        }
+
+        assertThat(runBlocking { service.failingUpdates().first().string() }).isEqualTo("first")
+    }
+
+    @Test
+    fun sequentialResponsesAreIteratedPerCollection() {
+        val updates = service.sequentialUpdates().map { it.string() }
+
+        assertThat(runBlocking { updates.toList() }).containsExactly("first", "second")
+        assertThat(runBlocking { updates.toList() }).containsExactly("first", "second")
+    }
+
+    @Test
+    fun flowIsCold() {
+        val updates = service.updates()
+        val method = Service::class.java.getMethod("updates")
+
+        assertThat(metrics.method(method)?.calls() ?: 0L).isZero()
+        runBlocking { updates.toList() }
+        assertThat(metrics.method(method)!!.completed()).isEqualTo(3)
+    }
+
+    @Test
+    fun errorResponseEndsFlowWithHttpException() {
+        val emitted = mutableListOf<String>()
+        val exception = assertThrows<HttpException> {
+            runBlocking { service.failingUpdates().collect { emitted.add(it.string()) } }
+        }
+
+        assertThat(emitted).containsExactly("first")
+        assertThat(exception.code()).isEqualTo(404)
+    }
+
+    @Test
+    fun errorResponsesAreEmittedIfResponsesAreExpected() {
+        val codes = runBlocking { service.responseUpdates().map { it.code() }.toList() }
+
+        assertThat(codes).containsExactly(200, 404)
+    }
+
+    @Test
+    fun collectorCancelsPendingEmissions() {
+        val start = System.nanoTime()
+        val first = runBlocking {
+            withTimeoutOrNull(100) { service.slowUpdates().first() }
+        }
+
+        assertThat(first).isNull()
+        assertThat(System.nanoTime() - start).isLessThan(5_000_000_000L)
+        val methodMetrics = metrics.method(Service::class.java.getMethod("slowUpdates"))!!
+        assertThat(methodMetrics.cancellations()).isEqualTo(1)
+        assertThat(methodMetrics.completed()).isZero()
+    }
+
+    @Test
+    fun suspendMethodsAreNotFlows() {
+        val method = Service::class.java.getMethod("getBody", Continuation::class.java)
+
+        assertThat(CallWrapperFactory.returnsFlow(method)).isFalse()
+        assertThat(CallWrapperFactory.returnsFlow(Service::class.java.getMethod("updates"))).isTrue()
+    }
+}
@@ -0,0 +1,187 @@
+package co.infinum.retromock
+
+import co.infinum.retromock.helpers.ImmediateBehavior
+import okhttp3.HttpUrl.Companion.toHttpUrl
+import okhttp3.ResponseBody
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import org.junit.jupiter.api.io.TempDir
+import retrofit2.Call
+import retrofit2.Retrofit
+import retrofit2.http.Field
+import retrofit2.http.FormUrlEncoded
+import retrofit2.http.GET
+import retrofit2.http.Header
+import retrofit2.http.POST
+import retrofit2.http.Path
+import retrofit2.http.Query
+import java.io.File
+import java.util.Base64
+
+class HarImporterTest {
+
+    interface Service {
+
+        @GET("users/{id}")
+        fun getUser(@Path("id") id: String, @Query("lang") lang: String?): Call<ResponseBody>
+
+        @GET("users/me")
+        fun getMe(@Header("Authorization") authorization: String): Call<ResponseBody>
+
+        @FormUrlEncoded
+        @POST("login")
+        fun login(@Field("user") user: String): Call<ResponseBody>
+    }
+
+    @TempDir
+    lateinit var directory: File
+
+    private val baseUrl = "http://infinum.co/api/"
+
+    private fun entry(
+        method: String,
+        url: String,
+        status: Int,
+        text: String,
+        requestHeaders: String = "",
+        requestExtra: String = "",
+        contentExtra: String = ""
+    ) = """
+        {
+          "startedDateTime": "2024-01-01T00:00:00.000Z",
+          "time": 250.5,
+          "request": {
+            "method": "$method",
+            "url": "$url",
+            "httpVersion": "HTTP/2",
+            "headers": [{"name": ":authority", "value": "infinum.co"}$requestHeaders]$requestExtra
+          },
+          "response": {
+            "status": $status,
+            "statusText": "OK",
+            "headers": [
+              {"name": ":status", "value": "$status"},
+              {"name": "Content-Type", "value": "application/json"},
+              {"name": "Content-Encoding", "value": "gzip"}
+            ],
+            "content": {"size": 10, "mimeType": "application/json", "text": "$text"$contentExtra}
+          },
+          "timings": {"wait": 200, "receive": 50.5}
+        }
+    """
+
+    private fun har(vararg entries: String): File {
+        val file = File(directory, "capture.har")
+        file.writeText("""
+            {
+              "log": {
+                "version": "1.2",
+                "creator": {"name": "test", "version": "1"},
+                "entries": [${entries.joinToString(",")}],
+                "comment": ""
+              }
+            }
+        """)
+        return file
+    }
+
+    private fun service(store: FixtureStore) = Retromock.Builder()
+        .retrofit(Retrofit.Builder()
+            .baseUrl(baseUrl)
+            .build())
+        .defaultBehavior(ImmediateBehavior())
+        .replayFrom(store)
+        .build()
+        .create(Service::class.java)
+
+    @Test
+    fun entriesAreMatchedByMethodAndUrlTemplate() {
+        val store = FixtureStore(File(directory, "fixtures"))
+        val imported = HarImporter(store, baseUrl.toHttpUrl(), Service::class.java).importFrom(har(
+            entry("GET", "http://infinum.co/api/users/42?lang=en", 200, "{\\\"id\\\":42}"),
+            entry("GET", "http://infinum.co/api/users/a%20b", 200, "spaced"),
+            entry("GET", "http://infinum.co/other/users/42", 200, "other"),
+            entry("GET", "http://cdn.infinum.co/api/users/42", 200, "cdn"),
+            entry("DELETE", "http://infinum.co/api/users/42", 200, "deleted")
+        ))
+        store.close()
+
+        assertThat(imported).isEqualTo(2)
+
+        val service = service(store)
+        val response = service.getUser("42", "en").execute()
+        assertThat(response.body()?.string()).isEqualTo("{\"id\":42}")
+        assertThat(response.headers()["Content-Type"]).isEqualTo("application/json")
+        assertThat(response.headers()["Content-Encoding"]).isNull()
+        assertThat(service.getUser("a b", null).execute().body()?.string()).isEqualTo("spaced")
+        assertThrows<IllegalStateException> {
+            service.getUser("42", null).execute()
+        }
+    }
+
+    @Test
+    fun literalPathTakesPrecedenceOverParameter() {
+        val store = FixtureStore(File(directory, "fixtures"))
+        HarImporter(store, baseUrl.toHttpUrl(), Service::class.java).importFrom(har(
+            entry("GET", "http://infinum.co/api/users/me", 200, "me"),
+            entry("GET", "http://infinum.co/api/users/7", 200, "seven")
+        ))
+        store.close()
+
+        val service = service(store)
+        assertThat(service.getMe("").execute().body()?.string()).isEqualTo("me")
+        assertThat(service.getUser("7", null).execute().body()?.string()).isEqualTo("seven")
+    }
+
+    @Test
+    fun headersAndFormFieldsAreMatched() {
+        val store = FixtureStore(File(directory, "fixtures"))
+        HarImporter(store, baseUrl.toHttpUrl(), Service::class.java).importFrom(har(
+            entry("POST", "http://infinum.co/api/login", 200, "logged in",
+                requestExtra = """, "postData": {
+                    "mimeType": "application/x-www-form-urlencoded",
+                    "text": "user=jane%20doe"
+                }"""),
+            entry("GET", "http://infinum.co/api/users/me", 200, "jane",
+                requestHeaders = """, {"name": "authorization", "value": "Bearer jane"}""")
+        ))
+        store.close()
+
+        val service = service(store)
+        assertThat(service.login("jane doe").execute().body()?.string()).isEqualTo("logged in")
+        assertThrows<IllegalStateException> {
+            service.login("john").execute()
+        }
+        assertThat(service.getMe("Bearer jane").execute().body()?.string()).isEqualTo("jane")
+    }
+
+    @Test
+    fun base64BodiesAndLatenciesAreImported() {
+        val store = FixtureStore(File(directory, "fixtures"))
+        val bytes = byteArrayOf(0, 1, 2, -1)
+        HarImporter(store, baseUrl.toHttpUrl(), Service::class.java).importFrom(har(
+            entry("GET", "http://infinum.co/api/users/1", 200, Base64.getEncoder().encodeToString(bytes),
+                contentExtra = ", \"encoding\": \"base64\"")
+        ))
+        store.close()
+
+        assertThat(service(store).getUser("1", null).execute().body()?.bytes()).isEqualTo(bytes)
+
+        val method = Service::class.java.getMethod("getUser", String::class.java, String::class.java)
+        assertThat(FixtureIndex.load(store).latencies(FixtureKey.methodKey(MethodArguments(method))))
+            .containsExactly(250_500_000L)
+    }
+
+    @Test
+    fun entriesWithoutResponseAreSkipped() {
+        val store = FixtureStore(File(directory, "fixtures"))
+        val imported = HarImporter(store, baseUrl.toHttpUrl(), Service::class.java).importFrom(har(
+            entry("GET", "http://infinum.co/api/users/1", 0, "")
+        ))
+        store.close()
+
+        assertThat(imported).isEqualTo(0)
+        assertThat(store.logFile()).doesNotExist()
+    }
+}
@@ -0,0 +1,108 @@
+package co.infinum.retromock
+
+import co.infinum.retromock.helpers.ImmediateBehavior
+import co.infinum.retromock.meta.Mock
+import co.infinum.retromock.meta.MockResponse
+import co.infinum.retromock.meta.MockResponses
+import co.infinum.retromock.meta.MockScoped
+import okhttp3.ResponseBody
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import retrofit2.Call
+import retrofit2.Retrofit
+import retrofit2.http.GET
+import retrofit2.http.Path
+import java.util.function.Supplier
+
+class KeyedIteratorTest {
+
+    interface Service {
+
+        @Mock
+        @MockScoped("id")
+        @MockResponses(
+            MockResponse(body = "first"),
+            MockResponse(body = "second")
+        )
+        @GET("/users/{id}")
+        fun getUser(@Path("id") id: String): Call<ResponseBody>
+
+        @Mock
+        @MockScoped
+        @MockResponses(
+            MockResponse(body = "first"),
+            MockResponse(body = "second")
+        )
+        @GET("/users")
+        fun getUsers(): Call<ResponseBody>
+    }
+
+    private val responses = arrayOf(Any(), Any())
+
+    private fun iterator(maxKeys: Int = 16) = KeyedIterator(intArrayOf(0), maxKeys, Supplier<ResponseIterator<Any>> {
+        SequentialIterator(responses)
+    })
+
+    @Test
+    fun separateSequencePerArgument() {
+        val iterator = iterator()
+
+        assertThat(iterator.next(arrayOf("1"), null)).isSameAs(responses[0])
+        assertThat(iterator.next(arrayOf("2"), null)).isSameAs(responses[0])
+        assertThat(iterator.next(arrayOf("1"), null)).isSameAs(responses[1])
+        assertThat(iterator.next(arrayOf("2"), null)).isSameAs(responses[1])
+    }
+
+    @Test
+    fun separateSequencePerScope() {
+        val iterator = iterator()
+
+        assertThat(iterator.next(arrayOf("1"), "a")).isSameAs(responses[0])
+        assertThat(iterator.next(arrayOf("1"), "b")).isSameAs(responses[0])
+        assertThat(iterator.next(arrayOf("1"), "a")).isSameAs(responses[1])
+    }
+
+    @Test
+    fun oldestKeyEvicted() {
+        val iterator = iterator(maxKeys = 2)
+
+        iterator.next(arrayOf("1"), null)
+        iterator.next(arrayOf("2"), null)
+        iterator.next(arrayOf("3"), null)
+
+        assertThat(iterator.size()).isEqualTo(2)
+        assertThat(iterator.next(arrayOf("1"), null)).isSameAs(responses[0])
+        assertThat(iterator.next(arrayOf("3"), null)).isSameAs(responses[1])
+    }
+
+    @Test
+    fun nonPositiveMaxKeysThrows() {
+        assertThrows<IllegalArgumentException> {
+            iterator(maxKeys = 0)
+        }
+    }
+
+    @Test
+    fun scopedServiceMethod() {
+        val scope = ThreadLocal<String>()
+        val service = Retromock.Builder()
+            .retrofit(Retrofit.Builder()
+                .baseUrl("http://infinum.co/")
+                .build())
+            .defaultBehavior(ImmediateBehavior())
+            .scopeProvider { scope.get() }
+            .build()
+            .create(Service::class.java)
+
+        assertThat(service.getUser("1").execute().body()?.string()).isEqualTo("first")
+        assertThat(service.getUser("2").execute().body()?.string()).isEqualTo("first")
+        assertThat(service.getUser("1").execute().body()?.string()).isEqualTo("second")
+
+        scope.set("test-a")
+        assertThat(service.getUsers().execute().body()?.string()).isEqualTo("first")
+        scope.set("test-b")
+        assertThat(service.getUsers().execute().body()?.string()).isEqualTo("first")
+        assertThat(service.getUsers().execute().body()?.string()).isEqualTo("second")
+    }
+}
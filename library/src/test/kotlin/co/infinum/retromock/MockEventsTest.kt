@@ -0,0 +1,64 @@
+package co.infinum.retromock
+
+import co.infinum.retromock.helpers.ImmediateBehavior
+import co.infinum.retromock.meta.Mock
+import co.infinum.retromock.meta.MockResponse
+import jdk.jfr.Recording
+import jdk.jfr.consumer.RecordingFile
+import okhttp3.ResponseBody
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+import retrofit2.Call
+import retrofit2.Retrofit
+import retrofit2.http.GET
+import java.nio.file.Files
+
+class MockEventsTest {
+
+    interface Service {
+
+        @Mock
+        @MockResponse(body = "first")
+        @GET("/users")
+        fun getUsers(): Call<ResponseBody>
+    }
+
+    @Test
+    fun noEventWithoutRecording() {
+        assertThat(MockEvents.begin(MockEvents.Kind.PARSE)).isNull()
+    }
+
+    @Test
+    fun pipelineEventsAreRecorded() {
+        val file = Files.createTempFile("retromock", ".jfr")
+        Recording().use { recording ->
+            for (name in listOf("Parse", "Body", "Conversion", "Delay", "Callback")) {
+                recording.enable("co.infinum.retromock.$name")
+            }
+            recording.start()
+
+            Retromock.Builder()
+                .retrofit(Retrofit.Builder()
+                    .baseUrl("http://infinum.co/")
+                    .build())
+                .defaultBehavior(ImmediateBehavior())
+                .build()
+                .create(Service::class.java)
+                .getUsers()
+                .execute()
+
+            recording.stop()
+            recording.dump(file)
+        }
+
+        val names = RecordingFile.readAllEvents(file).map { it.eventType.name }.toSet()
+        Files.delete(file)
+
+        assertThat(names).contains(
+            "co.infinum.retromock.Parse",
+            "co.infinum.retromock.Body",
+            "co.infinum.retromock.Conversion",
+            "co.infinum.retromock.Delay"
+        )
+    }
+}
@@ -0,0 +1,56 @@
+package co.infinum.retromock
+
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import org.junit.jupiter.api.extension.ExtendWith
+import org.mockito.Mock
+import org.mockito.Mockito.*
+import org.mockito.junit.jupiter.MockitoExtension
+import java.util.concurrent.TimeUnit
+
+@ExtendWith(MockitoExtension::class)
+class RecordedBehaviorTest {
+
+    @Mock
+    private lateinit var randomProvider: RandomProvider
+
+    private val samples = longArrayOf(
+        TimeUnit.MILLISECONDS.toNanos(10),
+        TimeUnit.MILLISECONDS.toNanos(20),
+        TimeUnit.MILLISECONDS.toNanos(900)
+    )
+
+    @Test
+    fun delayIsChosenSample() {
+        `when`(randomProvider.nextInt(3)).thenReturn(1)
+
+        val behavior = RecordedBehavior(samples, randomProvider)
+
+        assertThat(behavior.delayMillis()).isEqualTo(20)
+    }
+
+    @Test
+    fun tailSampleIsReplayed() {
+        `when`(randomProvider.nextInt(3)).thenReturn(2)
+
+        val behavior = RecordedBehavior(samples, randomProvider)
+
+        assertThat(behavior.delayMillis()).isEqualTo(900)
+    }
+
+    @Test
+    fun singleSampleIsAlwaysReplayed() {
+        val behavior = RecordedBehavior(longArrayOf(TimeUnit.MILLISECONDS.toNanos(42)), randomProvider)
+
+        assertThat(behavior.delayMillis()).isEqualTo(42)
+        verifyNoInteractions(randomProvider)
+    }
+
+    @Test
+    fun noSamplesThrow() {
+        assertThrows<IllegalArgumentException> {
+            RecordedBehavior(LongArray(0), randomProvider)
+        }
+    }
+}
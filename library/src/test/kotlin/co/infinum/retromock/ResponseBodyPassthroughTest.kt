@@ -0,0 +1,66 @@
+package co.infinum.retromock
+
+import co.infinum.retromock.helpers.ImmediateBehavior
+import co.infinum.retromock.meta.Mock
+import co.infinum.retromock.meta.MockResponse
+import okhttp3.ResponseBody
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+import retrofit2.Call
+import retrofit2.Retrofit
+import retrofit2.http.GET
+import java.io.ByteArrayInputStream
+import java.io.InputStream
+import java.util.concurrent.atomic.AtomicInteger
+
+class ResponseBodyPassthroughTest {
+
+    interface Service {
+
+        @Mock
+        @MockResponse(body = "Body example.")
+        @GET("/")
+        fun getBody(): Call<ResponseBody>
+    }
+
+    private class ReadCountingBodyFactory(private val reads: AtomicInteger) : BodyFactory {
+        override fun create(input: String): InputStream =
+            object : ByteArrayInputStream(input.toByteArray()) {
+                override fun read(b: ByteArray, off: Int, len: Int): Int {
+                    reads.incrementAndGet()
+                    return super.read(b, off, len)
+                }
+            }
+    }
+
+    private fun retromock(reads: AtomicInteger, callListener: CallListener? = null) = Retromock.Builder()
+        .retrofit(Retrofit.Builder()
+            .baseUrl("http://infinum.co/")
+            .build())
+        .defaultBehavior(ImmediateBehavior())
+        .defaultBodyFactory(ReadCountingBodyFactory(reads))
+        .callListener(callListener)
+        .build()
+        .create(Service::class.java)
+
+    @Test
+    fun responseBodyIsNotBufferedBeforeItIsRead() {
+        val reads = AtomicInteger()
+        val body = retromock(reads).getBody().execute().body()!!
+
+        assertThat(reads.get()).isZero()
+        assertThat(body.string()).isEqualTo("Body example.")
+        assertThat(reads.get()).isPositive()
+    }
+
+    @Test
+    fun observedResponseBodyIsBufferedToCountBytes() {
+        val reads = AtomicInteger()
+        val metrics = CallMetrics()
+        val body = retromock(reads, metrics).getBody().execute().body()!!
+
+        assertThat(reads.get()).isPositive()
+        assertThat(body.string()).isEqualTo("Body example.")
+        assertThat(metrics.method(Service::class.java.getMethod("getBody"))!!.bodyBytes()).isEqualTo(13)
+    }
+}
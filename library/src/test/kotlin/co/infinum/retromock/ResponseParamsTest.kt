@@ -2,6 +2,7 @@ package co.infinum.retromock
 
 import okhttp3.Headers
 import okhttp3.Headers.Companion.toHeaders
+import okhttp3.ResponseBody.Companion.toResponseBody
 import org.assertj.core.api.Assertions.assertThat
 import org.junit.jupiter.api.BeforeEach
 import org.junit.jupiter.api.Test
@@ -210,4 +211,34 @@ class ResponseParamsTest {
         assertThat(params.contentLength()).isEqualTo(-1)
     }
 
-}
\ No newline at end of file
+
+    @Test
+    fun mediaTypeIsParsedOnce() {
+        val params = ResponseParams.Builder()
+            .headers(mapOf("Content-Type" to "application/json; charset=utf-8").toHeaders())
+            .build()
+
+        val copy = params.newBuilder().bodyFactory(retromockBodyFactory).build()
+
+        assertThat(params.mediaType().toString()).isEqualTo("application/json; charset=utf-8")
+        assertThat(copy.mediaType()).isSameAs(params.mediaType())
+    }
+
+    @Test
+    fun rawResponsesHaveParamsAndFreshBody() {
+        val params = ResponseParams.Builder()
+            .code(201)
+            .message("Created")
+            .headers(mapOf("Content-Type" to "text/plain").toHeaders())
+            .build()
+
+        val first = params.rawResponse("first".toResponseBody(params.mediaType()))
+        val second = params.rawResponse("second".toResponseBody(params.mediaType()))
+
+        assertThat(first.code).isEqualTo(201)
+        assertThat(first.message).isEqualTo("Created")
+        assertThat(first.header("Content-Type")).isEqualTo("text/plain")
+        assertThat(first.body?.string()).isEqualTo("first")
+        assertThat(second.body?.string()).isEqualTo("second")
+    }
+}
@@ -0,0 +1,115 @@
+package co.infinum.retromock
+
+import co.infinum.retromock.helpers.ImmediateBehavior
+import co.infinum.retromock.meta.Mock
+import co.infinum.retromock.meta.MockMatch
+import co.infinum.retromock.meta.MockResponse
+import co.infinum.retromock.meta.MockResponses
+import okhttp3.ResponseBody
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import retrofit2.Call
+import retrofit2.Retrofit
+import retrofit2.http.GET
+import retrofit2.http.Header
+import retrofit2.http.Path
+import retrofit2.http.Query
+
+class ResponseRouterTest {
+
+    interface Service {
+
+        @Mock
+        @MockResponses(
+            MockResponse(body = "one", match = [MockMatch(name = "id", value = "1")]),
+            MockResponse(body = "two-en", match = [
+                MockMatch(name = "id", value = "2"),
+                MockMatch(name = "lang", value = "en")
+            ]),
+            MockResponse(body = "two", match = [MockMatch(name = "path.id", value = "2")]),
+            MockResponse(body = "big", match = [MockMatch(name = "id", pattern = "\\d{3,}")]),
+            MockResponse(body = "token", match = [MockMatch(name = "Token", value = "secret")]),
+            MockResponse(body = "fallback")
+        )
+        @GET("/users/{id}")
+        fun getUser(
+            @Path("id") id: String,
+            @Query("lang") lang: String?,
+            @Header("Token") token: String?
+        ): Call<ResponseBody>
+
+        @Mock
+        @MockResponses(
+            MockResponse(body = "one", match = [MockMatch(name = "id", value = "1")])
+        )
+        @GET("/users/{id}")
+        fun noFallback(@Path("id") id: String): Call<ResponseBody>
+
+        @Mock
+        @MockResponse(body = "one", match = [MockMatch(name = "unknown", value = "1")])
+        @GET("/users/{id}")
+        fun unknownArgument(@Path("id") id: String): Call<ResponseBody>
+    }
+
+    private fun service() = Retromock.Builder()
+        .retrofit(Retrofit.Builder()
+            .baseUrl("http://infinum.co/")
+            .build())
+        .defaultBehavior(ImmediateBehavior())
+        .build()
+        .create(Service::class.java)
+
+    private fun Call<ResponseBody>.bodyString() = execute().body()?.string()
+
+    @Test
+    fun exactValueSelectsResponse() {
+        val service = service()
+
+        assertThat(service.getUser("1", null, null).bodyString()).isEqualTo("one")
+        assertThat(service.getUser("2", null, null).bodyString()).isEqualTo("two")
+    }
+
+    @Test
+    fun allConditionsHaveToMatch() {
+        val service = service()
+
+        assertThat(service.getUser("2", "en", null).bodyString()).isEqualTo("two-en")
+        assertThat(service.getUser("2", "de", null).bodyString()).isEqualTo("two")
+    }
+
+    @Test
+    fun patternSelectsResponse() {
+        val service = service()
+
+        assertThat(service.getUser("123", null, null).bodyString()).isEqualTo("big")
+        assertThat(service.getUser("12", null, null).bodyString()).isEqualTo("fallback")
+    }
+
+    @Test
+    fun firstDeclaredResponseWins() {
+        val service = service()
+
+        assertThat(service.getUser("1", null, "secret").bodyString()).isEqualTo("one")
+        assertThat(service.getUser("5", null, "secret").bodyString()).isEqualTo("token")
+    }
+
+    @Test
+    fun unmatchedWithoutFallbackThrows() {
+        val service = service()
+
+        assertThat(service.noFallback("1").bodyString()).isEqualTo("one")
+        assertThrows<IllegalStateException> {
+            service.noFallback("2").execute()
+        }
+    }
+
+    @Test
+    fun unknownArgumentThrows() {
+        val service = service()
+
+        assertThrows<IllegalArgumentException> {
+            service.unknownArgument("1")
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package co.infinum.retromock
+
+import co.infinum.retromock.helpers.ImmediateBehavior
+import co.infinum.retromock.meta.Mock
+import co.infinum.retromock.meta.MockResponse
+import okhttp3.ResponseBody
+import okio.Buffer
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import retrofit2.Call
+import retrofit2.Retrofit
+import retrofit2.http.Body
+import retrofit2.http.GET
+import retrofit2.http.Header
+import retrofit2.http.POST
+import retrofit2.http.Path
+import retrofit2.http.Query
+
+class ResponseTemplateTest {
+
+    class Address(val city: String)
+
+    class User(val name: String, val address: Address?)
+
+    interface Service {
+
+        @GET("/users/{id}")
+        fun getUser(@Path("id") id: String, @Query("lang") lang: String?): Call<ResponseBody>
+
+        @GET("/users/{id}")
+        fun ambiguous(@Path("id") id: String, @Query("id") query: String): Call<ResponseBody>
+
+        @POST("/users")
+        fun createUser(@Header("Token") token: String, @Body user: User): Call<ResponseBody>
+
+        @Mock
+        @MockResponse(body = "{\"id\":\"{{id}}\"}", bodyFactory = TemplateBodyFactory::class)
+        @GET("/users/{id}")
+        fun mocked(@Path("id") id: String): Call<ResponseBody>
+    }
+
+    private fun method(name: String) = Service::class.java.declaredMethods.first { it.name == name }
+
+    @Test
+    fun literalOnly() {
+        val template = ResponseTemplate.compile("{\"a\":{\"b\":1}}", method("getUser"))
+
+        assertThat(template.render(arrayOf("1", null))).isEqualTo("{\"a\":{\"b\":1}}")
+    }
+
+    @Test
+    fun plainAndQualifiedNames() {
+        val template = ResponseTemplate.compile(
+            "{\"id\":\"{{id}}\",\"lang\":\"{{ query.lang }}\"}",
+            method("getUser")
+        )
+
+        assertThat(template.render(arrayOf("42", "en"))).isEqualTo("{\"id\":\"42\",\"lang\":\"en\"}")
+    }
+
+    @Test
+    fun nullArgumentRendersEmpty() {
+        val template = ResponseTemplate.compile("[{{path.id}}|{{lang}}]", method("getUser"))
+
+        assertThat(template.render(arrayOf("42", null))).isEqualTo("[42|]")
+    }
+
+    @Test
+    fun bodyFields() {
+        val template = ResponseTemplate.compile(
+            "{{header.Token}}:{{body.name}}@{{body.address.city}}",
+            method("createUser")
+        )
+
+        assertThat(template.render(arrayOf("t", User("John", Address("Zagreb")))))
+            .isEqualTo("t:John@Zagreb")
+        assertThat(template.render(arrayOf("t", User("John", null))))
+            .isEqualTo("t:John@")
+    }
+
+    @Test
+    fun rendersIntoBuffer() {
+        val template = ResponseTemplate.compile("id={{id}}", method("getUser"))
+        val buffer = Buffer()
+
+        template.writeTo(buffer, arrayOf("č", null))
+
+        assertThat(buffer.readUtf8()).isEqualTo("id=č")
+    }
+
+    @Test
+    fun unclosedPlaceholderIsLiteral() {
+        val template = ResponseTemplate.compile("{{id}} {{id", method("getUser"))
+
+        assertThat(template.render(arrayOf("1", null))).isEqualTo("1 {{id")
+    }
+
+    @Test
+    fun unknownNameThrows() {
+        assertThrows<IllegalArgumentException> {
+            ResponseTemplate.compile("{{name}}", method("getUser"))
+        }
+    }
+
+    @Test
+    fun ambiguousNameThrows() {
+        assertThrows<IllegalArgumentException> {
+            ResponseTemplate.compile("{{id}}", method("ambiguous"))
+        }
+        ResponseTemplate.compile("{{path.id}}{{query.id}}", method("ambiguous"))
+    }
+
+    @Test
+    fun unknownBodyFieldThrows() {
+        assertThrows<IllegalArgumentException> {
+            ResponseTemplate.compile("{{body.surname}}", method("createUser"))
+        }
+    }
+
+    @Test
+    fun mockedMethodRendersArguments() {
+        val retromock = Retromock.Builder()
+            .retrofit(Retrofit.Builder()
+                .baseUrl("http://infinum.co/")
+                .build())
+            .defaultBehavior(ImmediateBehavior())
+            .build()
+
+        val service = retromock.create(Service::class.java)
+
+        assertThat(service.mocked("7").execute().body()?.string()).isEqualTo("{\"id\":\"7\"}")
+        assertThat(service.mocked("8").execute().body()?.string()).isEqualTo("{\"id\":\"8\"}")
+    }
+}
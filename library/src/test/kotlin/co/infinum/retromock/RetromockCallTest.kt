@@ -19,9 +19,12 @@ import retrofit2.Call
 import retrofit2.Callback
 import retrofit2.Response
 import java.io.IOException
+import java.util.concurrent.Callable
+import java.util.concurrent.CountDownLatch
 import java.util.concurrent.Executor
 import java.util.concurrent.ExecutorService
 import java.util.concurrent.Executors
+import java.util.concurrent.ScheduledExecutorService
 import java.util.concurrent.TimeUnit
 
 @ExtendWith(MockitoExtension::class)
@@ -41,12 +44,20 @@ class RetromockCallTest {
         callbackExecutor = MoreExecutors.directExecutor()
     }
 
+    private fun config(
+        background: ExecutorService = backgroundExecutor,
+        callback: Executor = callbackExecutor,
+        delayFromStart: Boolean = false,
+        delayScheduler: ScheduledExecutorService? = null,
+        lazyConversion: Boolean = false
+    ) = CallConfig(background, callback, null, delayFromStart, delayScheduler, lazyConversion, false)
+
     @Test
     fun http200Sync() {
         val body = "Response body content"
         val delegate = Calls.response(body)
 
-        retromockCall = RetromockCall(behavior, backgroundExecutor, callbackExecutor, delegate)
+        retromockCall = RetromockCall(behavior, delegate, null, null, config())
         whenever(behavior.delayMillis()).thenReturn(0)
 
         val actualResponse = retromockCall.execute()
@@ -65,7 +76,7 @@ class RetromockCallTest {
         val callCaptor = captor<Call<String>>()
         val responseCaptor = captor<Response<String>>()
 
-        retromockCall = RetromockCall(behavior, backgroundExecutor, callbackExecutor, delegate)
+        retromockCall = RetromockCall(behavior, delegate, null, null, config())
         whenever(behavior.delayMillis()).thenReturn(0)
 
         retromockCall.enqueue(callback)
@@ -84,7 +95,7 @@ class RetromockCallTest {
         val body = "Response body content"
         val delegate = Calls.response(Response.error<String>(404, ResponseBody.create("text/plain".toMediaTypeOrNull(), body)))
 
-        retromockCall = RetromockCall(behavior, backgroundExecutor, callbackExecutor, delegate)
+        retromockCall = RetromockCall(behavior, delegate, null, null, config())
         whenever(behavior.delayMillis()).thenReturn(0)
 
         val actualResponse = retromockCall.execute()
@@ -103,7 +114,7 @@ class RetromockCallTest {
         val callCaptor = captor<Call<String>>()
         val responseCaptor = captor<Response<String>>()
 
-        retromockCall = RetromockCall(behavior, backgroundExecutor, callbackExecutor, delegate)
+        retromockCall = RetromockCall(behavior, delegate, null, null, config())
         whenever(behavior.delayMillis()).thenReturn(0)
 
         retromockCall.enqueue(callback)
@@ -121,7 +132,7 @@ class RetromockCallTest {
     fun transportProblem() {
         val delegate = Calls.failure<String>(IOException("Socket closed."))
 
-        retromockCall = RetromockCall(behavior, backgroundExecutor, callbackExecutor, delegate)
+        retromockCall = RetromockCall(behavior, delegate, null, null, config())
         whenever(behavior.delayMillis()).thenReturn(0)
 
         assertThrows<IOException> {
@@ -138,7 +149,7 @@ class RetromockCallTest {
         val callCaptor = captor<Call<String>>()
         val errorCaptor = captor<Throwable>()
 
-        retromockCall = RetromockCall(behavior, backgroundExecutor, callbackExecutor, delegate)
+        retromockCall = RetromockCall(behavior, delegate, null, null, config())
         whenever(behavior.delayMillis()).thenReturn(0)
 
         retromockCall.enqueue(callback)
@@ -157,7 +168,7 @@ class RetromockCallTest {
         val body = "Response body content"
         val delegate = Calls.response(body)
 
-        retromockCall = RetromockCall(behavior, backgroundExecutor, callbackExecutor, delegate)
+        retromockCall = RetromockCall(behavior, delegate, null, null, config())
         whenever(behavior.delayMillis()).thenReturn(0)
 
         val actualResponse = retromockCall.execute()
@@ -170,7 +181,7 @@ class RetromockCallTest {
         val body = "Response body content"
         val delegate = Calls.response(body)
 
-        retromockCall = RetromockCall(behavior, backgroundExecutor, callbackExecutor, delegate)
+        retromockCall = RetromockCall(behavior, delegate, null, null, config())
 
         assertThat(retromockCall.request()).isEqualTo(delegate.request())
     }
@@ -180,7 +191,7 @@ class RetromockCallTest {
         val body = "Response body content"
         val delegate = Calls.response(body)
 
-        retromockCall = RetromockCall(behavior, backgroundExecutor, callbackExecutor, delegate)
+        retromockCall = RetromockCall(behavior, delegate, null, null, config())
         whenever(behavior.delayMillis()).thenReturn(0)
 
         retromockCall.execute()
@@ -195,7 +206,7 @@ class RetromockCallTest {
         val body = "Response body content"
         val delegate = Calls.response(body)
 
-        retromockCall = RetromockCall(behavior, backgroundExecutor, callbackExecutor, delegate)
+        retromockCall = RetromockCall(behavior, delegate, null, null, config())
         whenever(behavior.delayMillis()).thenReturn(0)
 
         retromockCall.execute()
@@ -210,7 +221,7 @@ class RetromockCallTest {
         val body = "Response body content"
         val delegate = Calls.response(body)
 
-        retromockCall = RetromockCall(behavior, backgroundExecutor, callbackExecutor, delegate)
+        retromockCall = RetromockCall(behavior, delegate, null, null, config())
 
         retromockCall.cancel()
 
@@ -224,7 +235,7 @@ class RetromockCallTest {
         val body = "Response body content"
         val delegate = Calls.response(body)
 
-        retromockCall = RetromockCall(behavior, backgroundExecutor, callbackExecutor, delegate)
+        retromockCall = RetromockCall(behavior, delegate, null, null, config())
         val callback = mock<Callback<String>>()
 
         retromockCall.cancel()
@@ -239,7 +250,7 @@ class RetromockCallTest {
         val body = "Response body content"
         val delegate = Calls.response(body)
 
-        retromockCall = RetromockCall(behavior, backgroundExecutor, callbackExecutor, delegate)
+        retromockCall = RetromockCall(behavior, delegate, null, null, config())
         retromockCall.execute()
 
         assertThat(retromockCall.isExecuted).isTrue()
@@ -250,7 +261,7 @@ class RetromockCallTest {
         val body = "Response body content"
         val delegate = Calls.response(body)
 
-        retromockCall = RetromockCall(behavior, backgroundExecutor, callbackExecutor, delegate)
+        retromockCall = RetromockCall(behavior, delegate, null, null, config())
         retromockCall.cancel()
 
         assertThat(retromockCall.isCanceled).isTrue()
@@ -261,7 +272,7 @@ class RetromockCallTest {
         val body = "Response body content"
         val delegate = Calls.response(body)
 
-        retromockCall = RetromockCall(behavior, backgroundExecutor, callbackExecutor, delegate)
+        retromockCall = RetromockCall(behavior, delegate, null, null, config())
         retromockCall.execute()
         retromockCall.cancel()
 
@@ -279,12 +290,7 @@ class RetromockCallTest {
 
         val service = Executors.newScheduledThreadPool(3)
 
-        retromockCall = RetromockCall(
-                behavior,
-                service,
-                service,
-                delegate
-        )
+        retromockCall = RetromockCall(behavior, delegate, null, null, config(service, service))
 
         try {
             service.schedule(
@@ -313,12 +319,7 @@ class RetromockCallTest {
 
         val service = Executors.newScheduledThreadPool(3)
 
-        retromockCall = RetromockCall(
-                behavior,
-                service,
-                service,
-                delegate
-        )
+        retromockCall = RetromockCall(behavior, delegate, null, null, config(service, service))
 
         try {
             service.schedule(
@@ -336,4 +337,192 @@ class RetromockCallTest {
             service.shutdownNow()
         }
     }
+
+    @Test
+    fun delayFromStartSubtractsQueueingTime() {
+        whenever(behavior.delayMillis()).thenReturn(200)
+        val service = Executors.newSingleThreadExecutor()
+
+        try {
+            val calls = List(3) {
+                RetromockCall(
+                        behavior,
+                        Calls.response("body"),
+                        null,
+                        null,
+                        config(background = service, delayFromStart = true)
+                )
+            }
+
+            val start = System.nanoTime()
+            val callback = mock<Callback<String>>()
+            calls.forEach { it.enqueue(callback) }
+
+            verify(callback, timeout(1000).times(3)).onResponse(any(), any())
+            // without compensation calls queued behind each other would take 600ms in total
+            assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(450)
+        } finally {
+            service.shutdownNow()
+        }
+    }
+
+    @Test
+    fun executeDelaysOnCallingThread() {
+        whenever(behavior.delayMillis()).thenReturn(100)
+        val background = mock<ExecutorService>()
+
+        retromockCall = RetromockCall(behavior, Calls.response("body"), null, null, config(background = background))
+
+        val start = System.nanoTime()
+        val response = retromockCall.execute()
+
+        assertThat(response.body()).isEqualTo("body")
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isGreaterThanOrEqualTo(100)
+        verifyNoInteractions(background)
+    }
+
+    @Test
+    fun scheduledCallsDoNotBlockThreadDuringDelay() {
+        whenever(behavior.delayMillis()).thenReturn(200)
+        val background = mock<ExecutorService>()
+        val scheduler = Executors.newSingleThreadScheduledExecutor()
+
+        try {
+            val calls = List(3) {
+                RetromockCall(
+                        behavior,
+                        Calls.response("body"),
+                        null,
+                        null,
+                        config(background = background, delayScheduler = scheduler)
+                )
+            }
+
+            val start = System.nanoTime()
+            val callback = mock<Callback<String>>()
+            calls.forEach { it.enqueue(callback) }
+
+            verify(callback, timeout(1000).times(3)).onResponse(any(), any())
+            // a single thread sleeping through each delay would take 600ms in total
+            assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(450)
+            verifyNoInteractions(background)
+        } finally {
+            scheduler.shutdownNow()
+        }
+    }
+
+    @Test
+    fun cancelledScheduledCallFailsCallback() {
+        val delegate = mock<Call<String>>()
+        whenever(behavior.delayMillis()).thenReturn(500)
+        val callback = mock<Callback<String>>()
+        val scheduler = Executors.newSingleThreadScheduledExecutor()
+
+        try {
+            retromockCall = RetromockCall(
+                    behavior,
+                    delegate,
+                    null,
+                    null,
+                    config(delayScheduler = scheduler)
+            )
+
+            retromockCall.enqueue(callback)
+            retromockCall.cancel()
+
+            verify(callback).onFailure(any(), any(IOException::class.java))
+            verifyNoMoreInteractions(callback)
+            verify(delegate, never()).enqueue(any())
+        } finally {
+            scheduler.shutdownNow()
+        }
+    }
+
+    @Test
+    fun cancelledScheduledCallFailsCallbackOnCallbackExecutor() {
+        whenever(behavior.delayMillis()).thenReturn(500)
+        val scheduler = Executors.newSingleThreadScheduledExecutor()
+        val callbackThread = Executors.newSingleThreadExecutor()
+        var failureThread: Thread? = null
+        val failed = CountDownLatch(1)
+
+        try {
+            retromockCall = RetromockCall(
+                    behavior,
+                    mock<Call<String>>(),
+                    null,
+                    null,
+                    config(callback = callbackThread, delayScheduler = scheduler)
+            )
+
+            retromockCall.enqueue(object : Callback<String> {
+                override fun onResponse(call: Call<String>, response: Response<String>) = Unit
+
+                override fun onFailure(call: Call<String>, t: Throwable) {
+                    failureThread = Thread.currentThread()
+                    failed.countDown()
+                }
+            })
+            retromockCall.cancel()
+
+            assertThat(failed.await(1, TimeUnit.SECONDS)).isTrue()
+            val expected = callbackThread.submit(Callable { Thread.currentThread() }).get()
+            assertThat(failureThread).isSameAs(expected)
+        } finally {
+            scheduler.shutdownNow()
+            callbackThread.shutdownNow()
+        }
+    }
+
+    @Test
+    fun lazyConversionCreatesResponseOnCallbackExecutor() {
+        whenever(behavior.delayMillis()).thenReturn(0)
+        val callbackThread = Executors.newSingleThreadExecutor()
+        var conversionThread: Thread? = null
+        val delegate = Calls.defer(Callable {
+            conversionThread = Thread.currentThread()
+            Calls.response("body")
+        })
+
+        try {
+            retromockCall = RetromockCall(
+                    behavior,
+                    delegate,
+                    null,
+                    null,
+                    config(callback = callbackThread, lazyConversion = true)
+            )
+            val callback = mock<Callback<String>>()
+            retromockCall.enqueue(callback)
+
+            verify(callback, timeout(1000)).onResponse(any(), any())
+            val expected = callbackThread.submit(Callable { Thread.currentThread() }).get()
+            assertThat(conversionThread).isSameAs(expected)
+        } finally {
+            callbackThread.shutdownNow()
+        }
+    }
+
+    @Test
+    fun lazyConversionSkipsCallsCanceledBeforeCallback() {
+        whenever(behavior.delayMillis()).thenReturn(0)
+        val pending = mutableListOf<Runnable>()
+        val callable = mock<Callable<Call<String>>>()
+
+        retromockCall = RetromockCall(
+                behavior,
+                Calls.defer(callable),
+                null,
+                null,
+                config(callback = { pending.add(it) }, lazyConversion = true)
+        )
+        val callback = mock<Callback<String>>()
+        retromockCall.enqueue(callback)
+        retromockCall.cancel()
+        pending.forEach { it.run() }
+
+        verify(callback).onFailure(any(), any(IOException::class.java))
+        verifyNoMoreInteractions(callback)
+        verifyNoInteractions(callable)
+    }
 }
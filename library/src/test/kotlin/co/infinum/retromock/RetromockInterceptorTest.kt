@@ -0,0 +1,129 @@
+package co.infinum.retromock
+
+import co.infinum.retromock.helpers.ImmediateBehavior
+import co.infinum.retromock.helpers.mock
+import co.infinum.retromock.helpers.whenever
+import co.infinum.retromock.meta.Mock
+import co.infinum.retromock.meta.MockBehavior
+import co.infinum.retromock.meta.MockHeader
+import co.infinum.retromock.meta.MockResponse
+import okhttp3.Interceptor
+import okhttp3.Protocol
+import okhttp3.Request
+import okhttp3.Response
+import okhttp3.ResponseBody
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import org.mockito.Mockito.never
+import org.mockito.Mockito.verify
+import retrofit2.Call
+import retrofit2.Invocation
+import retrofit2.Retrofit
+import retrofit2.http.GET
+import java.io.IOException
+
+class RetromockInterceptorTest {
+
+    interface Service {
+
+        @Mock
+        @MockResponse(
+            code = 201,
+            message = "Created",
+            body = "mocked",
+            headers = [MockHeader(name = "Content-Type", value = "text/plain")]
+        )
+        @GET("/mocked")
+        fun mocked(): Call<ResponseBody>
+
+        @Mock
+        @MockBehavior(durationMillis = 10_000, durationDeviation = 0)
+        @GET("/slow")
+        fun slow(): Call<ResponseBody>
+
+        @GET("/real")
+        fun real(): Call<ResponseBody>
+    }
+
+    private val interceptor = RetromockInterceptor(Retromock.Builder()
+        .retrofit(Retrofit.Builder()
+            .baseUrl("http://infinum.co/")
+            .build())
+        .defaultBehavior(ImmediateBehavior())
+        .build())
+
+    private fun chain(name: String?, canceled: Boolean = false): Interceptor.Chain {
+        val builder = Request.Builder().url("http://infinum.co/")
+        if (name != null) {
+            val invocation = Invocation.of(
+                Service::class.java,
+                mock<Service>(),
+                Service::class.java.getMethod(name),
+                listOf<Any>()
+            )
+            builder.tag(Invocation::class.java, invocation)
+        }
+        val request = builder.build()
+        val call = mock<okhttp3.Call>()
+        whenever(call.isCanceled()).thenReturn(canceled)
+
+        val chain = mock<Interceptor.Chain>()
+        whenever(chain.request()).thenReturn(request)
+        whenever(chain.call()).thenReturn(call)
+        whenever(chain.proceed(request)).thenReturn(Response.Builder()
+            .request(request)
+            .protocol(Protocol.HTTP_1_1)
+            .code(200)
+            .message("OK")
+            .build())
+        return chain
+    }
+
+    @Test
+    fun mockedMethodIsServedWithoutNetwork() {
+        val chain = chain("mocked")
+        val request = chain.request()
+
+        val response = interceptor.intercept(chain)
+
+        verify(chain, never()).proceed(request)
+        assertThat(response.request).isSameAs(request)
+        assertThat(response.code).isEqualTo(201)
+        assertThat(response.message).isEqualTo("Created")
+        assertThat(response.header("Content-Type")).isEqualTo("text/plain")
+        assertThat(response.body?.string()).isEqualTo("mocked")
+    }
+
+    @Test
+    fun notMockedMethodIsPassedOn() {
+        val chain = chain("real")
+        val request = chain.request()
+
+        val response = interceptor.intercept(chain)
+
+        verify(chain).proceed(request)
+        assertThat(response.code).isEqualTo(200)
+    }
+
+    @Test
+    fun requestWithoutInvocationIsPassedOn() {
+        val chain = chain(null)
+        val request = chain.request()
+
+        interceptor.intercept(chain)
+
+        verify(chain).proceed(request)
+    }
+
+    @Test
+    fun canceledCallStopsDelay() {
+        val chain = chain("slow", canceled = true)
+
+        val start = System.nanoTime()
+        assertThrows<IOException> {
+            interceptor.intercept(chain)
+        }
+        assertThat(System.nanoTime() - start).isLessThan(1_000_000_000L)
+    }
+}
@@ -453,4 +453,44 @@ class RetromockTest {
         assertThat(retromock.defaultBodyFactory()).isInstanceOf(PassThroughBodyFactory::class.java)
     }
 
+    @Test
+    fun resetStartsIterationFromFirstResponse() {
+        val retromock = Retromock.Builder()
+            .retrofit(Retrofit.Builder()
+                .baseUrl("http://infinum.co/")
+                .build())
+            .defaultBehavior(ImmediateBehavior())
+            .build()
+
+        val service = retromock.create(ThreeResponsesMethod::class.java)
+
+        service.getResponseBody().execute()
+        service.getResponseBody().execute()
+        retromock.reset()
+
+        assertThat(service.getResponseBody().execute().body()?.string()).isEqualTo("Body example.")
+        assertThat(service.getResponseBody().execute().body()?.string()).isEqualTo("Body example 2.")
+    }
+
+    @Test
+    fun restoreSnapshotReturnsToCapturedState() {
+        val retromock = Retromock.Builder()
+            .retrofit(Retrofit.Builder()
+                .baseUrl("http://infinum.co/")
+                .build())
+            .defaultBehavior(ImmediateBehavior())
+            .build()
+
+        val service = retromock.create(ThreeResponsesMethod::class.java)
+
+        service.getResponseBody().execute()
+        val snapshot = retromock.snapshot()
+        service.getResponseBody().execute()
+        service.getResponseBody().execute()
+        retromock.restore(snapshot)
+
+        assertThat(snapshot.methods()).hasSize(1)
+        assertThat(service.getResponseBody().execute().body()?.string()).isEqualTo("Body example 2.")
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,193 @@
+package co.infinum.retromock
+
+import co.infinum.retromock.helpers.ImmediateBehavior
+import co.infinum.retromock.helpers.mock
+import co.infinum.retromock.meta.Mock
+import co.infinum.retromock.meta.MockBehavior
+import co.infinum.retromock.meta.MockResponse
+import io.reactivex.rxjava3.core.Completable
+import io.reactivex.rxjava3.core.Maybe
+import io.reactivex.rxjava3.core.Observable
+import io.reactivex.rxjava3.core.Single
+import io.reactivex.rxjava3.schedulers.Schedulers
+import okhttp3.ResponseBody
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import org.mockito.Mockito
+import retrofit2.HttpException
+import retrofit2.Response
+import retrofit2.Retrofit
+import retrofit2.adapter.rxjava3.Result
+import retrofit2.adapter.rxjava3.RxJava3CallAdapterFactory
+import retrofit2.http.GET
+import java.util.concurrent.Executor
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+
+class RxJavaMockTest {
+
+    interface Service {
+
+        @Mock
+        @MockResponse(body = "Body example.")
+        @GET("/")
+        fun getBody(): Single<ResponseBody>
+
+        @Mock
+        @MockResponse(body = "Body example.")
+        @GET("/")
+        fun getMaybeBody(): Maybe<ResponseBody>
+
+        @Mock
+        @MockResponse(body = "Body example.")
+        @GET("/")
+        fun getBodies(): Observable<ResponseBody>
+
+        @Mock
+        @MockResponse(code = 404, body = "Not found.")
+        @GET("/")
+        fun getMissing(): Single<ResponseBody>
+
+        @Mock
+        @MockResponse(code = 404, body = "Not found.")
+        @GET("/")
+        fun getMissingResponse(): Single<Response<ResponseBody>>
+
+        @Mock
+        @MockResponse(code = 404, body = "Not found.")
+        @GET("/")
+        fun deleteMissing(): Completable
+
+        @Mock
+        @MockResponse(body = "Body example.")
+        @MockBehavior(durationMillis = 10_000, durationDeviation = 0)
+        @GET("/")
+        fun getSlowBody(): Single<ResponseBody>
+
+        @Mock
+        @MockResponse(code = 404, body = "Not found.")
+        @GET("/")
+        fun getMissingResult(): Single<Result<ResponseBody>>
+    }
+
+    private val backgroundExecutor = mock<ExecutorService>()
+
+    private val callbackExecutor = mock<Executor>()
+
+    private val metrics = CallMetrics()
+
+    private val service = Retromock.Builder()
+        .retrofit(Retrofit.Builder()
+            .baseUrl("http://infinum.co/")
+            .addCallAdapterFactory(RxJava3CallAdapterFactory.create())
+            .build())
+        .defaultBehavior(ImmediateBehavior())
+        .backgroundExecutor(backgroundExecutor)
+        .callbackExecutor(callbackExecutor)
+        .callListener(metrics)
+        .build()
+        .create(Service::class.java)
+
+    @Test
+    fun singleIsMockedWithoutCallOrExecutors() {
+        assertThat(service.getBody().blockingGet().string()).isEqualTo("Body example.")
+        assertThat(service.getMaybeBody().blockingGet()!!.string()).isEqualTo("Body example.")
+        assertThat(service.getBodies().blockingSingle().string()).isEqualTo("Body example.")
+        Mockito.verifyNoInteractions(backgroundExecutor, callbackExecutor)
+    }
+
+    @Test
+    fun errorResponseFailsWithHttpException() {
+        val exception = assertThrows<HttpException> { service.getMissing().blockingGet() }
+
+        assertThat(exception.code()).isEqualTo(404)
+        assertThrows<HttpException> { service.deleteMissing().blockingAwait() }
+    }
+
+    @Test
+    fun errorResponseIsEmittedIfResponseIsExpected() {
+        val response = service.getMissingResponse().blockingGet()
+
+        assertThat(response.code()).isEqualTo(404)
+        assertThat(response.errorBody()?.string()).isEqualTo("Not found.")
+    }
+
+    @Test
+    fun eachSubscriptionMocksCall() {
+        val single = service.getBody()
+        val method = Service::class.java.getMethod("getBody")
+
+        assertThat(metrics.method(method)?.calls() ?: 0L).isZero()
+        single.blockingGet()
+        single.blockingGet()
+        assertThat(metrics.method(method)!!.completed()).isEqualTo(2)
+    }
+
+    @Test
+    fun disposingBeforeDelayCancelsCall() {
+        val observer = service.getSlowBody().test()
+
+        observer.dispose()
+
+        val methodMetrics = metrics.method(Service::class.java.getMethod("getSlowBody"))!!
+        assertThat(methodMetrics.cancellations()).isEqualTo(1)
+        assertThat(methodMetrics.completed()).isZero()
+        observer.assertNoValues()
+    }
+
+    @Test
+    fun resultWrappersGoThroughCallAdapter() {
+        val service = Retromock.Builder()
+            .retrofit(Retrofit.Builder()
+                .baseUrl("http://infinum.co/")
+                .addCallAdapterFactory(RxJava3CallAdapterFactory.create())
+                .build())
+            .defaultBehavior(ImmediateBehavior())
+            .build()
+            .create(Service::class.java)
+
+        val result = service.getMissingResult().blockingGet()
+
+        assertThat(result.response()!!.code()).isEqualTo(404)
+    }
+
+    @Test
+    fun valueIsEmittedOnSchedulerOfCallAdapter() {
+        val executor = Executors.newSingleThreadExecutor { Thread(it, "adapter-scheduler") }
+        val service = Retromock.Builder()
+            .retrofit(Retrofit.Builder()
+                .baseUrl("http://infinum.co/")
+                .addCallAdapterFactory(RxJava3CallAdapterFactory.createWithScheduler(Schedulers.from(executor)))
+                .build())
+            .defaultBehavior(ImmediateBehavior())
+            .build()
+            .create(Service::class.java)
+
+        try {
+            val thread = service.getBody().map { Thread.currentThread().name }.blockingGet()
+
+            assertThat(thread).isEqualTo("adapter-scheduler")
+        } finally {
+            executor.shutdown()
+        }
+    }
+
+    @Test
+    fun synchronousCallAdapterIsMockedWithoutExecutors() {
+        val service = Retromock.Builder()
+            .retrofit(Retrofit.Builder()
+                .baseUrl("http://infinum.co/")
+                .addCallAdapterFactory(RxJava3CallAdapterFactory.createSynchronous())
+                .build())
+            .defaultBehavior(ImmediateBehavior())
+            .backgroundExecutor(backgroundExecutor)
+            .callbackExecutor(callbackExecutor)
+            .build()
+            .create(Service::class.java)
+
+        assertThat(service.getBody().blockingGet().string()).isEqualTo("Body example.")
+        assertThrows<HttpException> { service.deleteMissing().blockingAwait() }
+        Mockito.verifyNoInteractions(backgroundExecutor, callbackExecutor)
+    }
+}
@@ -4,6 +4,8 @@ import org.assertj.core.api.Java6Assertions.assertThat
 import org.junit.jupiter.api.Test
 import org.junit.jupiter.api.assertThrows
 import java.lang.IllegalArgumentException
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
 
 class SequentialIteratorTest {
 
@@ -32,6 +34,24 @@ class SequentialIteratorTest {
         assertThat(iterator.next()).isSameAs(responses[2])
     }
 
+    @Test
+    fun concurrentCallsEndOnLastResponse() {
+        val responses = arrayOf(Any(), Any(), Any())
+        val iterator = SequentialIterator<Any>(responses)
+        val threads = 32
+        val executor = Executors.newFixedThreadPool(threads)
+
+        val futures = (1..threads).map {
+            executor.submit<List<Any>> { (1..1_000).map { iterator.next() } }
+        }
+        val results = futures.flatMap { it.get(30, TimeUnit.SECONDS) }
+        executor.shutdown()
+
+        assertThat(results.count { it === responses[0] }).isEqualTo(1)
+        assertThat(results.count { it === responses[1] }).isEqualTo(1)
+        assertThat(iterator.next()).isSameAs(responses[2])
+    }
+
     @Test
     fun emptyArrayThrows() {
         val responses = arrayOf<Any>()
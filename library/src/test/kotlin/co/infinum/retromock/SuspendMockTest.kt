@@ -0,0 +1,236 @@
+package co.infinum.retromock
+
+import co.infinum.retromock.helpers.ImmediateBehavior
+import co.infinum.retromock.helpers.mock
+import co.infinum.retromock.meta.Mock
+import co.infinum.retromock.meta.MockBehavior
+import co.infinum.retromock.meta.MockResponse
+import kotlinx.coroutines.TimeoutCancellationException
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.runBlocking
+import kotlinx.coroutines.withTimeout
+import okhttp3.ResponseBody
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import org.mockito.Mockito
+import retrofit2.Call
+import retrofit2.CallAdapter
+import retrofit2.Callback
+import retrofit2.HttpException
+import retrofit2.Response
+import retrofit2.Retrofit
+import retrofit2.http.GET
+import java.lang.reflect.ParameterizedType
+import java.lang.reflect.Type
+import java.util.concurrent.Executor
+import java.util.concurrent.ExecutorService
+import kotlin.coroutines.Continuation
+
+class SuspendMockTest {
+
+    interface Service {
+
+        @Mock
+        @MockResponse(body = "Body example.")
+        @GET("/")
+        suspend fun getBody(): ResponseBody
+
+        @Mock
+        @MockResponse(code = 404, body = "Not found.")
+        @GET("/")
+        suspend fun getMissing(): ResponseBody
+
+        @Mock
+        @MockResponse(code = 404, body = "Not found.")
+        @GET("/")
+        suspend fun getMissingResponse(): Response<ResponseBody>
+
+        @Mock
+        @MockResponse(body = "Body example.")
+        @MockBehavior(durationMillis = 10_000, durationDeviation = 0)
+        @GET("/")
+        suspend fun getSlowBody(): ResponseBody
+
+        @Mock
+        @MockResponse(code = 404, body = "Not found.")
+        @GET("/")
+        suspend fun getMissingOutcome(): Outcome<ResponseBody>
+    }
+
+    data class Outcome<T>(val code: Int, val body: T?)
+
+    /**
+     * Adapts calls of bodies into calls of [Outcome], which never fail on error responses.
+     */
+    private class OutcomeCallAdapterFactory : CallAdapter.Factory() {
+        override fun get(returnType: Type, annotations: Array<Annotation>, retrofit: Retrofit): CallAdapter<*, *>? {
+            if (getRawType(returnType) != Call::class.java) {
+                return null
+            }
+            val outcomeType = getParameterUpperBound(0, returnType as ParameterizedType)
+            if (getRawType(outcomeType) != Outcome::class.java) {
+                return null
+            }
+            val bodyType = getParameterUpperBound(0, outcomeType as ParameterizedType)
+            return object : CallAdapter<Any, Call<Outcome<Any>>> {
+                override fun responseType(): Type = bodyType
+
+                override fun adapt(call: Call<Any>): Call<Outcome<Any>> = OutcomeCall(call)
+            }
+        }
+    }
+
+    private class OutcomeCall<T>(private val delegate: Call<T>) : Call<Outcome<T>> {
+        override fun execute(): Response<Outcome<T>> = outcome(delegate.execute())
+
+        override fun enqueue(callback: Callback<Outcome<T>>) {
+            delegate.enqueue(object : Callback<T> {
+                override fun onResponse(call: Call<T>, response: Response<T>) {
+                    callback.onResponse(this@OutcomeCall, outcome(response))
+                }
+
+                override fun onFailure(call: Call<T>, t: Throwable) {
+                    callback.onFailure(this@OutcomeCall, t)
+                }
+            })
+        }
+
+        private fun outcome(response: Response<T>) = Response.success(Outcome(response.code(), response.body()))
+
+        override fun isExecuted() = delegate.isExecuted
+
+        override fun cancel() = delegate.cancel()
+
+        override fun isCanceled() = delegate.isCanceled
+
+        override fun clone(): Call<Outcome<T>> = OutcomeCall(delegate.clone())
+
+        override fun request() = delegate.request()
+
+        override fun timeout() = delegate.timeout()
+    }
+
+    private val backgroundExecutor = mock<ExecutorService>()
+
+    private val callbackExecutor = mock<Executor>()
+
+    private val metrics = CallMetrics()
+
+    private val service = Retromock.Builder()
+        .retrofit(Retrofit.Builder()
+            .baseUrl("http://infinum.co/")
+            .build())
+        .defaultBehavior(ImmediateBehavior())
+        .backgroundExecutor(backgroundExecutor)
+        .callbackExecutor(callbackExecutor)
+        .callListener(metrics)
+        .build()
+        .create(Service::class.java)
+
+    private fun method(name: String) = Service::class.java.getMethod(name, Continuation::class.java)
+
+    @Test
+    fun callIsMockedInCallingCoroutine() {
+        val body = runBlocking { service.getBody() }
+
+        assertThat(body.string()).isEqualTo("Body example.")
+        Mockito.verifyNoInteractions(backgroundExecutor, callbackExecutor)
+
+        val methodMetrics = metrics.method(method("getBody"))!!
+        assertThat(methodMetrics.calls()).isEqualTo(1)
+        assertThat(methodMetrics.completed()).isEqualTo(1)
+    }
+
+    @Test
+    fun errorResponseThrowsHttpException() {
+        val exception = assertThrows<HttpException> {
+            runBlocking { service.getMissing() }
+        }
+
+        assertThat(exception.code()).isEqualTo(404)
+        assertThat(exception.response()?.errorBody()?.string()).isEqualTo("Not found.")
+    }
+
+    @Test
+    fun immediateErrorIsThrownWithoutSuspending() {
+        var siblingRan = false
+        runBlocking {
+            launch { siblingRan = true }
+            val error = try {
+                service.getMissing()
+                null
+            } catch (e: HttpException) {
+                e
+            }
+            assertThat(error).isNotNull()
+            // a suspension would let the sibling coroutine run first
+            assertThat(siblingRan).isFalse()
+        }
+        assertThat(siblingRan).isTrue()
+    }
+
+    @Test
+    fun errorResponseIsReturnedIfResponseIsExpected() {
+        val response = runBlocking { service.getMissingResponse() }
+
+        assertThat(response.code()).isEqualTo(404)
+        assertThat(response.errorBody()?.string()).isEqualTo("Not found.")
+    }
+
+    @Test
+    fun customCallAdapterHandlesSuspendCalls() {
+        val service = Retromock.Builder()
+            .retrofit(Retrofit.Builder()
+                .baseUrl("http://infinum.co/")
+                .addCallAdapterFactory(OutcomeCallAdapterFactory())
+                .build())
+            .defaultBehavior(ImmediateBehavior())
+            .build()
+            .create(Service::class.java)
+
+        val outcome = runBlocking { service.getMissingOutcome() }
+
+        assertThat(outcome.code).isEqualTo(404)
+        assertThat(outcome.body).isNull()
+        // plain bodies are still mocked in the calling coroutine
+        assertThat(runBlocking { service.getBody() }.string()).isEqualTo("Body example.")
+    }
+
+    @Test
+    fun callIsMockedInCallingCoroutineWithRetrofitCallbackExecutor() {
+        val retrofitExecutor = mock<Executor>()
+        val service = Retromock.Builder()
+            .retrofit(Retrofit.Builder()
+                .baseUrl("http://infinum.co/")
+                .callbackExecutor(retrofitExecutor)
+                .build())
+            .defaultBehavior(ImmediateBehavior())
+            .backgroundExecutor(backgroundExecutor)
+            .callbackExecutor(callbackExecutor)
+            .build()
+            .create(Service::class.java)
+
+        val body = runBlocking { service.getBody() }
+
+        assertThat(body.string()).isEqualTo("Body example.")
+        Mockito.verifyNoInteractions(backgroundExecutor, callbackExecutor, retrofitExecutor)
+    }
+
+    @Test
+    fun cancelingCoroutineCancelsDelay() {
+        val start = System.nanoTime()
+        assertThrows<TimeoutCancellationException> {
+            runBlocking {
+                withTimeout(100) {
+                    service.getSlowBody()
+                }
+            }
+        }
+
+        assertThat(System.nanoTime() - start).isLessThan(5_000_000_000L)
+        val methodMetrics = metrics.method(method("getSlowBody"))!!
+        assertThat(methodMetrics.cancellations()).isEqualTo(1)
+        assertThat(methodMetrics.completed()).isZero()
+    }
+}
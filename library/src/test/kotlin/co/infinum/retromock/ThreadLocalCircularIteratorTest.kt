@@ -0,0 +1,50 @@
+package co.infinum.retromock
+
+import org.assertj.core.api.Java6Assertions.assertThat
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+class ThreadLocalCircularIteratorTest {
+
+    @Test
+    fun repeatAfterLastResponse() {
+        val responses = arrayOf(Any(), Any(), Any())
+
+        val iterator = ThreadLocalCircularIterator<Any>(responses)
+
+        assertThat(iterator.next()).isSameAs(responses[0])
+        assertThat(iterator.next()).isSameAs(responses[1])
+        assertThat(iterator.next()).isSameAs(responses[2])
+        assertThat(iterator.next()).isSameAs(responses[0])
+    }
+
+    @Test
+    fun eachThreadHasOwnOrder() {
+        val responses = arrayOf(Any(), Any(), Any())
+        val iterator = ThreadLocalCircularIterator<Any>(responses)
+        val threads = 32
+        val executor = Executors.newFixedThreadPool(threads)
+
+        iterator.next()
+
+        val futures = (1..threads).map {
+            executor.submit<List<Any>> { (1..4).map { iterator.next() } }
+        }
+        futures.forEach {
+            assertThat(it.get(30, TimeUnit.SECONDS))
+                .containsExactly(responses[0], responses[1], responses[2], responses[0])
+        }
+        executor.shutdown()
+    }
+
+    @Test
+    fun emptyArrayThrows() {
+        val responses = arrayOf<Any>()
+
+        assertThrows<IllegalArgumentException> {
+            ThreadLocalCircularIterator<Any>(responses)
+        }
+    }
+}
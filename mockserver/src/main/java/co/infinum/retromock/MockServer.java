@@ -0,0 +1,693 @@
+package co.infinum.retromock;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nullable;
+
+import okhttp3.Headers;
+import okhttp3.HttpUrl;
+import okio.BufferedSource;
+
+/**
+ * HTTP server serving mocked responses of service methods over real sockets, so processes other
+ * than the one running Retromock can use the mocks.
+ * <p>
+ * Requests are matched to methods of registered services by HTTP method annotation and relative
+ * URL resolved against the base URL of Retromock's Retrofit instance, and mocked using the same
+ * annotations, response providers and behaviors as services created by
+ * {@link Retromock#create(Class)}. Requests that match no mocked service method get 404.
+ * <p>
+ * The server runs on a single thread using non-blocking sockets. Behavior delays are scheduled on
+ * that thread instead of blocking it, so one server handles many concurrent delayed requests.
+ * Response bodies are created on the server thread too, keep body factories fast. The server
+ * supports HTTP/1.1 with keep-alive; request bodies have to declare {@code Content-Length}.
+ * A request handling of which throws closes only its own connection, the server keeps serving.
+ * <pre><code>
+ *   MockServer server = new MockServer(retromock, Service.class);
+ *   server.start(8080);
+ *   // clients use server.url() as the base URL
+ *   server.close();
+ * </code></pre>
+ */
+public final class MockServer implements Closeable {
+
+  /**
+   * Size of the initial read buffer of a connection.
+   */
+  private static final int READ_BUFFER_SIZE = 8 * 1024;
+
+  /**
+   * Maximum size of a request, headers and body included.
+   */
+  private static final int MAX_REQUEST_SIZE = 1024 * 1024;
+
+  /**
+   * Maximum number of pending connections.
+   */
+  private static final int BACKLOG = 1024;
+
+  /**
+   * HTTP status of requests that match no mocked service method.
+   */
+  private static final int NOT_FOUND = 404;
+
+  /**
+   * HTTP status of requests that are too large.
+   */
+  private static final int TOO_LARGE = 413;
+
+  /**
+   * HTTP status of malformed requests.
+   */
+  private static final int BAD_REQUEST = 400;
+
+  /**
+   * HTTP status of requests mocking of which failed.
+   */
+  private static final int SERVER_ERROR = 500;
+
+  /**
+   * Number of parts of an HTTP request line: method, target and version.
+   */
+  private static final int REQUEST_LINE_PARTS = 3;
+
+  /**
+   * Nanoseconds added to a wait before converting it to milliseconds, so it is rounded up.
+   */
+  private static final long ROUND_UP_NANOS = TimeUnit.MILLISECONDS.toNanos(1) - 1;
+
+  /**
+   * Line separator of HTTP messages.
+   */
+  private static final String CRLF = "\r\n";
+
+  /**
+   * Separator of HTTP message headers and body.
+   */
+  private static final byte[] HEADERS_END = {'\r', '\n', '\r', '\n'};
+
+  /**
+   * Instance service methods are parsed by.
+   */
+  private final Retromock retromock;
+
+  /**
+   * Base URL path relative URLs are resolved against.
+   */
+  private final String basePath;
+
+  /**
+   * Routes of registered service methods.
+   */
+  private final List<ServiceRoute> routes;
+
+  /**
+   * Delayed responses ordered by deadline, accessed only on the server thread.
+   */
+  private final Queue<Delayed> delayed = new PriorityQueue<>(new Comparator<Delayed>() {
+    @Override
+    public int compare(final Delayed first, final Delayed second) {
+      return Long.compare(first.deadlineNanos, second.deadlineNanos);
+    }
+  });
+
+  /**
+   * Selector of the server socket and connections, {@code null} if the server is not started.
+   */
+  @Nullable
+  private Selector selector;
+
+  /**
+   * Server socket, {@code null} if the server is not started.
+   */
+  @Nullable
+  private ServerSocketChannel server;
+
+  /**
+   * Thread running the event loop, {@code null} if the server is not started.
+   */
+  @Nullable
+  private Thread thread;
+
+  /**
+   * Flag indicating whether the event loop should keep running.
+   */
+  private volatile boolean running;
+
+  /**
+   * Creates a server serving mocks of the services.
+   *
+   * @param retromock Instance service methods are mocked by.
+   * @param services  Service interfaces requests are matched to.
+   */
+  public MockServer(final Retromock retromock, final Class<?>... services) {
+    Preconditions.checkNotNull(retromock, "Retromock is null.");
+    HttpUrl baseUrl = retromock.retrofit().baseUrl();
+    this.retromock = retromock;
+    this.basePath = baseUrl.encodedPath();
+    this.routes = ServiceRoute.of(baseUrl, false, services);
+  }
+
+  /**
+   * Starts the server on the loopback address.
+   *
+   * @param port Port to listen on, 0 to choose a free one.
+   * @throws IOException if the port cannot be bound.
+   */
+  public void start(final int port) throws IOException {
+    start(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+  }
+
+  /**
+   * Starts the server.
+   *
+   * @param address Address to listen on.
+   * @throws IOException if the address cannot be bound.
+   */
+  public synchronized void start(final InetSocketAddress address) throws IOException {
+    if (selector != null) {
+      throw new IllegalStateException("Server is already started.");
+    }
+    Selector selector = Selector.open();
+    ServerSocketChannel server = ServerSocketChannel.open();
+    try {
+      server.configureBlocking(false);
+      server.bind(address, BACKLOG);
+      server.register(selector, SelectionKey.OP_ACCEPT);
+    } catch (IOException e) {
+      server.close();
+      selector.close();
+      throw e;
+    }
+    this.selector = selector;
+    this.server = server;
+    this.running = true;
+    this.thread = new DefaultThreadFactory().newThread(new Runnable() {
+      @Override
+      public void run() {
+        loop();
+      }
+    });
+    thread.start();
+  }
+
+  /**
+   * @return Address the server listens on.
+   */
+  public synchronized InetSocketAddress address() {
+    if (server == null) {
+      throw new IllegalStateException("Server is not started.");
+    }
+    return (InetSocketAddress) server.socket().getLocalSocketAddress();
+  }
+
+  /**
+   * @return Base URL clients should use, the server address with the path of Retrofit's base URL.
+   */
+  public HttpUrl url() {
+    InetSocketAddress address = address();
+    String host = address.getAddress().getHostAddress();
+    if (host.indexOf(':') >= 0) {
+      host = "[" + host + "]";
+    }
+    return HttpUrl.get("http://" + host + ":" + address.getPort() + basePath);
+  }
+
+  /**
+   * Stops the server and closes all connections. Responses waiting for their delay are dropped.
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    if (selector == null || thread == null) {
+      return;
+    }
+    running = false;
+    selector.wakeup();
+    try {
+      thread.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    for (SelectionKey key : selector.keys()) {
+      key.channel().close();
+    }
+    selector.close();
+    selector = null;
+    server = null;
+    thread = null;
+  }
+
+  private void loop() {
+    Selector selector = this.selector;
+    while (running) {
+      try {
+        Delayed next = delayed.peek();
+        if (next == null) {
+          selector.select();
+        } else {
+          long waitNanos = next.deadlineNanos - System.nanoTime();
+          if (waitNanos > 0) {
+            // round up, select would return before the deadline otherwise
+            selector.select(TimeUnit.NANOSECONDS.toMillis(waitNanos + ROUND_UP_NANOS));
+          } else {
+            selector.selectNow();
+          }
+        }
+
+        Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+          SelectionKey key = keys.next();
+          keys.remove();
+          try {
+            handle(selector, key);
+          } catch (RuntimeException e) {
+            // a bug or a canceled key must not stop the server, drop only this connection
+            close(key);
+          }
+        }
+
+        long now = System.nanoTime();
+        while (!delayed.isEmpty() && delayed.peek().deadlineNanos - now <= 0) {
+          Delayed response = delayed.poll();
+          try {
+            response.connection.send(response.bytes);
+          } catch (RuntimeException e) {
+            response.connection.close();
+          }
+        }
+      } catch (IOException ignored) {
+        // keep serving other connections, failed ones are already closed
+      }
+    }
+    delayed.clear();
+  }
+
+  private static void close(final SelectionKey key) {
+    Object attachment = key.attachment();
+    if (attachment instanceof Connection) {
+      ((Connection) attachment).close();
+      return;
+    }
+    key.cancel();
+    try {
+      key.channel().close();
+    } catch (IOException ignored) {
+      // nothing to do, the channel is closed anyway
+    }
+  }
+
+  private void handle(final Selector selector, final SelectionKey key) throws IOException {
+    if (!key.isValid()) {
+      return;
+    }
+    if (key.isAcceptable()) {
+      SocketChannel channel = ((ServerSocketChannel) key.channel()).accept();
+      if (channel != null) {
+        channel.configureBlocking(false);
+        SelectionKey connectionKey = channel.register(selector, SelectionKey.OP_READ);
+        connectionKey.attach(new Connection(channel, connectionKey));
+      }
+      return;
+    }
+    Connection connection = (Connection) key.attachment();
+    try {
+      if (key.isReadable()) {
+        connection.read();
+      }
+      if (key.isValid() && key.isWritable()) {
+        connection.write();
+      }
+    } catch (IOException e) {
+      connection.close();
+    }
+  }
+
+  private Response respond(
+    final String method,
+    final String target,
+    final Map<String, String> headers,
+    final byte[] body) {
+
+    HttpUrl url = target.startsWith("/") ? HttpUrl.parse("http://localhost" + target) : HttpUrl.parse(target);
+    if (url == null) {
+      return Response.error(BAD_REQUEST, "Bad Request", "Invalid request target " + target);
+    }
+
+    Map<String, String> fields = Collections.emptyMap();
+    String contentType = headers.get("content-type");
+    if (body.length > 0 && contentType != null && contentType.startsWith(ServiceRoute.FORM)) {
+      fields = new HashMap<>();
+      ServiceRoute.parseForm(new String(body, StandardCharsets.UTF_8), fields);
+    }
+
+    for (ServiceRoute route : routes) {
+      Object[] args = route.match(method, url, headers, fields);
+      if (args == null) {
+        continue;
+      }
+      RetromockMethod mockMethod;
+      try {
+        mockMethod = retromock.findRetromockMethod(route.arguments().method());
+      } catch (Retromock.DisabledException e) {
+        continue;
+      }
+      try {
+        ResponseParams params = mockMethod.producer().produce(args, null);
+        RetromockBodyFactory factory = params.bodyFactory();
+        byte[] responseBody = new byte[0];
+        if (factory != null) {
+          try (BufferedSource source = factory.createSource()) {
+            responseBody = source.readByteArray();
+          }
+        }
+        return new Response(params.code(), params.message(), params.headers(), responseBody,
+          mockMethod.behavior().delayMillis());
+      } catch (IOException | RuntimeException e) {
+        return Response.error(SERVER_ERROR, "Internal Server Error", "Mocking failed: " + e);
+      }
+    }
+    return Response.error(NOT_FOUND, "Not Found", "No mocked service method matches "
+      + method + " " + target);
+  }
+
+  /**
+   * Mocked response waiting to be written.
+   */
+  private static final class Response {
+
+    /**
+     * HTTP status code.
+     */
+    private final int code;
+
+    /**
+     * HTTP status message.
+     */
+    private final String message;
+
+    /**
+     * Response headers.
+     */
+    private final Headers headers;
+
+    /**
+     * Response body.
+     */
+    private final byte[] body;
+
+    /**
+     * Delay before the response is written.
+     */
+    private final long delayMillis;
+
+    Response(
+      final int code,
+      final String message,
+      final Headers headers,
+      final byte[] body,
+      final long delayMillis) {
+
+      this.code = code;
+      this.message = message;
+      this.headers = headers;
+      this.body = body;
+      this.delayMillis = delayMillis;
+    }
+
+    static Response error(final int code, final String message, final String body) {
+      return new Response(code, message, Headers.of("Content-Type", "text/plain; charset=utf-8"),
+        body.getBytes(StandardCharsets.UTF_8), 0);
+    }
+
+    ByteBuffer encode(final boolean includeBody, final boolean close) {
+      StringBuilder head = new StringBuilder()
+        .append("HTTP/1.1 ").append(code).append(' ').append(message).append(CRLF);
+      for (int i = 0; i < headers.size(); i++) {
+        String name = headers.name(i);
+        String lowerCaseName = name.toLowerCase(Locale.US);
+        if (!"content-length".equals(lowerCaseName)
+          && !"transfer-encoding".equals(lowerCaseName)
+          && !"connection".equals(lowerCaseName)) {
+          head.append(name).append(": ").append(headers.value(i)).append(CRLF);
+        }
+      }
+      head.append("Content-Length: ").append(body.length).append(CRLF);
+      if (close) {
+        head.append("Connection: close").append(CRLF);
+      }
+      head.append(CRLF);
+
+      byte[] headBytes = head.toString().getBytes(StandardCharsets.UTF_8);
+      ByteBuffer buffer = ByteBuffer.allocate(headBytes.length + (includeBody ? body.length : 0));
+      buffer.put(headBytes);
+      if (includeBody) {
+        buffer.put(body);
+      }
+      buffer.flip();
+      return buffer;
+    }
+  }
+
+  /**
+   * Encoded response waiting for its delay.
+   */
+  private static final class Delayed {
+
+    /**
+     * {@link System#nanoTime()} when the response is written.
+     */
+    private final long deadlineNanos;
+
+    /**
+     * Connection the response is written to.
+     */
+    private final Connection connection;
+
+    /**
+     * Encoded response.
+     */
+    private final ByteBuffer bytes;
+
+    Delayed(final long deadlineNanos, final Connection connection, final ByteBuffer bytes) {
+      this.deadlineNanos = deadlineNanos;
+      this.connection = connection;
+      this.bytes = bytes;
+    }
+  }
+
+  /**
+   * Client connection. Requests are handled one at a time, the next request is not read until the
+   * response to the previous one is written, so pipelined responses keep their order.
+   */
+  private final class Connection {
+
+    /**
+     * Client socket.
+     */
+    private final SocketChannel channel;
+
+    /**
+     * Selection key of the socket.
+     */
+    private final SelectionKey key;
+
+    /**
+     * Received bytes not handled yet, in write mode.
+     */
+    private ByteBuffer input = ByteBuffer.allocate(READ_BUFFER_SIZE);
+
+    /**
+     * Response being written, {@code null} if there is none.
+     */
+    @Nullable
+    private ByteBuffer output;
+
+    /**
+     * Flag indicating whether a request is being handled.
+     */
+    private boolean busy;
+
+    /**
+     * Flag indicating whether the connection is closed after the response is written.
+     */
+    private boolean closeAfterWrite;
+
+    Connection(final SocketChannel channel, final SelectionKey key) {
+      this.channel = channel;
+      this.key = key;
+    }
+
+    void read() throws IOException {
+      if (!input.hasRemaining()) {
+        if (input.capacity() >= MAX_REQUEST_SIZE) {
+          reject(TOO_LARGE, "Payload Too Large");
+          return;
+        }
+        input.flip();
+        input = ByteBuffer.allocate(Math.min(input.capacity() * 2, MAX_REQUEST_SIZE)).put(input);
+      }
+      if (channel.read(input) < 0) {
+        close();
+        return;
+      }
+      handleRequests();
+    }
+
+    private void handleRequests() {
+      while (!busy && channel.isOpen()) {
+        int headersEnd = indexOf(input, HEADERS_END);
+        if (headersEnd < 0) {
+          return;
+        }
+        String[] lines = new String(input.array(), 0, headersEnd, StandardCharsets.ISO_8859_1)
+          .split(CRLF);
+        String[] requestLine = lines[0].split(" ");
+        if (requestLine.length != REQUEST_LINE_PARTS) {
+          reject(BAD_REQUEST, "Bad Request");
+          return;
+        }
+        Map<String, String> headers = new HashMap<>();
+        for (int i = 1; i < lines.length; i++) {
+          int colon = lines[i].indexOf(':');
+          if (colon > 0) {
+            headers.put(lines[i].substring(0, colon).trim().toLowerCase(Locale.US),
+              lines[i].substring(colon + 1).trim());
+          }
+        }
+
+        int bodyStart = headersEnd + HEADERS_END.length;
+        int contentLength;
+        try {
+          String length = headers.get("content-length");
+          contentLength = length != null ? Integer.parseInt(length) : 0;
+        } catch (NumberFormatException e) {
+          reject(BAD_REQUEST, "Bad Request");
+          return;
+        }
+        if (contentLength < 0 || bodyStart + contentLength > MAX_REQUEST_SIZE) {
+          reject(TOO_LARGE, "Payload Too Large");
+          return;
+        }
+        if (input.position() < bodyStart + contentLength) {
+          // wait for the rest of the body
+          return;
+        }
+        byte[] body = new byte[contentLength];
+        System.arraycopy(input.array(), bodyStart, body, 0, contentLength);
+        input.flip();
+        input.position(bodyStart + contentLength);
+        input.compact();
+
+        String version = requestLine[2];
+        String connection = headers.get("connection");
+        boolean close = "HTTP/1.0".equals(version)
+          ? !"keep-alive".equalsIgnoreCase(connection)
+          : "close".equalsIgnoreCase(connection);
+        handle(requestLine[0], requestLine[1], headers, body, close);
+      }
+    }
+
+    private void handle(
+      final String method,
+      final String target,
+      final Map<String, String> headers,
+      final byte[] body,
+      final boolean close) {
+
+      busy = true;
+      closeAfterWrite = close;
+      key.interestOps(0);
+
+      Response response = respond(method, target, headers, body);
+      ByteBuffer bytes = response.encode(!"HEAD".equals(method), close);
+      if (response.delayMillis <= 0) {
+        send(bytes);
+      } else {
+        delayed.add(new Delayed(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(response.delayMillis),
+          this, bytes));
+      }
+    }
+
+    private void reject(final int code, final String message) {
+      busy = true;
+      closeAfterWrite = true;
+      key.interestOps(0);
+      send(Response.error(code, message, message).encode(true, true));
+    }
+
+    void send(final ByteBuffer bytes) {
+      if (!channel.isOpen()) {
+        return;
+      }
+      output = bytes;
+      try {
+        write();
+      } catch (IOException e) {
+        close();
+      }
+    }
+
+    void write() throws IOException {
+      if (output == null) {
+        return;
+      }
+      channel.write(output);
+      if (output.hasRemaining()) {
+        key.interestOps(SelectionKey.OP_WRITE);
+        return;
+      }
+      output = null;
+      if (closeAfterWrite) {
+        close();
+        return;
+      }
+      busy = false;
+      key.interestOps(SelectionKey.OP_READ);
+      // requests may have been pipelined while the response was delayed
+      handleRequests();
+    }
+
+    void close() {
+      key.cancel();
+      try {
+        channel.close();
+      } catch (IOException ignored) {
+        // nothing to do, the connection is closed anyway
+      }
+    }
+  }
+
+  private static int indexOf(final ByteBuffer buffer, final byte[] bytes) {
+    byte[] array = buffer.array();
+    int limit = buffer.position() - bytes.length;
+    for (int i = 0; i <= limit; i++) {
+      int matched = 0;
+      while (matched < bytes.length && array[i + matched] == bytes[matched]) {
+        matched++;
+      }
+      if (matched == bytes.length) {
+        return i;
+      }
+    }
+    return -1;
+  }
+}
@@ -0,0 +1,175 @@
+package co.infinum.retromock
+
+import co.infinum.retromock.meta.Mock
+import co.infinum.retromock.meta.MockBehavior
+import co.infinum.retromock.meta.MockHeader
+import co.infinum.retromock.meta.MockResponse
+import okhttp3.Dispatcher
+import okhttp3.OkHttpClient
+import okhttp3.Request
+import okhttp3.ResponseBody
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import retrofit2.Call
+import retrofit2.Retrofit
+import retrofit2.http.Field
+import retrofit2.http.FormUrlEncoded
+import retrofit2.http.GET
+import retrofit2.http.POST
+import retrofit2.http.Path
+import java.net.Socket
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+class MockServerTest {
+
+    class ImmediateBehavior : Behavior {
+        override fun delayMillis(): Long = 0L
+    }
+
+    interface Service {
+
+        @Mock
+        @MockResponse(
+            body = "user {{id}}",
+            bodyFactory = TemplateBodyFactory::class,
+            headers = [MockHeader(name = "Content-Type", value = "text/plain")]
+        )
+        @GET("users/{id}")
+        fun getUser(@Path("id") id: String): Call<ResponseBody>
+
+        @Mock
+        @MockResponse(
+            code = 201,
+            message = "Created",
+            body = "welcome {{user}}",
+            bodyFactory = TemplateBodyFactory::class
+        )
+        @FormUrlEncoded
+        @POST("login")
+        fun login(@Field("user") user: String): Call<ResponseBody>
+
+        @Mock
+        @MockBehavior(durationMillis = 300, durationDeviation = 0)
+        @MockResponse(body = "slow")
+        @GET("slow")
+        fun slow(): Call<ResponseBody>
+
+        @GET("real")
+        fun real(): Call<ResponseBody>
+    }
+
+    private lateinit var server: MockServer
+
+    private lateinit var service: Service
+
+    @BeforeEach
+    fun setUp() {
+        val retromock = Retromock.Builder()
+            .retrofit(Retrofit.Builder()
+                .baseUrl("http://infinum.co/api/")
+                .build())
+            .defaultBehavior(ImmediateBehavior())
+            .build()
+        server = MockServer(retromock, Service::class.java)
+        server.start(0)
+
+        service = Retrofit.Builder()
+            .baseUrl(server.url())
+            .client(OkHttpClient.Builder()
+                .dispatcher(Dispatcher().apply {
+                    maxRequests = 200
+                    maxRequestsPerHost = 200
+                })
+                .build())
+            .build()
+            .create(Service::class.java)
+    }
+
+    @AfterEach
+    fun tearDown() {
+        server.close()
+    }
+
+    @Test
+    fun urlHasBasePath() {
+        assertThat(server.url().encodedPath).isEqualTo("/api/")
+    }
+
+    @Test
+    fun mockedResponseIsServed() {
+        val response = service.getUser("42").execute()
+
+        assertThat(response.code()).isEqualTo(200)
+        assertThat(response.headers()["Content-Type"]).isEqualTo("text/plain")
+        assertThat(response.body()?.string()).isEqualTo("user 42")
+    }
+
+    @Test
+    fun formFieldsAreMatched() {
+        val response = service.login("jane").execute()
+
+        assertThat(response.code()).isEqualTo(201)
+        assertThat(response.message()).isEqualTo("Created")
+        assertThat(response.body()?.string()).isEqualTo("welcome jane")
+    }
+
+    @Test
+    fun notMockedMethodIsNotFound() {
+        assertThat(service.real().execute().code()).isEqualTo(404)
+    }
+
+    @Test
+    fun unknownPathIsNotFound() {
+        val response = OkHttpClient().newCall(Request.Builder()
+            .url(server.url().resolve("unknown")!!)
+            .build())
+            .execute()
+
+        assertThat(response.code).isEqualTo(404)
+    }
+
+    @Test
+    fun keepAliveConnectionServesSequentialRequests() {
+        for (i in 1..20) {
+            assertThat(service.getUser(i.toString()).execute().body()?.string()).isEqualTo("user $i")
+        }
+    }
+
+    @Test
+    fun delaysDoNotBlockOtherRequests() {
+        val count = 100
+        val latch = CountDownLatch(count)
+        val start = System.nanoTime()
+        repeat(count) {
+            service.slow().enqueue(object : retrofit2.Callback<ResponseBody> {
+                override fun onResponse(call: Call<ResponseBody>, response: retrofit2.Response<ResponseBody>) {
+                    response.body()?.close()
+                    latch.countDown()
+                }
+
+                override fun onFailure(call: Call<ResponseBody>, t: Throwable) = Unit
+            })
+        }
+
+        assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue()
+        val elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)
+        assertThat(elapsedMillis).isGreaterThanOrEqualTo(300).isLessThan(count * 300L / 4)
+    }
+
+    @Test
+    fun failingRequestClosesOnlyItsConnection() {
+        // a malformed escape in a form field fails while matching the request
+        Socket(server.address().address, server.address().port).use { socket ->
+            socket.soTimeout = 5_000
+            socket.getOutputStream().write(("POST /api/login HTTP/1.1\r\nHost: localhost\r\n"
+                + "Content-Type: application/x-www-form-urlencoded\r\nContent-Length: 8\r\n\r\nuser=%zz").toByteArray())
+
+            assertThat(socket.getInputStream().read()).isEqualTo(-1)
+        }
+
+        assertThat(service.getUser("42").execute().body()?.string()).isEqualTo("user 42")
+    }
+}